@@ -0,0 +1,169 @@
+package org.texttechnologylab.dependency.benchmark;
+
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.texttechnologylab.dependency.data.Metric;
+import org.texttechnologylab.dependency.data.SentenceDataPoint;
+import org.texttechnologylab.dependency.graph.CompactDependencyTree;
+import org.texttechnologylab.dependency.graph.DependencyGraph;
+import org.texttechnologylab.dependency.graph.DependencyMetrics;
+import org.texttechnologylab.dependency.graph.InvalidDependencyGraphException;
+import org.texttechnologylab.dependency.graph.random.RandomTreeSampler;
+
+/**
+ * Measures each metric of {@link DependencyGraph}, the fused {@link DependencyMetrics} and the construction of
+ * {@link SentenceDataPoint}s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DependencyGraphBenchmark {
+
+    private static final Set<Metric> MDD_NDD = EnumSet.of(Metric.MDD, Metric.NDD);
+
+    @Param({ "5", "20", "50", "100", "300" })
+    public int length;
+
+    @Param({ "CHAIN", "STAR", "RANDOM" })
+    public TreeShape shape;
+
+    private CompactDependencyTree tree;
+    private DependencyGraph graph;
+
+    @Setup
+    public void setup() throws InvalidDependencyGraphException {
+        this.tree = this.shape.create(this.length, new Random(42));
+        this.graph = new DependencyGraph(this.tree);
+    }
+
+    @Benchmark
+    public Object dependencyDistances() {
+        return this.graph.getDependencyDistances();
+    }
+
+    @Benchmark
+    public int dependencyDistanceSum() {
+        return this.graph.getDependencyDistanceSum();
+    }
+
+    @Benchmark
+    public int sentenceLength() {
+        return this.graph.getSentenceLength();
+    }
+
+    @Benchmark
+    public int numberOfSyntacticLinks() {
+        return this.graph.getNumberOfSyntacticLinks();
+    }
+
+    @Benchmark
+    public int rootDistance() {
+        return this.graph.rootDistance();
+    }
+
+    @Benchmark
+    public double mdd() {
+        return this.graph.mdd();
+    }
+
+    @Benchmark
+    public double ndd() {
+        return this.graph.ndd();
+    }
+
+    @Benchmark
+    public int crossings() {
+        return this.graph.crossings();
+    }
+
+    @Benchmark
+    public int dependencyHeight() {
+        return this.graph.dependencyHeight();
+    }
+
+    @Benchmark
+    public int treeHeight() {
+        return this.graph.treeHeight();
+    }
+
+    @Benchmark
+    public double depthMean() {
+        return this.graph.depthMean();
+    }
+
+    @Benchmark
+    public double depthVariance() {
+        return this.graph.depthVariance();
+    }
+
+    @Benchmark
+    public int leaves() {
+        return this.graph.leaves();
+    }
+
+    @Benchmark
+    public int treeDegree() {
+        return this.graph.treeDegree();
+    }
+
+    @Benchmark
+    public double treeDegreeMean() {
+        return this.graph.treeDegreeMean();
+    }
+
+    @Benchmark
+    public double treeDegreeVariance() {
+        return this.graph.treeDegreeVariance();
+    }
+
+    @Benchmark
+    public double headFinalRatio() {
+        return this.graph.headFinalRatio();
+    }
+
+    @Benchmark
+    public int headFinalDistance() {
+        return this.graph.headFinalDistance();
+    }
+
+    @Benchmark
+    public int randomTreeDistance() throws InvalidDependencyGraphException {
+        return this.graph.randomTreeDistance(
+            1,
+            RandomTreeSampler.seeded(42L, String.valueOf(this.length)),
+            DependencyGraph.DEFAULT_TREE_EDIT_DISTANCE
+        ).first;
+    }
+
+    @Benchmark
+    public DependencyMetrics fusedMetrics() {
+        return this.graph.computeMetrics();
+    }
+
+    @Benchmark
+    public SentenceDataPoint sentenceDataPoint() throws InvalidDependencyGraphException {
+        return new SentenceDataPoint(this.tree, 1, RandomTreeSampler.seeded(42L, String.valueOf(this.length)));
+    }
+
+    @Benchmark
+    public SentenceDataPoint sentenceDataPointMddNdd() throws InvalidDependencyGraphException {
+        return new SentenceDataPoint(this.tree, MDD_NDD, 1, RandomTreeSampler.seeded(42L, String.valueOf(this.length)));
+    }
+}
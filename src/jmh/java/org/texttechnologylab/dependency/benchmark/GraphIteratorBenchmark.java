@@ -0,0 +1,125 @@
+package org.texttechnologylab.dependency.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.texttechnologylab.dependency.binary.BinaryGraphFormat;
+import org.texttechnologylab.dependency.binary.BinaryGraphReader;
+import org.texttechnologylab.dependency.binary.BinaryGraphWriter;
+import org.texttechnologylab.dependency.graph.CompactDependencyTree;
+import org.texttechnologylab.dependency.graph.InvalidDependencyGraphException;
+import org.texttechnologylab.dependency.json.CountingIterator;
+import org.texttechnologylab.dependency.json.GraphIterator;
+import org.texttechnologylab.dependency.json.IntGraphIterator;
+import org.texttechnologylab.dependency.json.MappedGraphIterator;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Measures reading a graph file of sentences with 5 to 300 tokens with each of the graph readers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphIteratorBenchmark {
+
+    public enum Reader {
+        GSON,
+        INT,
+        MAPPED,
+        BINARY
+    }
+
+    @Param({ "GSON", "INT", "MAPPED", "BINARY" })
+    public Reader reader;
+
+    @Param({ "10000" })
+    public int sentences;
+
+    private Path directory;
+    private Path jsonFile;
+    private Path binaryFile;
+    private ExecutorService executor;
+
+    @Setup
+    public void setup() throws IOException, InvalidDependencyGraphException {
+        this.directory = Files.createTempDirectory("graph-iterator-benchmark");
+        this.jsonFile = this.directory.resolve("graphs.json");
+        this.binaryFile = this.directory.resolve("graphs" + BinaryGraphFormat.EXTENSION);
+        this.executor = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(),
+            new ThreadFactoryBuilder().setNameFormat("benchmark-parser-%d").setDaemon(true).build()
+        );
+
+        Random random = new Random(42);
+        TreeShape[] shapes = TreeShape.values();
+        try (BufferedWriter writer = Files.newBufferedWriter(this.jsonFile)) {
+            writer.write('{');
+            for (int sentence = 0; sentence < this.sentences; sentence++) {
+                if (sentence > 0) writer.write(",\n");
+                CompactDependencyTree tree = shapes[random.nextInt(shapes.length)].create(5 + random.nextInt(296), random);
+                StringBuilder dependencies = new StringBuilder();
+                StringBuilder punct = new StringBuilder();
+                for (int node = 1; node < tree.length(); node++) {
+                    StringBuilder target = tree.isPunct(node) ? punct : dependencies;
+                    if (target.length() > 0) target.append(", ");
+                    target.append('[').append(tree.getHead(node)).append(", ").append(node).append(']');
+                }
+                writer.write(String.format("\"sentence-%d\": [[%s], [%s]]", sentence, dependencies, punct));
+            }
+            writer.write("}\n");
+        }
+        try (IntGraphIterator graphIterator = new IntGraphIterator(Files.newBufferedReader(this.jsonFile))) {
+            BinaryGraphWriter.convert(graphIterator, this.binaryFile);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        this.executor.shutdown();
+        Files.deleteIfExists(this.jsonFile);
+        Files.deleteIfExists(this.binaryFile);
+        Files.deleteIfExists(this.directory);
+    }
+
+    @Benchmark
+    public int read(Blackhole blackhole) throws IOException {
+        try (CountingIterator<?> graphIterator = open()) {
+            while (graphIterator.hasNext()) {
+                blackhole.consume(graphIterator.next());
+            }
+            return graphIterator.count();
+        }
+    }
+
+    private CountingIterator<?> open() throws IOException {
+        return switch (this.reader) {
+            case GSON -> new GraphIterator(Files.newBufferedReader(this.jsonFile));
+            case INT -> new IntGraphIterator(Files.newBufferedReader(this.jsonFile));
+            case MAPPED -> new MappedGraphIterator(this.jsonFile, this.executor);
+            case BINARY -> BinaryGraphReader.iterate(this.binaryFile);
+        };
+    }
+}
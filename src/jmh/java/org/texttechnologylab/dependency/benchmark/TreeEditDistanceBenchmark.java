@@ -0,0 +1,91 @@
+package org.texttechnologylab.dependency.benchmark;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.texttechnologylab.dependency.graph.CompactDependencyTree;
+import org.texttechnologylab.dependency.graph.DependencyGraphStringifier;
+import org.texttechnologylab.dependency.graph.InvalidDependencyGraphException;
+import org.texttechnologylab.dependency.graph.random.RandomTree;
+import org.texttechnologylab.dependency.graph.random.RandomTreeSampler;
+import org.texttechnologylab.dependency.graph.ted.PostorderTree;
+import org.texttechnologylab.dependency.graph.ted.TreeEditDistanceWorkspace;
+import org.texttechnologylab.dependency.graph.ted.ZhangShashaTreeEditDistance;
+import org.texttechnologylab.dependency.graph.zs.Tree;
+
+import com.google.common.graph.ImmutableGraph;
+
+/**
+ * Measures the tree edit distance between a dependency tree and a random tree of the same size, with the original
+ * string-based {@link Tree#ZhangShasha(Tree, Tree)} and with {@link ZhangShashaTreeEditDistance}, as well as the
+ * generation of the random trees.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TreeEditDistanceBenchmark {
+
+    @Param({ "5", "20", "50", "100", "300" })
+    public int length;
+
+    @Param({ "CHAIN", "STAR", "RANDOM" })
+    public TreeShape shape;
+
+    private String zsTree;
+    private String zsRandomTree;
+    private PostorderTree postorderTree;
+    private PostorderTree postorderRandomTree;
+    private final ZhangShashaTreeEditDistance treeEditDistance = new ZhangShashaTreeEditDistance();
+    private final TreeEditDistanceWorkspace workspace = new TreeEditDistanceWorkspace();
+    private final SplittableRandom random = new SplittableRandom(42);
+    private final RandomTreeSampler sampler = new RandomTreeSampler(new SplittableRandom(42));
+
+    @Setup
+    public void setup() throws InvalidDependencyGraphException {
+        CompactDependencyTree tree = this.shape.create(this.length, new Random(42));
+        ImmutableGraph<Integer> randomGraph = RandomTree.getRandomGraph(tree.getNumberOfNodes() - 1, new SplittableRandom(7));
+        this.zsTree = DependencyGraphStringifier.treeToZsStringRepresentation(tree);
+        this.zsRandomTree = DependencyGraphStringifier.graphToZsStringRepresentation(randomGraph);
+        this.postorderTree = PostorderTree.fromDependencyTree(tree);
+        this.postorderRandomTree = PostorderTree.fromGraph(randomGraph);
+    }
+
+    /**
+     * Includes parsing both trees, as {@link Tree#ZhangShasha(Tree, Tree)} modifies its arguments.
+     */
+    @Benchmark
+    public int zhangShashaLegacy() throws IOException {
+        return Tree.ZhangShasha(new Tree(this.zsTree), new Tree(this.zsRandomTree));
+    }
+
+    @Benchmark
+    public int zhangShasha() {
+        return this.treeEditDistance.distance(this.postorderTree, this.postorderRandomTree, this.workspace);
+    }
+
+    @Benchmark
+    public ImmutableGraph<Integer> randomGraph() {
+        return RandomTree.getRandomGraph(this.length, this.random);
+    }
+
+    @Benchmark
+    public PostorderTree randomTreeSample() {
+        return this.sampler.sample(this.length);
+    }
+}
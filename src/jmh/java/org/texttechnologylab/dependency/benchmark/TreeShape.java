@@ -0,0 +1,57 @@
+package org.texttechnologylab.dependency.benchmark;
+
+import java.util.Random;
+
+import org.texttechnologylab.dependency.graph.CompactDependencyTree;
+import org.texttechnologylab.dependency.graph.InvalidDependencyGraphException;
+
+/**
+ * The shapes of the dependency trees the benchmarks are parameterised over.
+ */
+public enum TreeShape {
+
+    /**
+     * Every token depends on the next one, the last token is the root. Maximal height and dependency height.
+     */
+    CHAIN,
+    /**
+     * Every token depends on the first one. Maximal degree, every token but the root is a leaf.
+     */
+    STAR,
+    /**
+     * Every token depends on a random earlier token, like a random recursive tree, with crossing edges.
+     */
+    RANDOM;
+
+    /**
+     * @param length The number of tokens, excluding the root node 0.
+     * @param random The random number generator for {@link #RANDOM} trees.
+     * @return A tree of this shape, in which every eighth token is punctuation attached to its predecessor.
+     */
+    public CompactDependencyTree create(int length, Random random) throws InvalidDependencyGraphException {
+        int[] heads = new int[length + 1];
+        boolean[] punct = new boolean[length + 1];
+        for (int node = 1; node <= length; node++) {
+            heads[node] = switch (this) {
+                case CHAIN -> node == length ? 0 : node + 1;
+                case STAR -> node == 1 ? 0 : 1;
+                case RANDOM -> node == 1 ? 0 : 1 + random.nextInt(node - 1);
+            };
+        }
+        for (int node = 8; node < length; node += 8) {
+            // Only tokens without dependents, so the rest of the tree stays connected
+            if (isLeaf(heads, node)) {
+                heads[node] = node - 1;
+                punct[node] = true;
+            }
+        }
+        return CompactDependencyTree.fromHeads(heads, punct);
+    }
+
+    private static boolean isLeaf(int[] heads, int node) {
+        for (int other = 1; other < heads.length; other++) {
+            if (heads[other] == node) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,85 @@
+package org.texttechnologylab.dependency.app;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.dkpro.core.api.resources.CompressionMethod;
+import org.dkpro.core.api.resources.CompressionUtils;
+import org.texttechnologylab.dependency.binary.BinaryGraphFormat;
+import org.texttechnologylab.dependency.binary.BinaryGraphWriter;
+import org.texttechnologylab.dependency.json.IntGraphIterator;
+
+/**
+ * Converts JSON graph files, optionally compressed, into the {@link BinaryGraphFormat}. The binary files can be
+ * passed to {@link Run} and {@link RunLiterature} instead of the JSON files.
+ */
+public class ConvertGraphs {
+
+    public static void main(String[] args) throws IOException {
+        boolean pOverwrite = false;
+
+        ArrayList<String> fileList = new ArrayList<String>();
+        Iterator<String> iterator = Arrays.stream(args).iterator();
+        while (iterator.hasNext()) {
+            String argOrFlag = iterator.next();
+            switch (argOrFlag) {
+                case "--overwrite":
+                    pOverwrite = Boolean.parseBoolean(iterator.next());
+                    break;
+                default:
+                    fileList.add(argOrFlag);
+            }
+        }
+        if (fileList.size() < 2) {
+            throw new IllegalArgumentException(
+                String.format("Expected at least 2 files (input, output), but got %d: %s", fileList.size(), fileList)
+            );
+        }
+        final Path outputPath = Paths.get(fileList.remove(fileList.size() - 1));
+        Files.createDirectories(outputPath);
+
+        for (String fileName : fileList) {
+            File inputFile = Paths.get(fileName).toFile();
+            Path outputFile = outputPath.resolve(getBaseName(inputFile.getName()) + BinaryGraphFormat.EXTENSION);
+            if (Files.exists(outputFile) && !pOverwrite) {
+                throw new IllegalArgumentException(String.format("Output file '%s' already exists and overwrite is disabled", outputFile));
+            }
+
+            try (
+                IntGraphIterator graphIterator = new IntGraphIterator(new BufferedReader(new InputStreamReader(
+                    CompressionUtils.getInputStream(inputFile.getName(), new FileInputStream(inputFile)),
+                    StandardCharsets.UTF_8
+                )))
+            ) {
+                int written = BinaryGraphWriter.convert(graphIterator, outputFile);
+                System.out.printf("Converted %d graphs from '%s' to '%s'%n", written, inputFile, outputFile);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(outputFile);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * @return The file name without compression and {@code .json} extensions.
+     */
+    private static String getBaseName(String name) {
+        for (CompressionMethod method : CompressionMethod.values()) {
+            if (method != CompressionMethod.NONE && name.endsWith(method.getExtension())) {
+                name = name.substring(0, name.length() - method.getExtension().length());
+                break;
+            }
+        }
+        return name.endsWith(".json") ? name.substring(0, name.length() - ".json".length()) : name;
+    }
+}
@@ -0,0 +1,59 @@
+package org.texttechnologylab.dependency.app;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+
+import org.dkpro.core.api.resources.CompressionMethod;
+import org.dkpro.core.api.resources.CompressionUtils;
+import org.texttechnologylab.dependency.binary.BinaryGraphFormat;
+import org.texttechnologylab.dependency.binary.BinaryGraphReader;
+import org.texttechnologylab.dependency.json.CountingIterator;
+import org.texttechnologylab.dependency.json.IntGraphIterator;
+import org.texttechnologylab.dependency.json.IntGraphIteratorItem;
+import org.texttechnologylab.dependency.json.MappedGraphIterator;
+
+/**
+ * Opens the graph input files of {@link Run} and {@link RunLiterature}.
+ */
+final class GraphInputs {
+
+    private GraphInputs() {
+    }
+
+    /**
+     * @return An iterator over the graphs of the given file, which may be in the binary graph format. Uncompressed
+     * JSON input is parsed in parallel from a memory map unless disabled, compressed input is read serially.
+     */
+    static CountingIterator<IntGraphIteratorItem> open(
+        Path inputPath,
+        ExecutorService pExecutor,
+        boolean pMapInput
+    ) throws IOException {
+        if (BinaryGraphFormat.isBinaryGraphFile(inputPath)) {
+            return BinaryGraphReader.iterate(inputPath);
+        }
+        if (pMapInput && !isCompressed(inputPath)) {
+            return new MappedGraphIterator(inputPath, pExecutor);
+        }
+        return new IntGraphIterator(new BufferedReader(new InputStreamReader(
+            CompressionUtils.getInputStream(inputPath.getFileName().toString(), Files.newInputStream(inputPath)),
+            StandardCharsets.UTF_8
+        )));
+    }
+
+    /**
+     * @return True, if the file name has the extension of a compression method.
+     */
+    static boolean isCompressed(Path path) {
+        String fileName = path.getFileName().toString();
+        return Arrays.stream(CompressionMethod.values()).anyMatch(
+            method -> method != CompressionMethod.NONE && fileName.endsWith(method.getExtension())
+        );
+    }
+}
@@ -1,15 +1,7 @@
 package org.texttechnologylab.dependency.app;
 
-import com.google.common.collect.Streams;
-import com.google.common.graph.GraphBuilder;
-import com.google.common.graph.ImmutableGraph;
-import com.google.common.graph.ImmutableGraph.Builder;
-import com.google.gson.Gson;
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystems;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
@@ -21,24 +13,49 @@ import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Stream;
 
 import org.dkpro.core.api.resources.CompressionMethod;
 import org.dkpro.core.api.resources.CompressionUtils;
+import org.texttechnologylab.dependency.binary.BinaryGraphFormat;
 import org.texttechnologylab.dependency.data.DocumentDataPoint;
+import org.texttechnologylab.dependency.data.Metric;
+import org.texttechnologylab.dependency.data.OutputFormat;
 import org.texttechnologylab.dependency.data.SentenceDataPoint;
+import org.texttechnologylab.dependency.data.SentenceDataPointWriter;
+import org.texttechnologylab.dependency.graph.CompactDependencyTree;
 import org.texttechnologylab.dependency.graph.InvalidDependencyGraphException;
-import org.texttechnologylab.dependency.json.GraphIterator;
-import org.texttechnologylab.dependency.json.GraphIteratorItem;
+import org.texttechnologylab.dependency.graph.random.RandomTreePool;
+import org.texttechnologylab.dependency.graph.random.RandomTreeSampler;
+import org.texttechnologylab.dependency.json.CountingIterator;
+import org.texttechnologylab.dependency.json.IntGraphIteratorItem;
+import org.texttechnologylab.dependency.pipeline.FileScheduler;
+import org.texttechnologylab.dependency.pipeline.JobManifest;
+import org.texttechnologylab.dependency.pipeline.OrderedPipeline;
 
 public class Run {
 
     public static void main(String[] args) {
         boolean pOverwrite = false;
+        boolean pResume = false;
         CompressionMethod pCompression = CompressionMethod.NONE;
         boolean pFailOnError = false;
+        int pRandomTreeSamples = 1;
+        Set<Metric> pMetrics = Metric.ALL;
+        Optional<Long> pSeed = Optional.empty();
+        int pRandomTreePoolSlots = 0;
+        long pRandomTreePoolNodes = 1_000_000L;
+        int pThreads = Runtime.getRuntime().availableProcessors();
+        Optional<Integer> pConcurrentFiles = Optional.empty();
+        int pBatchSize = OrderedPipeline.DEFAULT_BATCH_SIZE;
+        boolean pMapInput = true;
+        OutputFormat pFormat = OutputFormat.JSON;
+        Optional<Integer> pQueueDepth = Optional.empty();
 
         ArrayList<String> fileList = new ArrayList<String>();
         Iterator<String> iterator = Arrays.stream(args).iterator();
@@ -49,12 +66,49 @@ public class Run {
                 case "--overwrite":
                     pOverwrite = Boolean.parseBoolean(iterator.next());
                     break;
+                case "--resume":
+                    pResume = Boolean.parseBoolean(iterator.next());
+                    break;
                 case "--compression":
                     pCompression = CompressionMethod.valueOf(iterator.next());
                     break;
+                case "--format":
+                    pFormat = OutputFormat.fromString(iterator.next());
+                    break;
                 case "--failOnError":
                     pFailOnError = Boolean.parseBoolean(iterator.next());
                     break;
+                case "--metrics":
+                    pMetrics = Metric.parse(iterator.next());
+                    break;
+                case "--randomTreeSamples":
+                    pRandomTreeSamples = Integer.parseInt(iterator.next());
+                    break;
+                case "--randomTreePoolSlots":
+                    pRandomTreePoolSlots = Integer.parseInt(iterator.next());
+                    break;
+                case "--randomTreePoolNodes":
+                    pRandomTreePoolNodes = Long.parseLong(iterator.next());
+                    break;
+                case "--threads":
+                case "--workers":
+                    pThreads = Integer.parseInt(iterator.next());
+                    break;
+                case "--concurrentFiles":
+                    pConcurrentFiles = Optional.of(Integer.parseInt(iterator.next()));
+                    break;
+                case "--mapInput":
+                    pMapInput = Boolean.parseBoolean(iterator.next());
+                    break;
+                case "--batchSize":
+                    pBatchSize = Integer.parseInt(iterator.next());
+                    break;
+                case "--queueDepth":
+                    pQueueDepth = Optional.of(Integer.parseInt(iterator.next()));
+                    break;
+                case "--seed":
+                    pSeed = Optional.of(Long.parseLong(iterator.next()));
+                    break;
                 case "--corpus":
                     pCorpusName = Optional.of(iterator.next());
                     break;
@@ -67,14 +121,54 @@ public class Run {
                 String.format("Expected at least 2 files (input, output), but got %d: %s", fileList.size(), fileList)
             );
         }
+        if (pThreads < 1) {
+            throw new IllegalArgumentException(String.format("Expected a positive number of threads, but got %d", pThreads));
+        }
+        if (pRandomTreeSamples < 1) {
+            throw new IllegalArgumentException(
+                String.format("Expected a positive number of random tree samples, but got %d", pRandomTreeSamples)
+            );
+        }
         final String outputPath = fileList.remove(fileList.size() - 1);
 
         final boolean fOverwrite = pOverwrite;
+        final boolean fResume = pResume;
         final boolean fFailOnError = pFailOnError;
+        final int fRandomTreeSamples = pRandomTreeSamples;
+        final Set<Metric> fMetrics = pMetrics;
         final CompressionMethod fCompression = pCompression;
         final Optional<String> fCorpusName = pCorpusName;
+        final Optional<Long> fSeed = pSeed;
+        final boolean fMapInput = pMapInput;
+        final OutputFormat fFormat = pFormat;
+        // Completed inputs are recorded in the output directory, so that an interrupted run can be resumed. Inputs
+        // are only hashed when resuming, since that reads every input a second time.
+        final JobManifest manifest;
+        try {
+            manifest = JobManifest.open(Paths.get(outputPath), fResume);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        // Metric workers are shared by all files, each file keeps a bounded number of sentences in flight
+        final FileScheduler scheduler = new FileScheduler(pThreads, pConcurrentFiles.orElse(Math.max(1, pThreads / 4)));
+        final ExecutorService executor = scheduler.getWorkers();
+        // Keep enough batches queued that no worker idles while the writer waits for the oldest one
+        final OrderedPipeline pipeline = new OrderedPipeline(
+            executor,
+            pThreads,
+            pBatchSize,
+            pQueueDepth.orElse(2 * pThreads)
+        );
+        // Trees in the pool only depend on the pool seed, so seeded runs stay reproducible
+        final Optional<RandomTreePool> fPool = pRandomTreePoolSlots > 0
+            ? Optional.of(new RandomTreePool(
+                pRandomTreePoolSlots,
+                pRandomTreePoolNodes,
+                pSeed.orElseGet(() -> ThreadLocalRandom.current().nextLong())
+            ))
+            : Optional.empty();
 
-        fileList
+        final List<String> files = fileList
             .stream()
             .flatMap((String path) -> {
                 File file = Paths.get(path).toFile();
@@ -92,22 +186,76 @@ public class Run {
                 }
                 return Stream.of(file.getAbsolutePath());
             })
-            .parallel()
-            .forEach(fileName -> process(fileName, outputPath, fOverwrite, fFailOnError, fCompression, fCorpusName));
+            .toList();
+        scheduler.run(
+            files,
+            fileName -> new File(fileName).length(),
+            fileName -> process(
+                fileName,
+                outputPath,
+                fOverwrite,
+                fResume,
+                manifest,
+                fFailOnError,
+                fMetrics,
+                fRandomTreeSamples,
+                fSeed,
+                fPool,
+                pipeline,
+                executor,
+                fMapInput,
+                fFormat,
+                fCompression,
+                fCorpusName
+            )
+        );
+        scheduler.close();
+        try {
+            manifest.close();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        fPool.ifPresent(pool -> System.out.println(pool.report()));
     }
 
     private static void process(
         String fileName,
         final String outputPath,
         final boolean pOverwrite,
+        final boolean pResume,
+        final JobManifest pManifest,
         final boolean pFailOnError,
+        final Set<Metric> pMetrics,
+        final int pRandomTreeSamples,
+        final Optional<Long> pSeed,
+        final Optional<RandomTreePool> pPool,
+        final OrderedPipeline pPipeline,
+        final ExecutorService pExecutor,
+        final boolean pMapInput,
+        final OutputFormat pFormat,
         final CompressionMethod pCompression,
         final Optional<String> pCorpusName
     ) {
         try {
             Path inputPath = Paths.get(fileName);
-            File outputFile = Paths.get(outputPath, inputPath.getFileName().toString() + pCompression.getExtension()).toFile();
-            if (outputFile.exists() && !pOverwrite) {
+            String outputName = inputPath.getFileName().toString();
+            if (outputName.endsWith(BinaryGraphFormat.EXTENSION)) {
+                outputName = outputName.substring(0, outputName.length() - BinaryGraphFormat.EXTENSION.length()) + ".json";
+            }
+            if (pFormat != OutputFormat.JSON) {
+                if (outputName.endsWith(".json")) {
+                    outputName = outputName.substring(0, outputName.length() - ".json".length());
+                }
+                outputName += pFormat.getExtension();
+            }
+            File outputFile = Paths.get(outputPath, outputName + pCompression.getExtension()).toFile();
+            if (pResume && pManifest.isComplete(inputPath, outputFile.toPath())) {
+                System.out.printf("Skipping '%s', its output '%s' is complete%n", inputPath.toString(), outputFile.toString());
+                return;
+            }
+            // When resuming, existing outputs that are not recorded as complete are redone
+            if (outputFile.exists() && !pOverwrite && !pResume) {
                 throw new IllegalArgumentException(String.format("Output file '%s' already exists and overwrite is disabled", outputFile));
             }
 
@@ -116,24 +264,6 @@ public class Run {
             String documentId = pCorpusName.isPresent() ? pCorpusName.get() + "/" + parser + "/" + dateYear : parser + "/" + dateYear;
             String documentUri = "file://" + inputPath.toAbsolutePath().toString();
 
-            GraphIterator graphIterator = new GraphIterator(Files.newBufferedReader(inputPath));
-            ArrayList<NamedSentenceDataPoint> sentenceDataPoints = Streams
-                .stream(graphIterator)
-                .parallel()
-                .map(item -> {
-                    try {
-                        return Optional.<NamedSentenceDataPoint>of(getSentenceDataPoint(item));
-                    } catch (InvalidDependencyGraphException e) {
-                        if (pFailOnError) {
-                            throw new RuntimeException(e);
-                        }
-                    }
-                    return Optional.<NamedSentenceDataPoint>empty();
-                })
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(Collectors.toCollection(ArrayList::new));
-
             DocumentDataPoint documentDataPoint = new DocumentDataPoint();
             documentDataPoint.getDocumentAnnotation().put("file", fileName);
             documentDataPoint.getDocumentAnnotation().put("parser", parser);
@@ -142,24 +272,49 @@ public class Run {
             documentDataPoint.getDocumentMetaData().put("documentId", documentId);
             documentDataPoint.getDocumentMetaData().put("documentUri", documentUri);
 
-            documentDataPoint.getSentences().addAll(sentenceDataPoints);
-
-            System.out.printf(
-                "Processed %d/%d graphs from '%s'%n",
-                documentDataPoint.getSentences().size(),
-                graphIterator.count(),
-                inputPath.toString()
-            );
-
+            // Sentences are written as soon as they are done, so the document is never held in memory. The output
+            // only replaces the final file once it is complete.
+            File partialFile = JobManifest.getTemporaryFile(outputFile.toPath()).toFile();
+            int read;
+            int written;
+            OrderedPipeline.Statistics statistics;
             try (
-                BufferedWriter writer = new BufferedWriter(
-                    new OutputStreamWriter(CompressionUtils.getOutputStream(outputFile), StandardCharsets.UTF_8)
+                CountingIterator<IntGraphIteratorItem> graphIterator = GraphInputs.open(inputPath, pExecutor, pMapInput);
+                SentenceDataPointWriter documentWriter = pFormat.open(
+                    CompressionUtils.getOutputStream(partialFile),
+                    documentDataPoint.getDocumentAnnotation(),
+                    documentDataPoint.getDocumentMetaData()
                 )
             ) {
-                writer.write(new Gson().toJson(documentDataPoint));
-
-                System.out.printf("Wrote %d data points to '%s'%n", documentDataPoint.getSentences().size(), outputFile.toString());
+                statistics = pPipeline.run(
+                    graphIterator,
+                    item -> {
+                        try {
+                            RandomTreeSampler sampler = getSampler(pSeed, pPool, pCorpusName.orElse(null), documentId, item);
+                            return Optional.<NamedSentenceDataPoint>of(getSentenceDataPoint(item, pMetrics, pRandomTreeSamples, sampler));
+                        } catch (InvalidDependencyGraphException e) {
+                            if (pFailOnError) {
+                                throw new RuntimeException(e);
+                            }
+                        }
+                        return Optional.<NamedSentenceDataPoint>empty();
+                    },
+                    sentenceDataPoint -> {
+                        if (sentenceDataPoint.isPresent()) documentWriter.write(sentenceDataPoint.get());
+                    }
+                );
+                written = documentWriter.getNumberOfSentences();
+                read = graphIterator.count();
+            } catch (Exception e) {
+                // Do not leave a truncated document behind
+                Files.deleteIfExists(partialFile.toPath());
+                throw e;
             }
+            pManifest.commit(inputPath, outputFile.toPath());
+
+            System.out.printf("Processed %d/%d graphs from '%s'%n", written, read, inputPath.toString());
+            System.out.printf("Wrote %d data points to '%s'%n", written, outputFile.toString());
+            System.out.printf("Pipeline for '%s': %s%n", inputPath.toString(), statistics.report());
         } catch (Exception e) {
             if (pFailOnError) {
                 throw new RuntimeException(e);
@@ -197,27 +352,45 @@ public class Run {
 
         public NamedSentenceDataPoint(
             String textId,
-            ImmutableGraph<Integer> dependencyGraph,
-            ImmutableGraph<Integer> dependencyGraphWithPunct
+            CompactDependencyTree tree,
+            Set<Metric> metrics,
+            int randomTreeSamples,
+            RandomTreeSampler sampler
         ) throws InvalidDependencyGraphException {
-            super(dependencyGraph, dependencyGraphWithPunct);
+            super(tree, metrics, randomTreeSamples, sampler);
             this.textId = textId;
         }
     }
 
-    private static NamedSentenceDataPoint getSentenceDataPoint(GraphIteratorItem item) throws InvalidDependencyGraphException {
-        Builder<Integer> graphBuilder = GraphBuilder.directed().<Integer>immutable().addNode(0);
-
-        for (Integer[] edge : item.dependencyEdges) {
-            graphBuilder.putEdge(edge[0], edge[1]);
-        }
-        ImmutableGraph<Integer> dependencyGraph = graphBuilder.build();
-
-        for (Integer[] edge : item.punctEdges) {
-            graphBuilder.putEdge(edge[0], edge[1]);
-        }
-        ImmutableGraph<Integer> dependencyGraphWithPunct = graphBuilder.build();
+    private static NamedSentenceDataPoint getSentenceDataPoint(
+        IntGraphIteratorItem item,
+        Set<Metric> metrics,
+        int randomTreeSamples,
+        RandomTreeSampler sampler
+    ) throws InvalidDependencyGraphException {
+        return new NamedSentenceDataPoint(
+            item.textId,
+            CompactDependencyTree.fromEdges(item.dependencyEdges, item.punctEdges),
+            metrics,
+            randomTreeSamples,
+            sampler
+        );
+    }
 
-        return new NamedSentenceDataPoint(item.textId, dependencyGraph, dependencyGraphWithPunct);
+    /**
+     * @return A sampler seeded from the run seed and the sentence's corpus, document and text id if a seed is
+     * given, otherwise an unseeded sampler for the current thread. If a pool is given, the sampler draws from it.
+     */
+    private static RandomTreeSampler getSampler(
+        Optional<Long> pSeed,
+        Optional<RandomTreePool> pPool,
+        String corpusName,
+        String documentId,
+        IntGraphIteratorItem item
+    ) {
+        RandomTreeSampler sampler = pSeed.isPresent()
+            ? RandomTreeSampler.seeded(pSeed.get(), corpusName, documentId, item.textId)
+            : new RandomTreeSampler(ThreadLocalRandom.current());
+        return pPool.isPresent() ? sampler.withPool(pPool.get()) : sampler;
     }
 }
@@ -1,29 +1,35 @@
 package org.texttechnologylab.dependency.app;
 
-import com.google.common.collect.Streams;
-import com.google.common.graph.GraphBuilder;
-import com.google.common.graph.ImmutableGraph;
-import com.google.common.graph.ImmutableGraph.Builder;
-import com.google.gson.Gson;
 import org.dkpro.core.api.resources.CompressionMethod;
 import org.dkpro.core.api.resources.CompressionUtils;
 import org.texttechnologylab.dependency.data.DocumentDataPoint;
+import org.texttechnologylab.dependency.data.Metric;
+import org.texttechnologylab.dependency.data.OutputFormat;
 import org.texttechnologylab.dependency.data.SentenceDataPoint;
+import org.texttechnologylab.dependency.data.SentenceDataPointWriter;
+import org.texttechnologylab.dependency.graph.CompactDependencyTree;
 import org.texttechnologylab.dependency.graph.InvalidDependencyGraphException;
-import org.texttechnologylab.dependency.json.GraphIterator;
-import org.texttechnologylab.dependency.json.GraphIteratorItem;
+import org.texttechnologylab.dependency.graph.random.RandomTreePool;
+import org.texttechnologylab.dependency.graph.random.RandomTreeSampler;
+import org.texttechnologylab.dependency.json.CountingIterator;
+import org.texttechnologylab.dependency.json.IntGraphIteratorItem;
+import org.texttechnologylab.dependency.pipeline.FileScheduler;
+import org.texttechnologylab.dependency.pipeline.JobManifest;
+import org.texttechnologylab.dependency.pipeline.OrderedPipeline;
 
 import java.io.*;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class RunLiterature {
@@ -42,8 +48,20 @@ public class RunLiterature {
 
     public static void main(String[] args) {
         boolean pOverwrite = false;
+        boolean pResume = false;
         CompressionMethod pCompression = CompressionMethod.NONE;
         boolean pFailOnError = false;
+        int pRandomTreeSamples = 1;
+        Set<Metric> pMetrics = Metric.ALL;
+        Optional<Long> pSeed = Optional.empty();
+        int pRandomTreePoolSlots = 0;
+        long pRandomTreePoolNodes = 1_000_000L;
+        int pThreads = Runtime.getRuntime().availableProcessors();
+        Optional<Integer> pConcurrentFiles = Optional.empty();
+        int pBatchSize = OrderedPipeline.DEFAULT_BATCH_SIZE;
+        boolean pMapInput = true;
+        OutputFormat pFormat = OutputFormat.JSON;
+        Optional<Integer> pQueueDepth = Optional.empty();
 
         ArrayList<String> fileList = new ArrayList<String>();
         Iterator<String> iterator = Arrays.stream(args).iterator();
@@ -55,12 +73,49 @@ public class RunLiterature {
                 case "--overwrite":
                     pOverwrite = Boolean.parseBoolean(iterator.next());
                     break;
+                case "--resume":
+                    pResume = Boolean.parseBoolean(iterator.next());
+                    break;
                 case "--compression":
                     pCompression = CompressionMethod.valueOf(iterator.next());
                     break;
+                case "--format":
+                    pFormat = OutputFormat.fromString(iterator.next());
+                    break;
                 case "--failOnError":
                     pFailOnError = Boolean.parseBoolean(iterator.next());
                     break;
+                case "--metrics":
+                    pMetrics = Metric.parse(iterator.next());
+                    break;
+                case "--randomTreeSamples":
+                    pRandomTreeSamples = Integer.parseInt(iterator.next());
+                    break;
+                case "--randomTreePoolSlots":
+                    pRandomTreePoolSlots = Integer.parseInt(iterator.next());
+                    break;
+                case "--randomTreePoolNodes":
+                    pRandomTreePoolNodes = Long.parseLong(iterator.next());
+                    break;
+                case "--threads":
+                case "--workers":
+                    pThreads = Integer.parseInt(iterator.next());
+                    break;
+                case "--concurrentFiles":
+                    pConcurrentFiles = Optional.of(Integer.parseInt(iterator.next()));
+                    break;
+                case "--mapInput":
+                    pMapInput = Boolean.parseBoolean(iterator.next());
+                    break;
+                case "--batchSize":
+                    pBatchSize = Integer.parseInt(iterator.next());
+                    break;
+                case "--queueDepth":
+                    pQueueDepth = Optional.of(Integer.parseInt(iterator.next()));
+                    break;
+                case "--seed":
+                    pSeed = Optional.of(Long.parseLong(iterator.next()));
+                    break;
                 case "--corpus":
                     pCorpusName = Optional.of(iterator.next());
                     break;
@@ -91,15 +146,60 @@ public class RunLiterature {
                 fileList
             ));
         }
+        if (pThreads < 1) {
+            throw new IllegalArgumentException(String.format(
+                "Expected a positive number of threads, but got %d",
+                pThreads
+            ));
+        }
+        if (pRandomTreeSamples < 1) {
+            throw new IllegalArgumentException(String.format(
+                "Expected a positive number of random tree samples, but got %d",
+                pRandomTreeSamples
+            ));
+        }
         final String outputPath = fileList.remove(fileList.size() - 1);
 
         final boolean fOverwrite = pOverwrite;
+        final boolean fResume = pResume;
         final boolean fFailOnError = pFailOnError;
+        final int fRandomTreeSamples = pRandomTreeSamples;
+        final Set<Metric> fMetrics = pMetrics;
         final CompressionMethod fCompression = pCompression;
         final String fCorpusName = pCorpusName.get();
         final String fPattern = pPattern.get();
-
-        fileList.stream().flatMap((String pathString) -> {
+        final Optional<Long> fSeed = pSeed;
+        final boolean fMapInput = pMapInput;
+        final OutputFormat fFormat = pFormat;
+        // Completed inputs are recorded in the output directory, so that an interrupted run can be resumed. Inputs
+        // are only hashed when resuming, since that reads every input a second time.
+        final JobManifest manifest;
+        try {
+            manifest = JobManifest.open(Paths.get(outputPath), fResume);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        // Metric workers are shared by all files, each file keeps a bounded number of sentences in flight
+        final FileScheduler scheduler = new FileScheduler(
+            pThreads,
+            pConcurrentFiles.orElse(Math.max(1, pThreads / 4))
+        );
+        final ExecutorService executor = scheduler.getWorkers();
+        // Keep enough batches queued that no worker idles while the writer waits for the oldest one
+        final OrderedPipeline pipeline = new OrderedPipeline(
+            executor,
+            pThreads,
+            pBatchSize,
+            pQueueDepth.orElse(2 * pThreads)
+        );
+        // Trees in the pool only depend on the pool seed, so seeded runs stay reproducible
+        final Optional<RandomTreePool> fPool = pRandomTreePoolSlots > 0 ? Optional.of(new RandomTreePool(
+            pRandomTreePoolSlots,
+            pRandomTreePoolNodes,
+            pSeed.orElseGet(() -> ThreadLocalRandom.current().nextLong())
+        )) : Optional.empty();
+
+        final List<PathPair> files = fileList.stream().flatMap((String pathString) -> {
             Path path = Paths.get(pathString).toAbsolutePath();
             File file = path.toFile();
             if (pathString.contains("*")) {
@@ -134,23 +234,46 @@ public class RunLiterature {
                     file.getName()
                 )
             ));
-        }).parallel().map(pathPair -> process(
+        }).toList();
+        scheduler.run(files, pathPair -> pathPair.in.toFile().length(), pathPair -> process(
             pathPair.in.toFile(),
             pathPair.out.toFile(),
             fOverwrite,
+            fResume,
+            manifest,
             fFailOnError,
+            fMetrics,
+            fRandomTreeSamples,
+            fSeed,
+            fPool,
+            pipeline,
+            executor,
+            fMapInput,
+            fFormat,
             fCompression,
             fCorpusName,
             fPattern
-        )).toList();
+        ));
+        scheduler.close();
+        try {
+            manifest.close();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        fPool.ifPresent(pool -> System.out.println(pool.report()));
     }
 
     private static boolean process(
-        final File inputFile, File outputFile, final boolean pOverwrite, final boolean pFailOnError,
-        final CompressionMethod pCompression, final String pCorpusName, final String pPattern
+        final File inputFile, File outputFile, final boolean pOverwrite, final boolean pResume,
+        final JobManifest pManifest, final boolean pFailOnError,
+        final Set<Metric> pMetrics, final int pRandomTreeSamples, final Optional<Long> pSeed, final Optional<RandomTreePool> pPool,
+        final OrderedPipeline pPipeline, final ExecutorService pExecutor, final boolean pMapInput,
+        final OutputFormat pFormat, final CompressionMethod pCompression, final String pCorpusName, final String pPattern
     ) {
         try {
-            if (outputFile.exists() && !pOverwrite) {
+            // When resuming, existing outputs that are not recorded as complete are redone
+            if (outputFile.exists() && !pOverwrite && !pResume) {
                 throw new IllegalArgumentException(String.format(
                     "Output file '%s' already exists and overwrite is disabled",
                     outputFile
@@ -184,30 +307,12 @@ public class RunLiterature {
                     decade,
                     subset,
                     parser
-                ) + ".json" + pCompression.getExtension()
+                ) + pFormat.getExtension() + pCompression.getExtension()
             ).toFile();
-
-
-            GraphIterator graphIterator = new GraphIterator(new BufferedReader(new InputStreamReader(CompressionUtils.getInputStream(
-                inputFile.getName(),
-                new FileInputStream(inputFile)
-            ))));
-
-            ArrayList<NamedSentenceDataPoint> sentenceDataPoints = Streams.stream(graphIterator)
-                .parallel()
-                .map(item -> {
-                    try {
-                        return Optional.of(getSentenceDataPoint(item));
-                    } catch (InvalidDependencyGraphException e) {
-                        if (pFailOnError) {
-                            throw new RuntimeException(e);
-                        }
-                    }
-                    return Optional.<NamedSentenceDataPoint>empty();
-                })
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(Collectors.toCollection(ArrayList::new));
+            if (pResume && pManifest.isComplete(inputFile.toPath(), outputFile.toPath())) {
+                System.out.printf("Skipping '%s', its output '%s' is complete%n", inputFile.toPath(), outputFile);
+                return true;
+            }
 
             DocumentDataPoint documentDataPoint = new DocumentDataPoint();
             documentDataPoint.getDocumentAnnotation().put(
@@ -232,27 +337,70 @@ public class RunLiterature {
                 documentUri
             );
 
-            documentDataPoint.getSentences().addAll(sentenceDataPoints);
+            // Sentences are written as soon as they are done, so the document is never held in memory. The output
+            // only replaces the final file once it is complete.
+            File partialFile = JobManifest.getTemporaryFile(outputFile.toPath()).toFile();
+            int read;
+            int written;
+            OrderedPipeline.Statistics statistics;
+            try (
+                CountingIterator<IntGraphIteratorItem> graphIterator = GraphInputs.open(
+                    inputFile.toPath(),
+                    pExecutor,
+                    pMapInput
+                );
+                SentenceDataPointWriter documentWriter = pFormat.open(
+                    CompressionUtils.getOutputStream(partialFile),
+                    documentDataPoint.getDocumentAnnotation(),
+                    documentDataPoint.getDocumentMetaData()
+                )
+            ) {
+                statistics = pPipeline.run(
+                    graphIterator,
+                    item -> {
+                        try {
+                            return Optional.of(getSentenceDataPoint(
+                                item,
+                                pMetrics,
+                                pRandomTreeSamples,
+                                getSampler(pSeed, pPool, pCorpusName, documentId, item)
+                            ));
+                        } catch (InvalidDependencyGraphException e) {
+                            if (pFailOnError) {
+                                throw new RuntimeException(e);
+                            }
+                        }
+                        return Optional.<NamedSentenceDataPoint>empty();
+                    },
+                    sentenceDataPoint -> {
+                        if (sentenceDataPoint.isPresent()) documentWriter.write(sentenceDataPoint.get());
+                    }
+                );
+                written = documentWriter.getNumberOfSentences();
+                read = graphIterator.count();
+            } catch (Exception e) {
+                // Do not leave a truncated document behind
+                Files.deleteIfExists(partialFile.toPath());
+                throw e;
+            }
+            pManifest.commit(inputFile.toPath(), outputFile.toPath());
 
             System.out.printf(
                 "Processed %d/%d graphs from '%s'%n",
-                documentDataPoint.getSentences().size(),
-                graphIterator.count(),
+                written,
+                read,
                 inputFile.toPath()
             );
-
-            try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
-                CompressionUtils.getOutputStream(outputFile),
-                StandardCharsets.UTF_8
-            ))) {
-                writer.write(new Gson().toJson(documentDataPoint));
-
-                System.out.printf(
-                    "Wrote %d data points to '%s'%n",
-                    documentDataPoint.getSentences().size(),
-                    outputFile
-                );
-            }
+            System.out.printf(
+                "Wrote %d data points to '%s'%n",
+                written,
+                outputFile
+            );
+            System.out.printf(
+                "Pipeline for '%s': %s%n",
+                inputFile.toPath(),
+                statistics.report()
+            );
         } catch (Exception e) {
             if (pFailOnError) {
                 throw new RuntimeException(e);
@@ -310,41 +458,43 @@ public class RunLiterature {
         public final String textId;
 
         public NamedSentenceDataPoint(
-            String textId, ImmutableGraph<Integer> dependencyGraph, ImmutableGraph<Integer> dependencyGraphWithPunct
+            String textId, CompactDependencyTree tree, Set<Metric> metrics, int randomTreeSamples,
+            RandomTreeSampler sampler
         ) throws InvalidDependencyGraphException {
-            super(
-                dependencyGraph,
-                dependencyGraphWithPunct
-            );
+            super(tree, metrics, randomTreeSamples, sampler);
             this.textId = textId;
         }
     }
 
     private static NamedSentenceDataPoint getSentenceDataPoint(
-        GraphIteratorItem item
+        IntGraphIteratorItem item, Set<Metric> metrics, int randomTreeSamples, RandomTreeSampler sampler
     ) throws InvalidDependencyGraphException {
-        Builder<Integer> graphBuilder = GraphBuilder.directed().<Integer>immutable().addNode(0);
-
-        for (Integer[] edge : item.dependencyEdges) {
-            graphBuilder.putEdge(
-                edge[0],
-                edge[1]
-            );
-        }
-        ImmutableGraph<Integer> dependencyGraph = graphBuilder.build();
-
-        for (Integer[] edge : item.punctEdges) {
-            graphBuilder.putEdge(
-                edge[0],
-                edge[1]
-            );
-        }
-        ImmutableGraph<Integer> dependencyGraphWithPunct = graphBuilder.build();
-
         return new NamedSentenceDataPoint(
             item.textId,
-            dependencyGraph,
-            dependencyGraphWithPunct
+            CompactDependencyTree.fromEdges(
+                item.dependencyEdges,
+                item.punctEdges
+            ),
+            metrics,
+            randomTreeSamples,
+            sampler
         );
     }
+
+    /**
+     * @return A sampler seeded from the run seed and the sentence's corpus, document and text id if a seed is
+     * given, otherwise an unseeded sampler for the current thread. If a pool is given, the sampler draws from it.
+     */
+    private static RandomTreeSampler getSampler(
+        Optional<Long> pSeed, Optional<RandomTreePool> pPool, String corpusName, String documentId,
+        IntGraphIteratorItem item
+    ) {
+        RandomTreeSampler sampler = pSeed.isPresent() ? RandomTreeSampler.seeded(
+            pSeed.get(),
+            corpusName,
+            documentId,
+            item.textId
+        ) : new RandomTreeSampler(ThreadLocalRandom.current());
+        return pPool.isPresent() ? sampler.withPool(pPool.get()) : sampler;
+    }
 }
@@ -0,0 +1,80 @@
+package org.texttechnologylab.dependency.binary;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Compact binary format for graph corpora, as an alternative to the JSON input of
+ * {@link org.texttechnologylab.dependency.json.GraphIterator GraphIterator}.
+ * <p>
+ * A file consists of the {@link #MAGIC} bytes, the entries, an index block and a trailer:
+ *
+ * <pre>{@code
+ * magic    "DDGRAPH1"
+ * entry*   varint textIdLength, UTF-8 textId, varint (length << 1 | kind), payload
+ * index    one big-endian long offset per entry
+ * trailer  long indexOffset, long numberOfEntries, magic
+ * }</pre>
+ *
+ * Entries of kind {@link #KIND_TREE} store a {@link org.texttechnologylab.dependency.graph.CompactDependencyTree}
+ * of the given length: the zigzag varint {@code head - node} for each node {@code 1..length-1}, followed by the
+ * punctuation mask as a bitset of {@code ceil((length - 1) / 8)} bytes. Entries that do not form a valid head array
+ * are stored with kind {@link #KIND_EDGES} as the given number of zigzag varint dependency pairs followed by a
+ * varint number of punctuation pairs and the pairs themselves, so that they fail in the same way as their JSON
+ * counterpart.
+ */
+public class BinaryGraphFormat {
+
+    public static final String EXTENSION = ".dgb";
+
+    static final byte[] MAGIC = "DDGRAPH1".getBytes(StandardCharsets.US_ASCII);
+    static final int TRAILER_SIZE = 2 * Long.BYTES + 8;
+
+    static final int KIND_TREE = 0;
+    static final int KIND_EDGES = 1;
+
+    /**
+     * @return True if the given file starts with the magic bytes of the binary graph format.
+     */
+    public static boolean isBinaryGraphFile(Path path) throws IOException {
+        if (!Files.isRegularFile(path) || Files.size(path) < MAGIC.length + TRAILER_SIZE) return false;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(MAGIC.length);
+            while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) >= 0);
+            return Arrays.equals(buffer.array(), MAGIC);
+        }
+    }
+
+    static void writeVarint(OutputStream stream, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            stream.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        stream.write(value);
+    }
+
+    static int readVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IllegalStateException("Malformed varint at position " + (buffer.position() - 1));
+    }
+
+    static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,288 @@
+package org.texttechnologylab.dependency.binary;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import org.texttechnologylab.dependency.graph.CompactDependencyTree;
+import org.texttechnologylab.dependency.json.CountingIterator;
+import org.texttechnologylab.dependency.json.IntGraphIteratorItem;
+
+/**
+ * Reads graphs in the {@link BinaryGraphFormat}.
+ * <p>
+ * The index block is memory-mapped, so any entry can be read in constant time with {@link #get(int)} and the file
+ * can be cut into ranges of similar byte size with {@link #split(int)}. Entries are read with positional reads,
+ * so a single reader may be shared by several threads, e.g. one {@link #iterator(int, int)} per split.
+ */
+public class BinaryGraphReader implements Closeable {
+
+    private static final int BLOCK_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final LongBuffer index;
+    private final long indexOffset;
+    private final int numberOfEntries;
+
+    public BinaryGraphReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = this.channel.size();
+            if (size < BinaryGraphFormat.MAGIC.length + BinaryGraphFormat.TRAILER_SIZE) {
+                throw new IOException("Not a binary graph file: " + path);
+            }
+            ByteBuffer magic = this.read(0, BinaryGraphFormat.MAGIC.length);
+            ByteBuffer trailer = this.read(size - BinaryGraphFormat.TRAILER_SIZE, BinaryGraphFormat.TRAILER_SIZE);
+            this.indexOffset = trailer.getLong();
+            long entries = trailer.getLong();
+            byte[] trailerMagic = new byte[BinaryGraphFormat.MAGIC.length];
+            trailer.get(trailerMagic);
+            if (!Arrays.equals(magic.array(), BinaryGraphFormat.MAGIC)
+                || !Arrays.equals(trailerMagic, BinaryGraphFormat.MAGIC)) {
+                throw new IOException("Not a binary graph file: " + path);
+            }
+            if (entries < 0 || entries > Integer.MAX_VALUE
+                || this.indexOffset + entries * Long.BYTES != size - BinaryGraphFormat.TRAILER_SIZE) {
+                throw new IOException("Corrupt index in binary graph file: " + path);
+            }
+            this.numberOfEntries = (int) entries;
+            this.index = this.channel
+                .map(FileChannel.MapMode.READ_ONLY, this.indexOffset, entries * Long.BYTES)
+                .asLongBuffer();
+        } catch (IOException | RuntimeException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens the given file and iterates over all of its entries. The file is closed with the iterator.
+     */
+    public static CountingIterator<IntGraphIteratorItem> iterate(Path path) throws IOException {
+        BinaryGraphReader reader = new BinaryGraphReader(path);
+        return reader.new RangeIterator(0, reader.numberOfEntries, true);
+    }
+
+    public int size() {
+        return this.numberOfEntries;
+    }
+
+    /**
+     * @return The entry at the given index.
+     */
+    public IntGraphIteratorItem get(int index) {
+        if (index < 0 || index >= this.numberOfEntries) {
+            throw new IndexOutOfBoundsException(String.format(
+                "Index %d out of bounds for %d entries",
+                index,
+                this.numberOfEntries
+            ));
+        }
+        long offset = this.offset(index);
+        return decode(this.readUnchecked(offset, (int) (this.offset(index + 1) - offset)));
+    }
+
+    public CountingIterator<IntGraphIteratorItem> iterator() {
+        return this.iterator(0, this.numberOfEntries);
+    }
+
+    /**
+     * @return An iterator over the entries {@code from} (inclusive) to {@code to} (exclusive). Closing it does not
+     * close the reader.
+     */
+    public CountingIterator<IntGraphIteratorItem> iterator(int from, int to) {
+        if (from < 0 || to > this.numberOfEntries || from > to) {
+            throw new IndexOutOfBoundsException(String.format(
+                "Range [%d, %d) out of bounds for %d entries",
+                from,
+                to,
+                this.numberOfEntries
+            ));
+        }
+        return new RangeIterator(from, to, false);
+    }
+
+    /**
+     * Cuts the entries into at most {@code parts} consecutive ranges of about the same size in bytes.
+     *
+     * @return The boundaries of the ranges, starting with 0 and ending with {@link #size()}. Range {@code i} covers
+     * the entries {@code boundaries[i]} to {@code boundaries[i + 1] - 1}.
+     */
+    public int[] split(int parts) {
+        if (parts < 1) {
+            throw new IllegalArgumentException(String.format("Number of parts must be positive, but is %d", parts));
+        }
+        long begin = this.offset(0);
+        long bytes = this.indexOffset - begin;
+        int[] boundaries = new int[parts + 1];
+        int count = 1;
+        for (int part = 1; part < parts; part++) {
+            int boundary = this.lowerBound(begin + bytes * part / parts);
+            if (boundary > boundaries[count - 1] && boundary < this.numberOfEntries) {
+                boundaries[count++] = boundary;
+            }
+        }
+        boundaries[count++] = this.numberOfEntries;
+        return Arrays.copyOf(boundaries, count);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    /**
+     * @return The index of the first entry that starts at or after the given offset.
+     */
+    private int lowerBound(long offset) {
+        int low = 0;
+        int high = this.numberOfEntries;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (this.offset(mid) < offset) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * @return The offset of the given entry, or of the index block for {@link #size()}.
+     */
+    private long offset(int index) {
+        return index < this.numberOfEntries ? this.index.get(index) : this.indexOffset;
+    }
+
+    private ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (this.channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("End of input at offset " + (position + buffer.position()));
+            }
+        }
+        return buffer.flip();
+    }
+
+    private ByteBuffer readUnchecked(long position, int length) {
+        try {
+            return this.read(position, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static IntGraphIteratorItem decode(ByteBuffer buffer) {
+        byte[] textId = new byte[BinaryGraphFormat.readVarint(buffer)];
+        buffer.get(textId);
+        int header = BinaryGraphFormat.readVarint(buffer);
+        int length = header >>> 1;
+
+        if ((header & 1) == BinaryGraphFormat.KIND_EDGES) {
+            int[] dependencyEdges = readPairs(buffer, length);
+            int[] punctEdges = readPairs(buffer, BinaryGraphFormat.readVarint(buffer));
+            return new IntGraphIteratorItem(new String(textId, StandardCharsets.UTF_8), dependencyEdges, punctEdges);
+        }
+
+        int[] heads = new int[length];
+        for (int node = 1; node < length; node++) {
+            heads[node] = node + BinaryGraphFormat.unzigzag(BinaryGraphFormat.readVarint(buffer));
+        }
+        int numberOfEdges = 0;
+        int numberOfPunctEdges = 0;
+        boolean[] punct = new boolean[length];
+        int mask = 0;
+        for (int node = 1; node < length; node++) {
+            if (((node - 1) & 7) == 0) mask = buffer.get();
+            punct[node] = (mask & 1 << ((node - 1) & 7)) != 0;
+            if (heads[node] == CompactDependencyTree.NO_HEAD) continue;
+            if (punct[node]) numberOfPunctEdges++;
+            else numberOfEdges++;
+        }
+
+        int[] dependencyEdges = new int[2 * numberOfEdges];
+        int[] punctEdges = new int[2 * numberOfPunctEdges];
+        int edge = 0;
+        int punctEdge = 0;
+        for (int node = 1; node < length; node++) {
+            if (heads[node] == CompactDependencyTree.NO_HEAD) continue;
+            if (punct[node]) {
+                punctEdges[punctEdge++] = heads[node];
+                punctEdges[punctEdge++] = node;
+            } else {
+                dependencyEdges[edge++] = heads[node];
+                dependencyEdges[edge++] = node;
+            }
+        }
+        return new IntGraphIteratorItem(new String(textId, StandardCharsets.UTF_8), dependencyEdges, punctEdges);
+    }
+
+    private static int[] readPairs(ByteBuffer buffer, int pairs) {
+        int[] edges = new int[2 * pairs];
+        for (int i = 0; i < edges.length; i++) {
+            edges[i] = BinaryGraphFormat.unzigzag(BinaryGraphFormat.readVarint(buffer));
+        }
+        return edges;
+    }
+
+    /**
+     * Reads consecutive entries in blocks of about {@link #BLOCK_SIZE} bytes.
+     */
+    private class RangeIterator implements CountingIterator<IntGraphIteratorItem> {
+
+        private final int to;
+        private final boolean closeReader;
+        private int next;
+        private int blockEnd;
+        private ByteBuffer block;
+        private int counter = 0;
+
+        RangeIterator(int from, int to, boolean closeReader) {
+            this.next = from;
+            this.blockEnd = from;
+            this.to = to;
+            this.closeReader = closeReader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.next < this.to;
+        }
+
+        @Override
+        public IntGraphIteratorItem next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException("No more elements");
+            }
+            if (this.next == this.blockEnd) {
+                long start = offset(this.next);
+                long limit = start + BLOCK_SIZE;
+                int end = indexOffset <= limit ? numberOfEntries : lowerBound(limit + 1) - 1;
+                this.blockEnd = Math.min(Math.max(this.next + 1, end), this.to);
+                this.block = readUnchecked(start, (int) (offset(this.blockEnd) - start));
+            }
+            this.next++;
+            this.counter++;
+            return decode(this.block);
+        }
+
+        @Override
+        public int count() {
+            return this.counter;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (this.closeReader) {
+                BinaryGraphReader.this.close();
+            }
+        }
+    }
+}
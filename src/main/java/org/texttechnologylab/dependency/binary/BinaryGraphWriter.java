@@ -0,0 +1,157 @@
+package org.texttechnologylab.dependency.binary;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.texttechnologylab.dependency.graph.CompactDependencyTree;
+import org.texttechnologylab.dependency.graph.InvalidDependencyGraphException;
+import org.texttechnologylab.dependency.json.IntGraphIteratorItem;
+
+/**
+ * Writes graphs in the {@link BinaryGraphFormat}. The offsets of all entries are kept in memory until the index
+ * block is written by {@link #close()}.
+ */
+public class BinaryGraphWriter implements Closeable {
+
+    private final CountingOutputStream stream;
+    private long[] offsets = new long[1024];
+    private int numberOfEntries = 0;
+    private boolean closed = false;
+
+    public BinaryGraphWriter(OutputStream stream) throws IOException {
+        this.stream = new CountingOutputStream(new BufferedOutputStream(stream, 1 << 16));
+        this.stream.write(BinaryGraphFormat.MAGIC);
+    }
+
+    /**
+     * Converts a sequence of graphs, e.g. read by an {@link org.texttechnologylab.dependency.json.IntGraphIterator
+     * IntGraphIterator}, into a binary graph file.
+     *
+     * @return The number of written entries.
+     */
+    public static int convert(Iterator<IntGraphIteratorItem> items, Path output) throws IOException {
+        try (BinaryGraphWriter writer = new BinaryGraphWriter(Files.newOutputStream(output))) {
+            while (items.hasNext()) {
+                writer.write(items.next());
+            }
+            return writer.getNumberOfEntries();
+        }
+    }
+
+    /**
+     * Writes the item as a head array if its edges form a valid tree, otherwise as its raw edges.
+     */
+    public void write(IntGraphIteratorItem item) throws IOException {
+        CompactDependencyTree tree;
+        try {
+            tree = item.toTree();
+        } catch (InvalidDependencyGraphException e) {
+            this.beginEntry(item.textId);
+            BinaryGraphFormat.writeVarint(this.stream, item.getNumberOfDependencyEdges() << 1 | BinaryGraphFormat.KIND_EDGES);
+            this.writePairs(item.dependencyEdges);
+            BinaryGraphFormat.writeVarint(this.stream, item.getNumberOfPunctEdges());
+            this.writePairs(item.punctEdges);
+            return;
+        }
+        this.write(item.textId, tree);
+    }
+
+    public void write(String textId, CompactDependencyTree tree) throws IOException {
+        this.beginEntry(textId);
+        int length = tree.length();
+        BinaryGraphFormat.writeVarint(this.stream, length << 1 | BinaryGraphFormat.KIND_TREE);
+        for (int node = 1; node < length; node++) {
+            BinaryGraphFormat.writeVarint(this.stream, BinaryGraphFormat.zigzag(tree.getHead(node) - node));
+        }
+        int mask = 0;
+        for (int node = 1; node < length; node++) {
+            if (tree.isPunct(node)) mask |= 1 << ((node - 1) & 7);
+            if ((node & 7) == 0 || node == length - 1) {
+                this.stream.write(mask);
+                mask = 0;
+            }
+        }
+    }
+
+    public int getNumberOfEntries() {
+        return this.numberOfEntries;
+    }
+
+    /**
+     * Writes the index block and the trailer and closes the underlying stream.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed) return;
+        this.closed = true;
+        try (DataOutputStream data = new DataOutputStream(this.stream)) {
+            long indexOffset = this.stream.count;
+            for (int i = 0; i < this.numberOfEntries; i++) {
+                data.writeLong(this.offsets[i]);
+            }
+            data.writeLong(indexOffset);
+            data.writeLong(this.numberOfEntries);
+            data.write(BinaryGraphFormat.MAGIC);
+        }
+    }
+
+    private void beginEntry(String textId) throws IOException {
+        if (this.closed) {
+            throw new IllegalStateException("Writer is already closed");
+        }
+        if (this.numberOfEntries == this.offsets.length) {
+            this.offsets = Arrays.copyOf(this.offsets, 2 * this.offsets.length);
+        }
+        this.offsets[this.numberOfEntries++] = this.stream.count;
+
+        byte[] bytes = textId.getBytes(StandardCharsets.UTF_8);
+        BinaryGraphFormat.writeVarint(this.stream, bytes.length);
+        this.stream.write(bytes);
+    }
+
+    private void writePairs(int[] edges) throws IOException {
+        for (int value : edges) {
+            BinaryGraphFormat.writeVarint(this.stream, BinaryGraphFormat.zigzag(value));
+        }
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+
+        private final OutputStream stream;
+        long count = 0;
+
+        CountingOutputStream(OutputStream stream) {
+            this.stream = stream;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            this.stream.write(b);
+            this.count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            this.stream.write(b, off, len);
+            this.count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            this.stream.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.stream.close();
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package org.texttechnologylab.dependency.data;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * A document read from the columnar output of {@link ColumnarDocumentWriter}.
+ * <p>
+ * The layout is big-endian throughout:
+ * <ul>
+ * <li>the magic bytes {@code DDCOLS01},</li>
+ * <li>the length and UTF-8 bytes of a JSON object with the {@code documentAnnotation} and
+ * {@code documentMetaData},</li>
+ * <li>the number of columns, and for each column its name and its {@link ColumnType},</li>
+ * <li>the row groups, each with its number of rows (sentences) and for each column whether it has nulls, a bitmap
+ * of the present values if so, and its data. {@code INT} and {@code DOUBLE} columns hold one value per row.
+ * {@code STRING} and the list columns hold {@code rows + 1} offsets followed by the UTF-8 bytes or the integer
+ * values of all rows of the group, where row {@code i} spans {@code offsets[i]} to {@code offsets[i + 1]}. Pairs
+ * are stored as two consecutive values,</li>
+ * <li>an empty row group, i.e. zero rows, that ends the document.</li>
+ * </ul>
+ * The row groups are concatenated when a document is read.
+ */
+public class ColumnarDocument {
+
+    static final byte[] MAGIC = "DDCOLS02".getBytes(StandardCharsets.US_ASCII);
+
+    private static final Gson GSON = new Gson();
+    private static final Type HEADER_TYPE = new TypeToken<Map<String, TreeMap<String, String>>>() {}.getType();
+
+    public enum ColumnType {
+        INT,
+        DOUBLE,
+        STRING,
+        INT_LIST,
+        INT_PAIR_LIST
+    }
+
+    /**
+     * A single column. Depending on its type, either {@link #ints}, {@link #doubles} or {@link #offsets} together
+     * with {@link #values} or {@link #bytes} are set.
+     */
+    public static class Column {
+
+        public final String name;
+        public final ColumnType type;
+        public final int[] ints;
+        public final double[] doubles;
+        public final int[] offsets;
+        public final int[] values;
+        public final byte[] bytes;
+        private final BitSet present;
+
+        private Column(
+            String name,
+            ColumnType type,
+            BitSet present,
+            int[] ints,
+            double[] doubles,
+            int[] offsets,
+            int[] values,
+            byte[] bytes
+        ) {
+            this.name = name;
+            this.type = type;
+            this.present = present;
+            this.ints = ints;
+            this.doubles = doubles;
+            this.offsets = offsets;
+            this.values = values;
+            this.bytes = bytes;
+        }
+
+        public boolean isNull(int row) {
+            return this.present != null && !this.present.get(row);
+        }
+
+        public String getString(int row) {
+            if (this.isNull(row)) return null;
+            return new String(this.bytes, this.offsets[row], this.offsets[row + 1] - this.offsets[row], StandardCharsets.UTF_8);
+        }
+
+        public int[] getList(int row) {
+            if (this.isNull(row)) return null;
+            return Arrays.copyOfRange(this.values, this.offsets[row], this.offsets[row + 1]);
+        }
+    }
+
+    private final TreeMap<String, String> documentAnnotation;
+    private final TreeMap<String, String> documentMetaData;
+    private final int numberOfRows;
+    private final LinkedHashMap<String, Column> columns;
+
+    private ColumnarDocument(
+        TreeMap<String, String> documentAnnotation,
+        TreeMap<String, String> documentMetaData,
+        int numberOfRows,
+        LinkedHashMap<String, Column> columns
+    ) {
+        this.documentAnnotation = documentAnnotation;
+        this.documentMetaData = documentMetaData;
+        this.numberOfRows = numberOfRows;
+        this.columns = columns;
+    }
+
+    /**
+     * Reads a whole document from the given stream, which is not closed.
+     *
+     * @param inputStream The stream to read from.
+     * @return The document.
+     * @throws IOException If reading fails or the stream does not hold a columnar document.
+     */
+    public static ColumnarDocument read(InputStream inputStream) throws IOException {
+        DataInputStream stream = new DataInputStream(inputStream);
+        byte[] magic = new byte[MAGIC.length];
+        stream.readFully(magic);
+        if (!Arrays.equals(MAGIC, magic)) {
+            throw new IOException("Not a columnar document");
+        }
+
+        byte[] headerBytes = new byte[stream.readInt()];
+        stream.readFully(headerBytes);
+        Map<String, TreeMap<String, String>> header = GSON.fromJson(
+            new String(headerBytes, StandardCharsets.UTF_8),
+            HEADER_TYPE
+        );
+
+        int numberOfColumns = stream.readInt();
+        ColumnBuilder[] builders = new ColumnBuilder[numberOfColumns];
+        for (int c = 0; c < numberOfColumns; c++) {
+            String name = stream.readUTF();
+            builders[c] = new ColumnBuilder(name, ColumnType.values()[stream.readUnsignedByte()]);
+        }
+
+        int rows = 0;
+        for (int groupRows = stream.readInt(); groupRows > 0; groupRows = stream.readInt()) {
+            for (ColumnBuilder builder : builders) {
+                builder.readRowGroup(stream, rows, groupRows);
+            }
+            rows += groupRows;
+        }
+
+        LinkedHashMap<String, Column> columns = new LinkedHashMap<>();
+        for (ColumnBuilder builder : builders) {
+            columns.put(builder.name, builder.build(rows));
+        }
+        return new ColumnarDocument(
+            header.get("documentAnnotation"),
+            header.get("documentMetaData"),
+            rows,
+            columns
+        );
+    }
+
+    /**
+     * Concatenates the row groups of a column.
+     */
+    private static class ColumnBuilder {
+
+        private final String name;
+        private final ColumnType type;
+        private final BitSet present = new BitSet();
+        private boolean hasNulls = false;
+        private int[] ints = new int[0];
+        private double[] doubles = new double[0];
+        private int[] offsets = new int[] { 0 };
+        private int[] values = new int[0];
+        private byte[] bytes = new byte[0];
+
+        ColumnBuilder(String name, ColumnType type) {
+            this.name = name;
+            this.type = type;
+        }
+
+        void readRowGroup(DataInputStream stream, int rows, int groupRows) throws IOException {
+            if (stream.readBoolean()) {
+                byte[] bitmap = new byte[(groupRows + 7) / 8];
+                stream.readFully(bitmap);
+                BitSet groupPresent = BitSet.valueOf(bitmap);
+                for (int row = groupPresent.nextSetBit(0); row >= 0; row = groupPresent.nextSetBit(row + 1)) {
+                    this.present.set(rows + row);
+                }
+                this.hasNulls = true;
+            } else {
+                this.present.set(rows, rows + groupRows);
+            }
+
+            switch (this.type) {
+                case INT -> {
+                    this.ints = grow(this.ints, rows + groupRows);
+                    for (int row = rows; row < rows + groupRows; row++) {
+                        this.ints[row] = stream.readInt();
+                    }
+                }
+                case DOUBLE -> {
+                    this.doubles = grow(this.doubles, rows + groupRows);
+                    for (int row = rows; row < rows + groupRows; row++) {
+                        this.doubles[row] = stream.readDouble();
+                    }
+                }
+                case STRING, INT_LIST, INT_PAIR_LIST -> {
+                    int[] groupOffsets = readInts(stream, groupRows + 1);
+                    int base = this.offsets[rows];
+                    this.offsets = grow(this.offsets, rows + groupRows + 1);
+                    for (int row = 1; row <= groupRows; row++) {
+                        this.offsets[rows + row] = base + groupOffsets[row];
+                    }
+                    if (this.type == ColumnType.STRING) {
+                        this.bytes = grow(this.bytes, base + groupOffsets[groupRows]);
+                        stream.readFully(this.bytes, base, groupOffsets[groupRows]);
+                    } else {
+                        this.values = grow(this.values, base + groupOffsets[groupRows]);
+                        for (int i = base; i < base + groupOffsets[groupRows]; i++) {
+                            this.values[i] = stream.readInt();
+                        }
+                    }
+                }
+            }
+        }
+
+        Column build(int rows) {
+            BitSet present = this.hasNulls ? this.present : null;
+            int[] offsets = Arrays.copyOf(this.offsets, rows + 1);
+            return switch (this.type) {
+                case INT -> new Column(this.name, this.type, present, Arrays.copyOf(this.ints, rows), null, null, null, null);
+                case DOUBLE -> new Column(this.name, this.type, present, null, Arrays.copyOf(this.doubles, rows), null, null, null);
+                case STRING -> new Column(
+                    this.name, this.type, present, null, null, offsets, null, Arrays.copyOf(this.bytes, offsets[rows])
+                );
+                case INT_LIST, INT_PAIR_LIST -> new Column(
+                    this.name, this.type, present, null, null, offsets, Arrays.copyOf(this.values, offsets[rows]), null
+                );
+            };
+        }
+
+        /**
+         * @return The given array, or a copy with at least the given size, growing it at least twofold.
+         */
+        private static int[] grow(int[] array, int size) {
+            return array.length >= size ? array : Arrays.copyOf(array, Math.max(size, 2 * array.length));
+        }
+
+        private static double[] grow(double[] array, int size) {
+            return array.length >= size ? array : Arrays.copyOf(array, Math.max(size, 2 * array.length));
+        }
+
+        private static byte[] grow(byte[] array, int size) {
+            return array.length >= size ? array : Arrays.copyOf(array, Math.max(size, 2 * array.length));
+        }
+    }
+
+    private static int[] readInts(DataInputStream stream, int size) throws IOException {
+        int[] values = new int[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = stream.readInt();
+        }
+        return values;
+    }
+
+    public TreeMap<String, String> getDocumentAnnotation() {
+        return documentAnnotation;
+    }
+
+    public TreeMap<String, String> getDocumentMetaData() {
+        return documentMetaData;
+    }
+
+    public int getNumberOfRows() {
+        return numberOfRows;
+    }
+
+    public List<String> getColumnNames() {
+        return List.copyOf(columns.keySet());
+    }
+
+    /**
+     * @param name The column name, i.e. the field name in the JSON output.
+     * @return The column.
+     * @throws IllegalArgumentException If there is no such column.
+     */
+    public Column getColumn(String name) {
+        Column column = columns.get(name);
+        if (column == null) {
+            throw new IllegalArgumentException("No such column: " + name);
+        }
+        return column;
+    }
+
+    public int[] getIntColumn(String name) {
+        return getColumn(name, ColumnType.INT).ints;
+    }
+
+    public double[] getDoubleColumn(String name) {
+        return getColumn(name, ColumnType.DOUBLE).doubles;
+    }
+
+    public boolean isNull(String name, int row) {
+        return getColumn(name).isNull(row);
+    }
+
+    private Column getColumn(String name, ColumnType type) {
+        Column column = getColumn(name);
+        if (column.type != type) {
+            throw new IllegalArgumentException(String.format("Column %s is of type %s, not %s", name, column.type, type));
+        }
+        return column;
+    }
+}
@@ -0,0 +1,416 @@
+package org.texttechnologylab.dependency.data;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.texttechnologylab.dependency.data.ColumnarDocument.ColumnType;
+
+import com.google.gson.Gson;
+
+/**
+ * Writes the sentences of a document column by column, see {@link ColumnarDocument} for the layout and for
+ * reading the output.
+ * <p>
+ * The columns are the fields of the first sentence's runtime class, in the same order as in the JSON output. Each
+ * {@code int}, {@code double} and {@code String} field becomes one column, fields without a
+ * {@linkplain SentenceDataPoint#hasValue(String) value} are marked as missing. The edge and distance lists become
+ * columns of offsets and values only if requested. All sentences of a document must be of the same class. The
+ * values are buffered in primitive arrays and written in row groups of a fixed number of sentences, so the memory
+ * needed does not grow with the length of the document.
+ */
+public class ColumnarDocumentWriter implements SentenceDataPointWriter {
+
+    /**
+     * The number of sentences per row group.
+     */
+    public static final int DEFAULT_ROW_GROUP_SIZE = 1024;
+
+    private static final Gson GSON = new Gson();
+
+    private final DataOutputStream stream;
+    private final boolean withLists;
+    private final int rowGroupSize;
+    private Class<?> sentenceClass;
+    private List<ColumnBuffer> columns = List.of();
+    private int rows = 0;
+    private int groupRows = 0;
+    private boolean finished = false;
+
+    /**
+     * Starts a document by writing its annotation and meta data, with {@value #DEFAULT_ROW_GROUP_SIZE} sentences
+     * per row group.
+     *
+     * @param stream             The stream to write to, should be buffered.
+     * @param documentAnnotation The document annotation.
+     * @param documentMetaData   The document meta data.
+     * @param withLists          Whether to write the edge and distance lists.
+     * @throws IOException If writing fails.
+     */
+    public ColumnarDocumentWriter(
+        OutputStream stream,
+        Map<String, String> documentAnnotation,
+        Map<String, String> documentMetaData,
+        boolean withLists
+    ) throws IOException {
+        this(stream, documentAnnotation, documentMetaData, withLists, DEFAULT_ROW_GROUP_SIZE);
+    }
+
+    /**
+     * Starts a document by writing its annotation and meta data.
+     *
+     * @param stream             The stream to write to, should be buffered.
+     * @param documentAnnotation The document annotation.
+     * @param documentMetaData   The document meta data.
+     * @param withLists          Whether to write the edge and distance lists.
+     * @param rowGroupSize       The number of sentences that are buffered before they are written.
+     * @throws IOException If writing fails.
+     */
+    public ColumnarDocumentWriter(
+        OutputStream stream,
+        Map<String, String> documentAnnotation,
+        Map<String, String> documentMetaData,
+        boolean withLists,
+        int rowGroupSize
+    ) throws IOException {
+        if (rowGroupSize < 1) {
+            throw new IllegalArgumentException("The row group size must be positive, but is " + rowGroupSize);
+        }
+        this.stream = new DataOutputStream(stream);
+        this.withLists = withLists;
+        this.rowGroupSize = rowGroupSize;
+
+        Map<String, Map<String, String>> header = new LinkedHashMap<>();
+        header.put("documentAnnotation", new TreeMap<>(documentAnnotation));
+        header.put("documentMetaData", new TreeMap<>(documentMetaData));
+        byte[] bytes = GSON.toJson(header).getBytes(StandardCharsets.UTF_8);
+        this.stream.write(ColumnarDocument.MAGIC);
+        this.stream.writeInt(bytes.length);
+        this.stream.write(bytes);
+    }
+
+    /**
+     * Appends a sentence to the document.
+     *
+     * @param sentenceDataPoint The sentence, must be of the same class as the first sentence.
+     * @throws IOException              If writing fails.
+     * @throws IllegalArgumentException If the sentence is of a different class or has a field of an unsupported type.
+     */
+    @Override
+    public void write(SentenceDataPoint sentenceDataPoint) throws IOException {
+        if (this.finished) {
+            throw new IllegalStateException("Document is already finished");
+        }
+        if (this.sentenceClass == null) {
+            this.sentenceClass = sentenceDataPoint.getClass();
+            this.columns = createColumns(this.sentenceClass, this.withLists);
+            this.writeColumns();
+        } else if (sentenceDataPoint.getClass() != this.sentenceClass) {
+            throw new IllegalArgumentException(String.format(
+                "Expected sentences of class %s, but got %s",
+                this.sentenceClass.getName(),
+                sentenceDataPoint.getClass().getName()
+            ));
+        }
+        try {
+            for (ColumnBuffer column : this.columns) {
+                column.add(this.groupRows, sentenceDataPoint);
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+        this.rows++;
+        this.groupRows++;
+        if (this.groupRows == this.rowGroupSize) {
+            this.writeRowGroup();
+        }
+    }
+
+    @Override
+    public int getNumberOfSentences() {
+        return this.rows;
+    }
+
+    /**
+     * Writes the remaining sentences and ends the document, then flushes, but does not close the underlying stream.
+     *
+     * @throws IOException If writing fails.
+     */
+    @Override
+    public void finish() throws IOException {
+        if (this.finished) return;
+        this.finished = true;
+        if (this.sentenceClass == null) {
+            this.writeColumns();
+        }
+        this.writeRowGroup();
+        // An empty row group ends the document
+        this.stream.writeInt(0);
+        this.stream.flush();
+    }
+
+    private void writeColumns() throws IOException {
+        this.stream.writeInt(this.columns.size());
+        for (ColumnBuffer column : this.columns) {
+            this.stream.writeUTF(column.name);
+            this.stream.writeByte(column.type.ordinal());
+        }
+    }
+
+    private void writeRowGroup() throws IOException {
+        if (this.groupRows == 0) return;
+        this.stream.writeInt(this.groupRows);
+        for (ColumnBuffer column : this.columns) {
+            boolean hasNulls = column.present.cardinality() < this.groupRows;
+            this.stream.writeBoolean(hasNulls);
+            if (hasNulls) {
+                this.stream.write(Arrays.copyOf(column.present.toByteArray(), (this.groupRows + 7) / 8));
+            }
+            column.writeValues(this.stream, this.groupRows);
+            column.clear();
+        }
+        this.groupRows = 0;
+    }
+
+    /**
+     * Ends the document, unless it has already been {@linkplain #finish() finished}, and closes the underlying
+     * stream.
+     *
+     * @throws IOException If writing fails.
+     */
+    @Override
+    public void close() throws IOException {
+        this.finish();
+        this.stream.close();
+    }
+
+    /**
+     * Lists the serializable fields of the given class like Gson does, i.e. the fields of the class itself before
+     * those of its superclasses.
+     */
+    private static List<ColumnBuffer> createColumns(Class<?> sentenceClass, boolean withLists) {
+        List<ColumnBuffer> columns = new ArrayList<>();
+        for (Class<?> raw = sentenceClass; raw != Object.class; raw = raw.getSuperclass()) {
+            for (Field field : raw.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())) continue;
+                field.setAccessible(true);
+
+                Class<?> type = field.getType();
+                if (type == int.class || type == Integer.class) {
+                    columns.add(new IntColumn(field));
+                } else if (type == double.class || type == Double.class) {
+                    columns.add(new DoubleColumn(field));
+                } else if (type == String.class) {
+                    columns.add(new StringColumn(field));
+                } else if (List.class.isAssignableFrom(type) && isIntegerList(field.getGenericType())) {
+                    if (withLists) columns.add(new IntListColumn(field, ColumnType.INT_LIST));
+                } else if (List.class.isAssignableFrom(type) && isIntegerPairList(field.getGenericType())) {
+                    if (withLists) columns.add(new IntListColumn(field, ColumnType.INT_PAIR_LIST));
+                } else {
+                    throw new IllegalArgumentException(String.format(
+                        "Field %s of type %s cannot be written as a column",
+                        field.getName(),
+                        field.getGenericType()
+                    ));
+                }
+            }
+        }
+        return columns;
+    }
+
+    private static boolean isIntegerList(Type type) {
+        return type instanceof ParameterizedType parameterized
+            && parameterized.getActualTypeArguments()[0] == Integer.class;
+    }
+
+    private static boolean isIntegerPairList(Type type) {
+        if (!(type instanceof ParameterizedType parameterized)) return false;
+        Type element = parameterized.getActualTypeArguments()[0];
+        return element == Integer[].class
+            || element instanceof GenericArrayType array && array.getGenericComponentType() == Integer.class;
+    }
+
+    private abstract static class ColumnBuffer {
+
+        final Field field;
+        final String name;
+        final ColumnType type;
+        final BitSet present = new BitSet();
+
+        ColumnBuffer(Field field, ColumnType type) {
+            this.field = field;
+            this.name = field.getName();
+            this.type = type;
+        }
+
+        abstract void add(int row, SentenceDataPoint sentence) throws IllegalAccessException;
+
+        abstract void writeValues(DataOutputStream stream, int rows) throws IOException;
+
+        /**
+         * Starts the next row group, keeping the buffers for reuse.
+         */
+        void clear() {
+            this.present.clear();
+        }
+    }
+
+    private static class IntColumn extends ColumnBuffer {
+
+        private int[] values = new int[256];
+
+        IntColumn(Field field) {
+            super(field, ColumnType.INT);
+        }
+
+        @Override
+        void add(int row, SentenceDataPoint sentence) throws IllegalAccessException {
+            if (row == this.values.length) this.values = Arrays.copyOf(this.values, 2 * row);
+            if (!sentence.hasValue(this.name)) return;
+            if (this.field.getType() == int.class) {
+                this.values[row] = this.field.getInt(sentence);
+                this.present.set(row);
+            } else {
+                Object value = this.field.get(sentence);
+                if (value != null) {
+                    this.values[row] = (Integer) value;
+                    this.present.set(row);
+                }
+            }
+        }
+
+        @Override
+        void writeValues(DataOutputStream stream, int rows) throws IOException {
+            for (int row = 0; row < rows; row++) {
+                stream.writeInt(this.values[row]);
+            }
+        }
+    }
+
+    private static class DoubleColumn extends ColumnBuffer {
+
+        private double[] values = new double[256];
+
+        DoubleColumn(Field field) {
+            super(field, ColumnType.DOUBLE);
+        }
+
+        @Override
+        void add(int row, SentenceDataPoint sentence) throws IllegalAccessException {
+            if (row == this.values.length) this.values = Arrays.copyOf(this.values, 2 * row);
+            if (!sentence.hasValue(this.name)) return;
+            if (this.field.getType() == double.class) {
+                this.values[row] = this.field.getDouble(sentence);
+                this.present.set(row);
+            } else {
+                Object value = this.field.get(sentence);
+                if (value != null) {
+                    this.values[row] = (Double) value;
+                    this.present.set(row);
+                }
+            }
+        }
+
+        @Override
+        void writeValues(DataOutputStream stream, int rows) throws IOException {
+            for (int row = 0; row < rows; row++) {
+                stream.writeDouble(this.values[row]);
+            }
+        }
+    }
+
+    private static class StringColumn extends ColumnBuffer {
+
+        private int[] offsets = new int[257];
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        StringColumn(Field field) {
+            super(field, ColumnType.STRING);
+        }
+
+        @Override
+        void add(int row, SentenceDataPoint sentence) throws IllegalAccessException {
+            if (row + 1 == this.offsets.length) this.offsets = Arrays.copyOf(this.offsets, 2 * this.offsets.length);
+            Object value = sentence.hasValue(this.name) ? this.field.get(sentence) : null;
+            if (value != null) {
+                this.bytes.writeBytes(((String) value).getBytes(StandardCharsets.UTF_8));
+                this.present.set(row);
+            }
+            this.offsets[row + 1] = this.bytes.size();
+        }
+
+        @Override
+        void writeValues(DataOutputStream stream, int rows) throws IOException {
+            for (int row = 0; row <= rows; row++) {
+                stream.writeInt(this.offsets[row]);
+            }
+            this.bytes.writeTo(stream);
+        }
+
+        @Override
+        void clear() {
+            super.clear();
+            this.bytes.reset();
+        }
+    }
+
+    private static class IntListColumn extends ColumnBuffer {
+
+        private int[] offsets = new int[257];
+        private int[] values = new int[1024];
+
+        IntListColumn(Field field, ColumnType type) {
+            super(field, type);
+        }
+
+        @Override
+        void add(int row, SentenceDataPoint sentence) throws IllegalAccessException {
+            if (row + 1 == this.offsets.length) this.offsets = Arrays.copyOf(this.offsets, 2 * this.offsets.length);
+            int size = this.offsets[row];
+            List<?> list = sentence.hasValue(this.name) ? (List<?>) this.field.get(sentence) : null;
+            if (list != null) {
+                for (Object element : list) {
+                    if (this.type == ColumnType.INT_PAIR_LIST) {
+                        Integer[] pair = (Integer[]) element;
+                        size = this.append(size, pair[0]);
+                        size = this.append(size, pair[1]);
+                    } else {
+                        size = this.append(size, (Integer) element);
+                    }
+                }
+                this.present.set(row);
+            }
+            this.offsets[row + 1] = size;
+        }
+
+        private int append(int size, int value) {
+            if (size == this.values.length) this.values = Arrays.copyOf(this.values, 2 * size);
+            this.values[size] = value;
+            return size + 1;
+        }
+
+        @Override
+        void writeValues(DataOutputStream stream, int rows) throws IOException {
+            for (int row = 0; row <= rows; row++) {
+                stream.writeInt(this.offsets[row]);
+            }
+            for (int i = 0; i < this.offsets[rows]; i++) {
+                stream.writeInt(this.values[i]);
+            }
+        }
+    }
+}
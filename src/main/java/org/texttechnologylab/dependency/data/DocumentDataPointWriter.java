@@ -0,0 +1,120 @@
+package org.texttechnologylab.dependency.data;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Writes a {@link DocumentDataPoint} as JSON incrementally, so no string of the whole document has to be built.
+ * <p>
+ * The output is identical to serializing the document with a Gson that has a
+ * {@link SentenceDataPointTypeAdapterFactory}: the document annotation and meta data are written first, then each
+ * sentence is serialized by its runtime class as soon as it is {@linkplain #write(SentenceDataPoint) written},
+ * without the metrics that were not computed. {@link #close()} ends the document and closes the underlying
+ * writer.
+ */
+public class DocumentDataPointWriter implements SentenceDataPointWriter {
+
+    private static final Gson GSON = new GsonBuilder()
+        .registerTypeAdapterFactory(new SentenceDataPointTypeAdapterFactory())
+        .create();
+    private static final Type MAP_TYPE = new TypeToken<Map<String, String>>() {}.getType();
+
+    private final JsonWriter jsonWriter;
+    private int sentences = 0;
+    private boolean finished = false;
+
+    /**
+     * Starts a document by writing its annotation and meta data.
+     *
+     * @param writer             The writer to write to, should be buffered.
+     * @param documentAnnotation The document annotation.
+     * @param documentMetaData   The document meta data.
+     * @throws IOException If writing fails.
+     */
+    public DocumentDataPointWriter(
+        Writer writer,
+        Map<String, String> documentAnnotation,
+        Map<String, String> documentMetaData
+    ) throws IOException {
+        this.jsonWriter = GSON.newJsonWriter(writer);
+        this.jsonWriter.beginObject();
+        this.jsonWriter.name("documentAnnotation");
+        GSON.toJson(documentAnnotation, MAP_TYPE, this.jsonWriter);
+        this.jsonWriter.name("documentMetaData");
+        GSON.toJson(documentMetaData, MAP_TYPE, this.jsonWriter);
+        this.jsonWriter.name("sentences");
+        this.jsonWriter.beginArray();
+    }
+
+    /**
+     * Writes a complete document.
+     *
+     * @param documentDataPoint The document to write.
+     * @param writer            The writer to write to, it is not closed.
+     * @throws IOException If writing fails.
+     */
+    public static void write(DocumentDataPoint documentDataPoint, Writer writer) throws IOException {
+        DocumentDataPointWriter documentWriter = new DocumentDataPointWriter(
+            writer,
+            documentDataPoint.getDocumentAnnotation(),
+            documentDataPoint.getDocumentMetaData()
+        );
+        for (SentenceDataPoint sentenceDataPoint : documentDataPoint.getSentences()) {
+            documentWriter.write(sentenceDataPoint);
+        }
+        documentWriter.finish();
+    }
+
+    /**
+     * Appends a sentence to the document.
+     *
+     * @param sentenceDataPoint The sentence, serialized with all fields of its runtime class that have a value.
+     * @throws IOException If writing fails.
+     */
+    @Override
+    public void write(SentenceDataPoint sentenceDataPoint) throws IOException {
+        GSON.toJson(sentenceDataPoint, sentenceDataPoint.getClass(), this.jsonWriter);
+        this.sentences++;
+    }
+
+    /**
+     * @return The number of sentences written so far.
+     */
+    @Override
+    public int getNumberOfSentences() {
+        return this.sentences;
+    }
+
+    /**
+     * Ends the document and flushes, but does not close the underlying writer.
+     *
+     * @throws IOException If writing fails.
+     */
+    @Override
+    public void finish() throws IOException {
+        if (this.finished) return;
+        this.finished = true;
+        this.jsonWriter.endArray();
+        this.jsonWriter.endObject();
+        this.jsonWriter.flush();
+    }
+
+    /**
+     * Ends the document, unless it has already been {@linkplain #finish() finished}, and closes the underlying
+     * writer.
+     *
+     * @throws IOException If writing fails.
+     */
+    @Override
+    public void close() throws IOException {
+        this.finish();
+        this.jsonWriter.close();
+    }
+}
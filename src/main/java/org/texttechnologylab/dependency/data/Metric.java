@@ -0,0 +1,133 @@
+package org.texttechnologylab.dependency.data;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * The metrics of a {@link SentenceDataPoint}, each named like the field it is stored in.
+ * <p>
+ * A subset of the metrics can be {@linkplain SentenceDataPoint#SentenceDataPoint(
+ * org.texttechnologylab.dependency.graph.CompactDependencyTree, Set, int,
+ * org.texttechnologylab.dependency.graph.random.RandomTreeSampler) selected}, then only the selected metrics and
+ * their {@linkplain #getPrerequisites() prerequisites} are computed and serialized. The metrics that are
+ * {@linkplain #isFused() fused} are computed together in a single pass over the tree, the others each have their
+ * own, potentially expensive, computation.
+ */
+public enum Metric {
+
+    DEPENDENCY_EDGES("dependencyEdges", false),
+    DEPENDENCY_EDGES_WITH_PUNCT("dependencyEdgesWithPunct", false),
+    DEPENDENCY_DISTANCES("dependencyDistances", true),
+    DEPTH_MEAN("depthMean", true),
+    DEPTH_VARIANCE("depthVariance", true),
+    HEAD_FINAL_RATIO("headFinalRatio", true),
+    MDD("mdd", true),
+    NDD("ndd", true),
+    TREE_DEGREE_MEAN("treeDegreeMean", true),
+    TREE_DEGREE_VARIANCE("treeDegreeVariance", true),
+    CROSSINGS("crossings", false),
+    DEPENDENCY_DISTANCE_SUM("dependencyDistanceSum", true),
+    DEPENDENCY_HEIGHT("dependencyHeight", true),
+    HEAD_FINAL_DISTANCE("headFinalDistance", false),
+    LEAVES("leaves", true),
+    NUMBER_OF_SYNTACTIC_LINKS("numberOfSyntacticLinks", true),
+    ROOT_DISTANCE("rootDistance", true),
+    SENTENCE_LENGTH("sentenceLength", true),
+    TREE_DEGREE("treeDegree", true),
+    TREE_HEIGHT("treeHeight", true),
+    /**
+     * The tree edit distance to random trees, including the statistics over all samples if more than one random
+     * tree is sampled.
+     */
+    TREE_EDIT_DISTANCE("treeEditDistance", false);
+
+    public static final Set<Metric> ALL = Collections.unmodifiableSet(EnumSet.allOf(Metric.class));
+
+    private final String name;
+    private final boolean fused;
+
+    Metric(String name, boolean fused) {
+        this.name = name;
+        this.fused = fused;
+    }
+
+    /**
+     * @return The name of the metric in the output, e.g. {@code mdd}.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * @return Whether the metric is part of the single pass of
+     * {@link org.texttechnologylab.dependency.graph.DependencyMetrics}.
+     */
+    public boolean isFused() {
+        return this.fused;
+    }
+
+    /**
+     * @return The metrics this metric is derived from, which are reported along with it.
+     */
+    public Set<Metric> getPrerequisites() {
+        return switch (this) {
+            case MDD -> EnumSet.of(DEPENDENCY_DISTANCE_SUM, NUMBER_OF_SYNTACTIC_LINKS);
+            case NDD -> EnumSet.of(MDD, ROOT_DISTANCE, SENTENCE_LENGTH);
+            case DEPTH_VARIANCE -> EnumSet.of(DEPTH_MEAN);
+            case TREE_DEGREE_VARIANCE -> EnumSet.of(TREE_DEGREE_MEAN);
+            default -> EnumSet.noneOf(Metric.class);
+        };
+    }
+
+    /**
+     * @return The given metrics together with all of their direct and indirect prerequisites.
+     */
+    public static EnumSet<Metric> withPrerequisites(Collection<Metric> metrics) {
+        EnumSet<Metric> closure = EnumSet.noneOf(Metric.class);
+        Deque<Metric> pending = new ArrayDeque<>(metrics);
+        while (!pending.isEmpty()) {
+            Metric metric = pending.pop();
+            if (closure.add(metric)) {
+                pending.addAll(metric.getPrerequisites());
+            }
+        }
+        return closure;
+    }
+
+    /**
+     * @param name The output name, e.g. {@code treeEditDistance}, or the constant name, e.g.
+     *             {@code TREE_EDIT_DISTANCE}, ignoring case.
+     * @return The metric with the given name.
+     * @throws IllegalArgumentException If there is no such metric.
+     */
+    public static Metric fromString(String name) {
+        for (Metric metric : values()) {
+            if (metric.name.equalsIgnoreCase(name)) {
+                return metric;
+            }
+        }
+        return Metric.valueOf(name.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * @param names Metric names, each may also be a comma-separated list of names.
+     * @return The named metrics, or {@linkplain #ALL all} metrics if no names are given.
+     * @throws IllegalArgumentException If any of the names does not denote a metric.
+     */
+    public static EnumSet<Metric> parse(String... names) {
+        EnumSet<Metric> metrics = EnumSet.noneOf(Metric.class);
+        for (String list : names) {
+            for (String name : list.split(",")) {
+                if (!name.isBlank()) {
+                    metrics.add(fromString(name.strip()));
+                }
+            }
+        }
+        return metrics.isEmpty() ? EnumSet.allOf(Metric.class) : metrics;
+    }
+}
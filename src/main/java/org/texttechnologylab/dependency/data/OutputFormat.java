@@ -0,0 +1,76 @@
+package org.texttechnologylab.dependency.data;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The formats in which the metrics of a document can be written.
+ */
+public enum OutputFormat {
+
+    /**
+     * One JSON object per document with one object per sentence, see {@link DocumentDataPointWriter}.
+     */
+    JSON(".json"),
+    /**
+     * One primitive column per scalar metric, see {@link ColumnarDocumentWriter}.
+     */
+    COLUMNAR(".columns"),
+    /**
+     * Like {@link #COLUMNAR}, but also with the edge and distance lists as offset and value columns. Has its own
+     * extension, so that the outputs of both columnar formats can be told apart.
+     */
+    COLUMNAR_WITH_LISTS(".lists.columns");
+
+    private final String extension;
+
+    OutputFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return this.extension;
+    }
+
+    /**
+     * @return The format with the given case-insensitive name, e.g. {@code columnar}.
+     */
+    public static OutputFormat fromString(String name) {
+        return OutputFormat.valueOf(name.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Starts a document in this format.
+     *
+     * @param stream             The stream to write to, it is closed with the returned writer.
+     * @param documentAnnotation The document annotation.
+     * @param documentMetaData   The document meta data.
+     * @return The writer for the sentences of the document.
+     * @throws IOException If writing fails.
+     */
+    public SentenceDataPointWriter open(
+        OutputStream stream,
+        Map<String, String> documentAnnotation,
+        Map<String, String> documentMetaData
+    ) throws IOException {
+        return switch (this) {
+            case JSON -> new DocumentDataPointWriter(
+                new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8)),
+                documentAnnotation,
+                documentMetaData
+            );
+            case COLUMNAR, COLUMNAR_WITH_LISTS -> new ColumnarDocumentWriter(
+                new BufferedOutputStream(stream),
+                documentAnnotation,
+                documentMetaData,
+                this == COLUMNAR_WITH_LISTS
+            );
+        };
+    }
+}
@@ -1,15 +1,47 @@
 package org.texttechnologylab.dependency.data;
 
 import java.util.ArrayList;
-import java.util.stream.Collectors;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
+import org.texttechnologylab.dependency.graph.CompactDependencyTree;
 import org.texttechnologylab.dependency.graph.DependencyGraph;
+import org.texttechnologylab.dependency.graph.DependencyMetrics;
 import org.texttechnologylab.dependency.graph.InvalidDependencyGraphException;
+import org.texttechnologylab.dependency.graph.RandomTreeDistance;
+import org.texttechnologylab.dependency.graph.random.RandomTreeSampler;
 
 import com.google.common.graph.ImmutableGraph;
 
 public class SentenceDataPoint {
 
+    /**
+     * The field names of the metrics, the statistics over the random tree samples belong to the tree edit distance.
+     */
+    private static final Map<String, Metric> METRIC_FIELDS = new HashMap<>();
+    private static final Set<String> SAMPLE_FIELDS = Set.of(
+        "treeEditDistanceSamples",
+        "treeEditDistanceMin",
+        "treeEditDistanceMax",
+        "treeEditDistanceMean",
+        "treeEditDistanceVariance"
+    );
+
+    static {
+        for (Metric metric : Metric.values()) {
+            METRIC_FIELDS.put(metric.getName(), metric);
+        }
+        for (String field : SAMPLE_FIELDS) {
+            METRIC_FIELDS.put(field, Metric.TREE_EDIT_DISTANCE);
+        }
+    }
+
+    // Metrics that were not selected are null or zero and have no value, so they are omitted from the output
     public final ArrayList<Integer[]> dependencyEdges;
     public final ArrayList<Integer[]> dependencyEdgesWithPunct;
 
@@ -32,45 +64,156 @@ public class SentenceDataPoint {
     public final int treeDegree;
     public final int treeHeight;
     public final int treeEditDistance;
+    // Only have a value if more than one random tree was sampled
+    public final int treeEditDistanceSamples;
+    public final int treeEditDistanceMin;
+    public final int treeEditDistanceMax;
+    public final double treeEditDistanceMean;
+    public final double treeEditDistanceVariance;
+
+    private final transient EnumSet<Metric> metrics;
 
     public SentenceDataPoint(ImmutableGraph<Integer> dependencyGraph, ImmutableGraph<Integer> dependencyGraphWithPunct)
         throws InvalidDependencyGraphException {
-        DependencyGraph dg = new DependencyGraph(dependencyGraph, dependencyGraphWithPunct);
+        this(CompactDependencyTree.fromGraphs(dependencyGraph, dependencyGraphWithPunct));
+    }
+
+    public SentenceDataPoint(CompactDependencyTree tree) throws InvalidDependencyGraphException {
+        this(tree, 1);
+    }
+
+    /**
+     * @param tree              The dependency tree.
+     * @param randomTreeSamples The number of random trees to compare the tree with. {@link #treeEditDistance}
+     *                          holds the distance to the first one, if more than one tree is sampled, the
+     *                          statistics over all of them are reported as well.
+     */
+    public SentenceDataPoint(CompactDependencyTree tree, int randomTreeSamples) throws InvalidDependencyGraphException {
+        this(tree, randomTreeSamples, new RandomTreeSampler(ThreadLocalRandom.current()));
+    }
+
+    /**
+     * @param tree              The dependency tree.
+     * @param randomTreeSamples The number of random trees to compare the tree with.
+     * @param sampler           The sampler to draw the random trees from, e.g. a
+     *                          {@linkplain RandomTreeSampler#seeded(long, String...) seeded} sampler for
+     *                          reproducible results.
+     */
+    public SentenceDataPoint(CompactDependencyTree tree, int randomTreeSamples, RandomTreeSampler sampler)
+        throws InvalidDependencyGraphException {
+        this(tree, Metric.ALL, randomTreeSamples, sampler);
+    }
+
+    /**
+     * @param tree              The dependency tree.
+     * @param metrics           The metrics to compute, their {@linkplain Metric#getPrerequisites() prerequisites}
+     *                          are computed as well. All other metrics have no {@linkplain #hasValue(String)
+     *                          value}.
+     * @param randomTreeSamples The number of random trees to compare the tree with.
+     * @param sampler           The sampler to draw the random trees from.
+     */
+    public SentenceDataPoint(
+        CompactDependencyTree tree,
+        Set<Metric> metrics,
+        int randomTreeSamples,
+        RandomTreeSampler sampler
+    ) throws InvalidDependencyGraphException {
+        DependencyGraph dg = new DependencyGraph(tree);
+        EnumSet<Metric> selected = Metric.withPrerequisites(metrics);
+        this.metrics = selected;
 
         try {
-            this.dependencyEdges =
-                dg.dependencyGraph
-                    .edges()
-                    .stream()
-                    .map(edge -> new Integer[] { edge.source(), edge.target() })
-                    .collect(Collectors.toCollection(ArrayList::new));
-            this.dependencyEdgesWithPunct =
-                dg.dependencyGraphWithPunct
-                    .edges()
-                    .stream()
-                    .map(edge -> new Integer[] { edge.source(), edge.target() })
-                    .collect(Collectors.toCollection(ArrayList::new));
-            this.dependencyDistances = dg.getDependencyDistances();
-            this.dependencyDistanceSum = dg.getDependencyDistanceSum();
-            this.sentenceLength = dg.getSentenceLength();
-            this.numberOfSyntacticLinks = dg.getNumberOfSyntacticLinks();
-            this.rootDistance = dg.rootDistance();
-            this.dependencyHeight = dg.dependencyHeight();
-            this.mdd = dg.mdd();
-            this.ndd = dg.ndd();
-            this.treeHeight = dg.treeHeight();
-            this.depthMean = dg.depthMean();
-            this.depthVariance = dg.depthVariance();
-            this.leaves = dg.leaves();
-            this.treeDegree = dg.treeDegree();
-            this.treeDegreeMean = dg.treeDegreeMean();
-            this.treeDegreeVariance = dg.treeDegreeVariance();
-            this.headFinalRatio = dg.headFinalRatio();
-            this.headFinalDistance = dg.headFinalDistance();
-            this.crossings = dg.crossings();
-            this.treeEditDistance = dg.randomTreeDistance();
+            this.dependencyEdges = selected.contains(Metric.DEPENDENCY_EDGES) ? getEdges(tree, false) : null;
+            this.dependencyEdgesWithPunct = selected.contains(Metric.DEPENDENCY_EDGES_WITH_PUNCT) ? getEdges(tree, true) : null;
+
+            // The fused metrics are cheap, but only worth a pass over the tree if any of them is needed
+            DependencyMetrics fused = selected.stream().anyMatch(Metric::isFused) ? dg.computeMetrics() : null;
+            if (selected.contains(Metric.DEPENDENCY_DISTANCES)) {
+                this.dependencyDistances = new ArrayList<>(fused.dependencyDistances.length);
+                for (int distance : fused.dependencyDistances) {
+                    this.dependencyDistances.add(distance);
+                }
+            } else {
+                this.dependencyDistances = null;
+            }
+            this.dependencyDistanceSum = selected.contains(Metric.DEPENDENCY_DISTANCE_SUM) ? fused.dependencyDistanceSum : 0;
+            this.sentenceLength = selected.contains(Metric.SENTENCE_LENGTH) ? fused.sentenceLength : 0;
+            this.numberOfSyntacticLinks = selected.contains(Metric.NUMBER_OF_SYNTACTIC_LINKS) ? fused.numberOfSyntacticLinks : 0;
+            this.rootDistance = selected.contains(Metric.ROOT_DISTANCE) ? fused.rootDistance : 0;
+            this.dependencyHeight = selected.contains(Metric.DEPENDENCY_HEIGHT) ? fused.dependencyHeight : 0;
+            this.mdd = selected.contains(Metric.MDD) ? fused.mdd : 0.;
+            this.ndd = selected.contains(Metric.NDD) ? fused.ndd : 0.;
+            this.treeHeight = selected.contains(Metric.TREE_HEIGHT) ? fused.treeHeight : 0;
+            this.depthMean = selected.contains(Metric.DEPTH_MEAN) ? fused.depthMean : 0.;
+            this.depthVariance = selected.contains(Metric.DEPTH_VARIANCE) ? fused.depthVariance : 0.;
+            this.leaves = selected.contains(Metric.LEAVES) ? fused.leaves : 0;
+            this.treeDegree = selected.contains(Metric.TREE_DEGREE) ? fused.treeDegree : 0;
+            this.treeDegreeMean = selected.contains(Metric.TREE_DEGREE_MEAN) ? fused.treeDegreeMean : 0.;
+            this.treeDegreeVariance = selected.contains(Metric.TREE_DEGREE_VARIANCE) ? fused.treeDegreeVariance : 0.;
+            if (selected.contains(Metric.HEAD_FINAL_RATIO)) {
+                // Only a tree without any head with dependents is invalid for this metric, not for the others
+                if (Double.isNaN(fused.headFinalRatio)) {
+                    throw new NoSuchElementException("Dependency graph has no head with dependents");
+                }
+                this.headFinalRatio = fused.headFinalRatio;
+            } else {
+                this.headFinalRatio = 0.;
+            }
+            this.headFinalDistance = selected.contains(Metric.HEAD_FINAL_DISTANCE) ? dg.headFinalDistance() : 0;
+            this.crossings = selected.contains(Metric.CROSSINGS) ? dg.crossings() : 0;
+
+            RandomTreeDistance randomTreeDistance = selected.contains(Metric.TREE_EDIT_DISTANCE)
+                ? dg.randomTreeDistance(randomTreeSamples, sampler, DependencyGraph.DEFAULT_TREE_EDIT_DISTANCE)
+                : null;
+            this.treeEditDistance = randomTreeDistance != null ? randomTreeDistance.first : 0;
+            if (randomTreeDistance != null && randomTreeSamples > 1) {
+                this.treeEditDistanceSamples = randomTreeDistance.samples;
+                this.treeEditDistanceMin = randomTreeDistance.min;
+                this.treeEditDistanceMax = randomTreeDistance.max;
+                this.treeEditDistanceMean = randomTreeDistance.mean;
+                this.treeEditDistanceVariance = randomTreeDistance.variance;
+            } else {
+                this.treeEditDistanceSamples = 0;
+                this.treeEditDistanceMin = 0;
+                this.treeEditDistanceMax = 0;
+                this.treeEditDistanceMean = 0.;
+                this.treeEditDistanceVariance = 0.;
+            }
         } catch (Exception e) {
             throw new InvalidDependencyGraphException("An exception occurred while calculating metrics!", e);
         }
     }
+
+    /**
+     * @return The computed metrics, i.e. the selected metrics and their prerequisites. Sentences read back from
+     * JSON do not know which metrics were computed and report all of them.
+     */
+    public Set<Metric> getMetrics() {
+        return this.metrics != null ? Collections.unmodifiableSet(this.metrics) : Metric.ALL;
+    }
+
+    /**
+     * @param field The name of a field of this sentence.
+     * @return False, if the field holds a metric that was not computed, or one of the statistics over the random
+     * tree samples if only one random tree was sampled. The field is omitted from the output then.
+     */
+    public boolean hasValue(String field) {
+        Metric metric = METRIC_FIELDS.get(field);
+        if (metric == null) return true;
+        if (this.metrics != null && !this.metrics.contains(metric)) return false;
+        return !SAMPLE_FIELDS.contains(field) || this.treeEditDistanceSamples > 1;
+    }
+
+    /**
+     * Lists the edges of the given tree as {@code [head, dependent]} pairs, ordered by the dependent.
+     */
+    private static ArrayList<Integer[]> getEdges(CompactDependencyTree tree, boolean withPunct) {
+        ArrayList<Integer[]> edges = new ArrayList<>(withPunct ? tree.getNumberOfEdgesWithPunct() : tree.getNumberOfEdges());
+        for (int node = 1; node < tree.length(); node++) {
+            if (withPunct ? tree.hasHead(node) : tree.isAttached(node)) {
+                edges.add(new Integer[] { tree.getHead(node), node });
+            }
+        }
+        return edges;
+    }
 }
@@ -0,0 +1,106 @@
+package org.texttechnologylab.dependency.data;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Serializes a {@link SentenceDataPoint} and its subclasses like Gson's reflective adapter, but omits the fields
+ * that have no {@linkplain SentenceDataPoint#hasValue(String) value}, i.e. those of metrics that were not computed.
+ * <p>
+ * The fields of the class itself are written before those of its superclasses, {@code int} and finite
+ * {@code double} values are written without boxing and all other values with the adapter Gson has for their type,
+ * so NaN and infinite values are rejected unless the Gson serializes special floating point values. {@code null}
+ * values are omitted. Sentences are read by the adapter Gson would use without this factory.
+ */
+public class SentenceDataPointTypeAdapterFactory implements TypeAdapterFactory {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        if (!SentenceDataPoint.class.isAssignableFrom(type.getRawType())) return null;
+
+        List<Field> fields = new ArrayList<>();
+        List<TypeAdapter<Object>> adapters = new ArrayList<>();
+        for (Class<?> raw = type.getRawType(); raw != Object.class; raw = raw.getSuperclass()) {
+            for (Field field : raw.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())) continue;
+                field.setAccessible(true);
+                fields.add(field);
+                adapters.add(field.getType() == int.class
+                    ? null
+                    : (TypeAdapter<Object>) gson.getAdapter(TypeToken.get(field.getGenericType())));
+            }
+        }
+        TypeAdapter<SentenceDataPoint> delegate = (TypeAdapter<SentenceDataPoint>) gson.getDelegateAdapter(this, type);
+        return (TypeAdapter<T>) new SentenceDataPointTypeAdapter(fields, adapters, delegate);
+    }
+
+    private static class SentenceDataPointTypeAdapter extends TypeAdapter<SentenceDataPoint> {
+
+        private final Field[] fields;
+        private final List<TypeAdapter<Object>> adapters;
+        private final TypeAdapter<SentenceDataPoint> delegate;
+
+        SentenceDataPointTypeAdapter(
+            List<Field> fields,
+            List<TypeAdapter<Object>> adapters,
+            TypeAdapter<SentenceDataPoint> delegate
+        ) {
+            this.fields = fields.toArray(new Field[0]);
+            this.adapters = adapters;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(JsonWriter out, SentenceDataPoint sentence) throws IOException {
+            if (sentence == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            try {
+                for (int i = 0; i < this.fields.length; i++) {
+                    Field field = this.fields[i];
+                    if (!sentence.hasValue(field.getName())) continue;
+
+                    Class<?> type = field.getType();
+                    if (type == int.class) {
+                        out.name(field.getName()).value(field.getInt(sentence));
+                    } else if (type == double.class) {
+                        double value = field.getDouble(sentence);
+                        out.name(field.getName());
+                        if (Double.isFinite(value)) {
+                            out.value(value);
+                        } else {
+                            // The writer is lenient during Gson.toJson, only the adapter checks for special values
+                            this.adapters.get(i).write(out, value);
+                        }
+                    } else {
+                        Object value = field.get(sentence);
+                        if (value == null) continue;
+                        out.name(field.getName());
+                        this.adapters.get(i).write(out, value);
+                    }
+                }
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+            out.endObject();
+        }
+
+        @Override
+        public SentenceDataPoint read(JsonReader in) throws IOException {
+            return this.delegate.read(in);
+        }
+    }
+}
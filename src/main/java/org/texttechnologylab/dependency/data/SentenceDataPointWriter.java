@@ -0,0 +1,30 @@
+package org.texttechnologylab.dependency.data;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Writes the sentences of one document in an {@link OutputFormat}.
+ */
+public interface SentenceDataPointWriter extends Closeable {
+
+    /**
+     * Appends a sentence to the document.
+     *
+     * @param sentenceDataPoint The sentence.
+     * @throws IOException If writing fails.
+     */
+    void write(SentenceDataPoint sentenceDataPoint) throws IOException;
+
+    /**
+     * @return The number of sentences written so far.
+     */
+    int getNumberOfSentences();
+
+    /**
+     * Ends the document and flushes, but does not close the underlying output.
+     *
+     * @throws IOException If writing fails.
+     */
+    void finish() throws IOException;
+}
@@ -0,0 +1,221 @@
+package org.texttechnologylab.dependency.engine;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.ZoneId;
+import java.time.format.TextStyle;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+
+/**
+ * Normalizes the date of a document, taking it from the document's title, id or subtitle if the annotated year is
+ * not valid.
+ * <p>
+ * Dates are either numeric, e.g. {@code 12.3.1990}, or have a full or abbreviated German month name, e.g.
+ * {@code 12. März 1990} or {@code 3. Okt. 1990}. A
+ * numeric date in any of the strings takes precedence over a date with a month name. All strings are searched with
+ * a single pre-compiled pattern, and since many documents of a corpus share their title pattern, the date found for
+ * a title, id and subtitle is kept in a bounded cache. Out-of-range days and months roll over into the following
+ * month or year, and the timestamp is the start of the day in the default time zone.
+ * <p>
+ * Instances are thread-safe.
+ */
+public class DateNormalizer {
+
+    public static final long DEFAULT_CACHE_SIZE = 10_000;
+
+    /**
+     * A numeric date in groups 1 to 3, or a date with a month name in groups 4 to 6.
+     */
+    private static final Pattern DATE = Pattern.compile(
+        "(\\d{1,2})\\.(\\d{1,2})\\.(\\d{4})|(\\d{1,2})\\.?\\s*(\\p{L}+)\\.?\\s*(\\d{4})"
+    );
+
+    /**
+     * The full and abbreviated German month names in lower case, the abbreviations without their trailing dot, e.g.
+     * {@code okt}, since the dot is not part of the matched name.
+     */
+    private static final Map<String, Month> MONTHS = new HashMap<>();
+
+    static {
+        for (Month month : Month.values()) {
+            for (TextStyle style : new TextStyle[] { TextStyle.FULL, TextStyle.SHORT }) {
+                String name = month.getDisplayName(style, Locale.GERMAN).toLowerCase(Locale.ROOT);
+                if (name.endsWith(".")) name = name.substring(0, name.length() - 1);
+                MONTHS.putIfAbsent(name, month);
+            }
+        }
+    }
+
+    /**
+     * The day, month and year of a date as they appear in the text, the month is either a number or a name.
+     */
+    public record DateMatch(String day, String month, String year) {
+    }
+
+    private record Key(String title, String id, String subtitle) {
+    }
+
+    private final int validFrom;
+    private final int validTo;
+    private final LoadingCache<Key, Optional<DateMatch>> cache;
+
+    /**
+     * @param validFrom The first valid year.
+     * @param validTo   The last valid year.
+     * @param cacheSize The maximum number of titles, ids and subtitles whose date is cached.
+     */
+    public DateNormalizer(int validFrom, int validTo, long cacheSize) {
+        this.validFrom = validFrom;
+        this.validTo = validTo;
+        this.cache = CacheBuilder
+            .newBuilder()
+            .maximumSize(cacheSize)
+            .recordStats()
+            .build(new CacheLoader<>() {
+                @Override
+                public Optional<DateMatch> load(Key key) {
+                    return search(key.title(), key.id(), key.subtitle());
+                }
+            });
+    }
+
+    /**
+     * Fixes the {@code dateDay}, {@code dateMonth} and {@code dateYear} annotations of a document and adds its
+     * {@code timestamp}. If the annotated year is not valid, the date is taken from the {@code documentTitle} or
+     * {@code documentId} metadata or the {@code subtitle} annotation. The annotations are left unchanged if no
+     * valid date can be found.
+     *
+     * @param documentAnnotation The document annotation, which is updated.
+     * @param documentMetaData   The document metadata.
+     * @return The year of the document.
+     */
+    public String normalize(Map<String, String> documentAnnotation, Map<String, String> documentMetaData) {
+        String dateDay = documentAnnotation.get("dateDay");
+        String dateMonth = documentAnnotation.get("dateMonth");
+        String dateYear = documentAnnotation.get("dateYear");
+
+        if (!isValidYear(dateYear)) {
+            Optional<DateMatch> match = find(
+                documentMetaData.get("documentTitle"),
+                documentMetaData.get("documentId"),
+                documentAnnotation.getOrDefault("subtitle", "")
+            );
+            if (match.isEmpty()) return dateYear;
+
+            dateDay = match.get().day();
+            dateMonth = match.get().month();
+            dateYear = match.get().year();
+            if (!isValidYear(dateYear)) return dateYear;
+        }
+
+        Integer day = parseInt(dateDay);
+        if (day == null) return dateYear;
+        int year = Integer.parseInt(dateYear);
+
+        LocalDate date;
+        Integer month = parseInt(dateMonth);
+        if (month != null) {
+            date = toDate(year, month, day);
+        } else {
+            Month monthName = Objects.isNull(dateMonth) ? null : MONTHS.get(dateMonth.toLowerCase(Locale.ROOT));
+            if (monthName == null) return dateYear;
+            date = toDate(year, monthName.getValue(), day);
+            // Month names are replaced by the zero-based month
+            dateMonth = String.valueOf(date.getMonthValue() - 1);
+        }
+
+        documentAnnotation.put("dateDay", dateDay);
+        documentAnnotation.put("dateMonth", dateMonth);
+        documentAnnotation.put("dateYear", dateYear);
+        documentAnnotation.put("timestamp", String.valueOf(date.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli()));
+        return dateYear;
+    }
+
+    /**
+     * @return The first numeric date in the given strings, or the first date with a month name if there is no
+     * numeric date. Missing strings are treated as empty.
+     */
+    public Optional<DateMatch> find(String title, String id, String subtitle) {
+        return this.cache.getUnchecked(new Key(
+            Objects.requireNonNullElse(title, ""),
+            Objects.requireNonNullElse(id, ""),
+            Objects.requireNonNullElse(subtitle, "")
+        ));
+    }
+
+    /**
+     * @return True, if the given year is a number between the first and last valid year.
+     */
+    public boolean isValidYear(String dateYear) {
+        Integer year = parseInt(dateYear);
+        return year != null && this.validFrom <= year && year <= this.validTo;
+    }
+
+    /**
+     * @return Request, hit and miss counts of the date cache.
+     */
+    public CacheStats stats() {
+        return this.cache.stats();
+    }
+
+    /**
+     * @return A one-line summary of the cache statistics.
+     */
+    public String report() {
+        CacheStats stats = this.cache.stats();
+        return String.format(
+            "Date normalizer: %d requests, %.2f%% hits, %d misses, %d evictions, %d dates",
+            stats.requestCount(),
+            100. * stats.hitRate(),
+            stats.missCount(),
+            stats.evictionCount(),
+            this.cache.size()
+        );
+    }
+
+    private static Optional<DateMatch> search(String... strings) {
+        DateMatch named = null;
+        for (String s : strings) {
+            Matcher matcher = DATE.matcher(s);
+            int from = 0;
+            while (from < s.length() && matcher.find(from)) {
+                if (matcher.start(1) >= 0) {
+                    return Optional.of(new DateMatch(matcher.group(1), matcher.group(2), matcher.group(3)));
+                }
+                if (named == null) {
+                    named = new DateMatch(matcher.group(4), matcher.group(5), matcher.group(6));
+                }
+                // A numeric date may start within the date with a month name
+                from = matcher.start() + 1;
+            }
+        }
+        return Optional.ofNullable(named);
+    }
+
+    /**
+     * @return The date, where days and months out of range roll over into the following month or year.
+     */
+    private static LocalDate toDate(int year, int month, int day) {
+        return LocalDate.of(year, 1, 1).plusMonths(month - 1L).plusDays(day - 1L);
+    }
+
+    private static Integer parseInt(String s) {
+        if (s == null) return null;
+        try {
+            return Integer.parseInt(s);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
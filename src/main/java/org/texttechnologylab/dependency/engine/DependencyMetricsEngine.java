@@ -5,46 +5,48 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
-import java.text.SimpleDateFormat;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.Collection;
-import java.util.Comparator;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.Locale;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.fit.descriptor.ConfigurationParameter;
 import org.apache.uima.fit.util.JCasUtil;
 import org.apache.uima.jcas.JCas;
-import org.apache.uima.jcas.tcas.Annotation;
+import org.apache.uima.resource.ResourceInitializationException;
 import org.dkpro.core.api.io.JCasFileWriter_ImplBase;
 import org.texttechnologylab.dependency.data.DocumentDataPoint;
+import org.texttechnologylab.dependency.data.DocumentDataPointWriter;
+import org.texttechnologylab.dependency.data.Metric;
+import org.texttechnologylab.dependency.data.OutputFormat;
 import org.texttechnologylab.dependency.data.SentenceDataPoint;
+import org.texttechnologylab.dependency.data.SentenceDataPointWriter;
+import org.texttechnologylab.dependency.graph.CompactDependencyTree;
 import org.texttechnologylab.dependency.graph.InvalidDependencyGraphException;
-
-import com.google.common.graph.EndpointPair;
-import com.google.common.graph.GraphBuilder;
-import com.google.common.graph.ImmutableGraph;
-import com.google.common.graph.ImmutableGraph.Builder;
-import com.google.gson.Gson;
+import org.texttechnologylab.dependency.graph.random.RandomTreePool;
+import org.texttechnologylab.dependency.graph.random.RandomTreeSampler;
+import org.texttechnologylab.dependency.pipeline.AsyncWriter;
+import org.texttechnologylab.dependency.pipeline.OrderedPipeline;
+import org.texttechnologylab.dependency.pipeline.SharedWorkerPool;
 
 import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Sentence;
 import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token;
 import de.tudarmstadt.ukp.dkpro.core.api.syntax.type.dependency.Dependency;
-import de.tudarmstadt.ukp.dkpro.core.api.syntax.type.dependency.PUNCT;
-import de.tudarmstadt.ukp.dkpro.core.api.syntax.type.dependency.ROOT;
 import io.azam.ulidj.ULID;
 
 public class DependencyMetricsEngine extends JCasFileWriter_ImplBase {
 
+    private static final String JAR_PREFIX = "jar:";
+
     public static final String PARAM_FAIL_ON_ERROR = "pFailOnError";
 
     @ConfigurationParameter(name = PARAM_FAIL_ON_ERROR, mandatory = false, defaultValue = "false")
@@ -70,12 +72,233 @@ public class DependencyMetricsEngine extends JCasFileWriter_ImplBase {
     @ConfigurationParameter(name = PARAM_FIX_DATE_YEAR_VALID_TO, mandatory = false, defaultValue = "2024")
     protected int pFixDateYearValidTo;
 
-    protected final Pattern[] allPatterns = new Pattern[] {
-        Pattern.compile("(?!vom |am )(\\d{1,2})\\.(\\d{1,2})\\.(\\d{4})"),
-        Pattern.compile("(\\d{1,2})\\.(\\d{1,2})\\.(\\d{4})"),
-        Pattern.compile("(?!vom |am )(\\d{1,2})\\.?\\s*(\\p{L}+)\\s*(\\d{4})"),
-        Pattern.compile("(\\d{1,2})\\.?\\s*(\\p{L}+)\\s*(\\d{4})")
-    };
+    public static final String PARAM_METRICS = "pMetrics";
+
+    /**
+     * The names of the {@link Metric}s to compute, e.g. {@code mdd} and {@code ndd}. If not set, all metrics are
+     * computed.
+     */
+    @ConfigurationParameter(name = PARAM_METRICS, mandatory = false)
+    protected String[] pMetrics;
+
+    public static final String PARAM_RANDOM_TREE_SAMPLES = "pRandomTreeSamples";
+
+    /**
+     * The number of random trees each sentence is compared with. If greater than one, the minimum, maximum, mean
+     * and variance of the tree edit distances are reported in addition to the distance to the first random tree.
+     */
+    @ConfigurationParameter(name = PARAM_RANDOM_TREE_SAMPLES, mandatory = false, defaultValue = "1")
+    protected int pRandomTreeSamples;
+
+    public static final String PARAM_RANDOM_SEED = "pRandomSeed";
+
+    /**
+     * If set, random trees are drawn reproducibly, seeded from this value, the document's meta hash and the
+     * sentence's offset, instead of from a thread-local random number generator.
+     */
+    @ConfigurationParameter(name = PARAM_RANDOM_SEED, mandatory = false)
+    protected Long pRandomSeed;
+
+    public static final String PARAM_RANDOM_TREE_POOL_SLOTS = "pRandomTreePoolSlots";
+
+    /**
+     * If positive, random trees are drawn from a shared pool with this many trees per sentence length instead of
+     * being generated for every sentence.
+     */
+    @ConfigurationParameter(name = PARAM_RANDOM_TREE_POOL_SLOTS, mandatory = false, defaultValue = "0")
+    protected int pRandomTreePoolSlots;
+
+    public static final String PARAM_RANDOM_TREE_POOL_NODES = "pRandomTreePoolNodes";
+
+    /**
+     * The maximum total number of nodes of all trees in the random tree pool.
+     */
+    @ConfigurationParameter(name = PARAM_RANDOM_TREE_POOL_NODES, mandatory = false, defaultValue = "1000000")
+    protected int pRandomTreePoolNodes;
+
+    public static final String PARAM_OUTPUT_FORMAT = "pOutputFormat";
+
+    /**
+     * The {@link OutputFormat} of the documents, e.g. {@code JSON} or {@code COLUMNAR}.
+     */
+    @ConfigurationParameter(name = PARAM_OUTPUT_FORMAT, mandatory = false, defaultValue = "JSON")
+    protected String pOutputFormat;
+
+    public static final String PARAM_SENTENCE_THREADS = "pSentenceThreads";
+
+    /**
+     * If greater than one, the sentences of a document are extracted from the CAS first and their metrics are
+     * then computed in parallel on a {@linkplain SharedWorkerPool worker pool} with this many threads, which is
+     * shared by all instances of the engine in the JVM. The sentences are still added to the document in order.
+     */
+    @ConfigurationParameter(name = PARAM_SENTENCE_THREADS, mandatory = false, defaultValue = "1")
+    protected int pSentenceThreads;
+
+    public static final String PARAM_SENTENCE_BATCH_SIZE = "pSentenceBatchSize";
+
+    /**
+     * The number of sentences a worker computes at once if {@link #PARAM_SENTENCE_THREADS} is greater than one.
+     */
+    @ConfigurationParameter(name = PARAM_SENTENCE_BATCH_SIZE, mandatory = false, defaultValue = "16")
+    protected int pSentenceBatchSize;
+
+    public static final String PARAM_WRITER_THREADS = "pWriterThreads";
+
+    /**
+     * If positive, finished documents are handed to an {@link AsyncWriter} with this many I/O threads, so the
+     * next document is processed while the previous one is serialized and written. If zero, documents are written
+     * on the processing thread.
+     */
+    @ConfigurationParameter(name = PARAM_WRITER_THREADS, mandatory = false, defaultValue = "0")
+    protected int pWriterThreads;
+
+    public static final String PARAM_WRITER_QUEUE_SIZE = "pWriterQueueSize";
+
+    /**
+     * The maximum number of finished documents that are waiting for or being written by the {@link AsyncWriter}.
+     * Processing blocks while the writer is full.
+     */
+    @ConfigurationParameter(name = PARAM_WRITER_QUEUE_SIZE, mandatory = false, defaultValue = "4")
+    protected int pWriterQueueSize;
+
+    public static final String PARAM_SKIP_EXISTING = "pSkipExisting";
+
+    /**
+     * If set, the target location is scanned once on initialization and documents whose meta hash already has an
+     * output there are skipped before they are processed, even if a ULID suffix is appended to the output names.
+     * Outputs of this run are added once they are saved, so a failed document is not skipped when it reappears.
+     */
+    @ConfigurationParameter(name = PARAM_SKIP_EXISTING, mandatory = false, defaultValue = "false")
+    protected Boolean pSkipExisting;
+
+    public static final String PARAM_DATE_CACHE_SIZE = "pDateCacheSize";
+
+    /**
+     * The maximum number of document titles, ids and subtitles whose date is cached by the {@link DateNormalizer}.
+     */
+    @ConfigurationParameter(name = PARAM_DATE_CACHE_SIZE, mandatory = false, defaultValue = "10000")
+    protected long pDateCacheSize;
+
+    protected DateNormalizer dateNormalizer;
+
+    protected RandomTreePool randomTreePool;
+
+    protected ExistingOutputIndex existingOutputs;
+
+    protected final AtomicLong skippedDocuments = new AtomicLong();
+
+    protected AsyncWriter outputWriter;
+
+    protected OrderedPipeline sentencePipeline;
+
+    protected OutputFormat outputFormat;
+
+    protected Set<Metric> metrics;
+
+    @Override
+    public void initialize(UimaContext context) throws ResourceInitializationException {
+        super.initialize(context);
+
+        if (pRandomTreeSamples < 1) {
+            throw new ResourceInitializationException(new IllegalArgumentException(
+                String.format("Expected a positive number of random tree samples, but got %d", pRandomTreeSamples)
+            ));
+        }
+        if (pSentenceThreads < 1) {
+            throw new ResourceInitializationException(new IllegalArgumentException(
+                String.format("Expected a positive number of sentence threads, but got %d", pSentenceThreads)
+            ));
+        }
+        try {
+            outputFormat = OutputFormat.fromString(pOutputFormat);
+            metrics = Objects.nonNull(pMetrics) ? Metric.parse(pMetrics) : Metric.ALL;
+        } catch (IllegalArgumentException e) {
+            throw new ResourceInitializationException(e);
+        }
+        if (pRandomTreePoolSlots > 0) {
+            // Trees in the pool only depend on the pool seed, so seeded runs stay reproducible
+            long poolSeed = Objects.nonNull(pRandomSeed) ? pRandomSeed : ThreadLocalRandom.current().nextLong();
+            randomTreePool = new RandomTreePool(pRandomTreePoolSlots, pRandomTreePoolNodes, poolSeed);
+        }
+        dateNormalizer = new DateNormalizer(pFixDateYearValidFrom, pFixDateYearValidTo, pDateCacheSize);
+        if (pSkipExisting) {
+            try {
+                existingOutputs = ExistingOutputIndex.scan(getTargetLocation());
+            } catch (IOException | IllegalArgumentException e) {
+                throw new ResourceInitializationException(e);
+            }
+            getLogger().info(String.format("Found %d existing outputs in '%s'", existingOutputs.size(), getTargetLocation()));
+        }
+        if (pWriterThreads > 0) {
+            // All documents of a jar target are entries of one zip stream, which have to be written one after another
+            if (isJarTarget()) {
+                throw new ResourceInitializationException(new IllegalArgumentException(String.format(
+                    "Asynchronous writers are not supported for jar target locations, but got '%s'",
+                    getTargetLocation()
+                )));
+            }
+            try {
+                outputWriter = new AsyncWriter(pWriterThreads, Math.max(pWriterThreads, pWriterQueueSize));
+            } catch (IllegalArgumentException e) {
+                throw new ResourceInitializationException(e);
+            }
+        }
+        if (pSentenceThreads > 1) {
+            try {
+                // Keep enough batches queued that no worker idles while the engine waits for the oldest one
+                sentencePipeline = new OrderedPipeline(
+                    SharedWorkerPool.acquire(pSentenceThreads),
+                    pSentenceThreads,
+                    pSentenceBatchSize,
+                    2 * pSentenceThreads
+                );
+            } catch (IllegalArgumentException e) {
+                throw new ResourceInitializationException(e);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (Objects.nonNull(outputWriter)) {
+            outputWriter.close();
+            outputWriter = null;
+        }
+        if (Objects.nonNull(sentencePipeline)) {
+            sentencePipeline = null;
+            SharedWorkerPool.release();
+        }
+        super.destroy();
+    }
+
+    @Override
+    public void collectionProcessComplete() throws AnalysisEngineProcessException {
+        // Pending documents have to be written before the target is finalized
+        if (Objects.nonNull(outputWriter)) {
+            try {
+                outputWriter.flush();
+            } catch (IOException e) {
+                throw new AnalysisEngineProcessException("Could not save document data point to output stream.", null, e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AnalysisEngineProcessException(e);
+            }
+        }
+
+        super.collectionProcessComplete();
+
+        if (Objects.nonNull(existingOutputs)) {
+            getLogger().info(String.format("Skipped %d documents with existing outputs", skippedDocuments.get()));
+        }
+
+        if (pFixDateYear) {
+            getLogger().info(dateNormalizer.report());
+        }
+
+        if (Objects.nonNull(randomTreePool)) {
+            getLogger().info(randomTreePool.report());
+        }
+    }
 
     @Override
     public void process(JCas jCas) throws AnalysisEngineProcessException {
@@ -85,6 +308,12 @@ public class DependencyMetricsEngine extends JCasFileWriter_ImplBase {
             String dateYear = getDateYear(documentDataPoint);
 
             String metaHash = documentDataPoint.getMetaHash();
+            // Outputs are added once they are saved, so a document whose output failed is not skipped later
+            if (Objects.nonNull(existingOutputs) && existingOutputs.contains(metaHash)) {
+                skippedDocuments.incrementAndGet();
+                getLogger().debug(String.format("Skipping document '%s', its output already exists", metaHash));
+                return;
+            }
 
             String outputFile = String.join("/", dateYear, metaHash);
             if (pUlidSuffix) {
@@ -94,7 +323,7 @@ public class DependencyMetricsEngine extends JCasFileWriter_ImplBase {
             try {
                 // Try to get the output stream _before_ processing the document
                 // as we will get an IOException if the target file already exists
-                NamedOutputStream outputStream = getOutputStream(outputFile, ".json");
+                NamedOutputStream outputStream = getOutputStream(outputFile, outputFormat.getExtension());
 
                 try {
                     processDocument(jCas, documentDataPoint);
@@ -103,11 +332,17 @@ public class DependencyMetricsEngine extends JCasFileWriter_ImplBase {
                     throw new AnalysisEngineProcessException("Error while processing the document. This should not happen!", null, e);
                 }
 
-                try {
-                    save(documentDataPoint, outputStream);
-                } catch (IOException e) {
-                    // Unexpected: We could not write to the output stream?
-                    throw new AnalysisEngineProcessException("Could not save document data point to output stream.", null, e);
+                if (Objects.nonNull(outputWriter)) {
+                    saveAsync(documentDataPoint, outputStream, metaHash);
+                } else {
+                    try {
+                        save(documentDataPoint, outputStream, outputFormat);
+                        addExistingOutput(metaHash);
+                    } catch (IOException e) {
+                        // Unexpected: We could not write to the output stream?
+                        discard(outputStream);
+                        throw new AnalysisEngineProcessException("Could not save document data point to output stream.", null, e);
+                    }
                 }
             } catch (IOException e) {
                 // Expected: getOutputStream() failed, most likely because the target file
@@ -128,13 +363,109 @@ public class DependencyMetricsEngine extends JCasFileWriter_ImplBase {
         }
     }
 
-    protected void processDocument(JCas jCas, final DocumentDataPoint documentDataPoint) {
-        final ArrayList<Sentence> sentences = new ArrayList<>(new ArrayList<>(JCasUtil.select(jCas, Sentence.class)));
-        final HashMap<Sentence, Collection<Token>> tokenMap = new HashMap<>(JCasUtil.indexCovered(jCas, Sentence.class, Token.class));
-        final HashMap<Sentence, Collection<Dependency>> dependencyMap = new HashMap<>(
-            JCasUtil.indexCovered(jCas, Sentence.class, Dependency.class)
+    /**
+     * Hands the document to the {@link #outputWriter}, blocking while it is full. Write errors are logged by the
+     * writer thread and the incomplete output is removed. Only if {@link #pFailOnError} is set, the error is
+     * thrown by the next call or by {@link #collectionProcessComplete()}, otherwise it does not affect any other
+     * document. The document is added to the {@link #existingOutputs} once its output is saved.
+     */
+    private void saveAsync(
+        final DocumentDataPoint documentDataPoint,
+        final NamedOutputStream outputStream,
+        final String metaHash
+    ) throws AnalysisEngineProcessException {
+        try {
+            outputWriter.submit(() -> {
+                try {
+                    save(documentDataPoint, outputStream, outputFormat);
+                    addExistingOutput(metaHash);
+                } catch (IOException | RuntimeException e) {
+                    getLogger().error(String.format("Could not save document data point to '%s': %s", outputStream.getName(), e.getMessage()));
+                    discard(outputStream);
+                    if (pFailOnError) throw e;
+                }
+            });
+        } catch (IOException e) {
+            // A previous document could not be written, which is only reported if pFailOnError is set
+            discard(outputStream);
+            throw new AnalysisEngineProcessException("Could not save document data point to output stream.", null, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            discard(outputStream);
+            throw new AnalysisEngineProcessException(e);
+        }
+    }
+
+    private void addExistingOutput(String metaHash) {
+        if (Objects.nonNull(existingOutputs)) {
+            existingOutputs.add(metaHash);
+        }
+    }
+
+    /**
+     * Closes an output that could not be written completely and deletes its file, so that no empty or truncated
+     * document is left behind. Entries of a jar target cannot be deleted and are only closed.
+     */
+    protected void discard(NamedOutputStream outputStream) {
+        try {
+            outputStream.close();
+        } catch (IOException | RuntimeException e) {
+            // The output is removed anyway
+        }
+        if (isJarTarget() || Objects.isNull(outputStream.getName())) return;
+        try {
+            Files.deleteIfExists(Paths.get(outputStream.getName()));
+        } catch (IOException | RuntimeException e) {
+            getLogger().warn(String.format("Could not delete incomplete output '%s': %s", outputStream.getName(), e.getMessage()));
+        }
+    }
+
+    /**
+     * @return Whether the documents are written as entries of a single zip file.
+     */
+    protected boolean isJarTarget() {
+        return Objects.nonNull(getTargetLocation()) && getTargetLocation().startsWith(JAR_PREFIX);
+    }
+
+    protected void processDocument(JCas jCas, final DocumentDataPoint documentDataPoint)
+        throws IOException, InterruptedException {
+        final List<SentenceGraph> graphs = extractSentenceGraphs(jCas);
+        final String metaHash = Objects.nonNull(pRandomSeed) ? documentDataPoint.getMetaHash() : null;
+
+        if (Objects.isNull(sentencePipeline)) {
+            for (SentenceGraph graph : graphs) {
+                processSentenceGraph(graph, metaHash).ifPresent(documentDataPoint::add);
+            }
+            return;
+        }
+        sentencePipeline.run(
+            graphs.iterator(),
+            graph -> processSentenceGraph(graph, metaHash),
+            sentenceDataPoint -> sentenceDataPoint.ifPresent(documentDataPoint::add)
         );
+    }
+
+    /**
+     * The dependency tree of a sentence and the offset it is seeded with.
+     */
+    protected record SentenceGraph(CompactDependencyTree tree, int begin) {
+    }
 
+    /**
+     * Extracts the dependency trees of all valid sentences in document order. The CAS is only accessed here, so
+     * the metrics of the trees can be computed on any thread.
+     */
+    protected List<SentenceGraph> extractSentenceGraphs(JCas jCas) {
+        // The covered indexes are only read, so they are used as they are instead of being copied
+        final Collection<Sentence> sentences = JCasUtil.select(jCas, Sentence.class);
+        final Map<Sentence, List<Token>> tokenMap = JCasUtil.indexCovered(jCas, Sentence.class, Token.class);
+        final Map<Sentence, List<Dependency>> dependencyMap = JCasUtil.indexCovered(
+            jCas,
+            Sentence.class,
+            Dependency.class
+        );
+
+        final List<SentenceGraph> graphs = new ArrayList<>(sentences.size());
         for (Sentence sentence : sentences) {
             if (!sentenceIsValid(sentence, tokenMap)) continue;
 
@@ -145,15 +476,16 @@ public class DependencyMetricsEngine extends JCasFileWriter_ImplBase {
             }
 
             try {
-                documentDataPoint.add(processDependencies(new ArrayList<>(dependencyMap.get(sentence))));
+                graphs.add(new SentenceGraph(DependencyTreeExtractor.extract(dependencies), sentence.getBegin()));
             } catch (InvalidDependencyGraphException ignored) {
                 // Catch exception for invalid sentences
                 getLogger().error("%s\n%s\n", ignored.getMessage(), ignored.getCause());
             }
         }
+        return graphs;
     }
 
-    private boolean sentenceIsValid(Sentence sentence, HashMap<Sentence, Collection<Token>> tokenMap) {
+    private boolean sentenceIsValid(Sentence sentence, Map<Sentence, List<Token>> tokenMap) {
         if (!tokenMap.containsKey(sentence)) {
             getLogger().debug(String.format("Sentence not in tokenMap: '%s'", sentence.toString()));
             return false;
@@ -172,68 +504,52 @@ public class DependencyMetricsEngine extends JCasFileWriter_ImplBase {
         return true;
     }
 
-    private SentenceDataPoint processDependencies(final ArrayList<Dependency> dependencies) throws InvalidDependencyGraphException {
-        dependencies.sort(Comparator.comparingInt(o -> o.getDependent().getBegin()));
-        ArrayList<Token> tokens = dependencies
-            .stream()
-            .flatMap(d -> Stream.of(d.getGovernor(), d.getDependent()))
-            .distinct()
-            .sorted(Comparator.comparingInt(Annotation::getBegin))
-            .collect(Collectors.toCollection(ArrayList::new));
-
-        Builder<Integer> graphBuilder = GraphBuilder.directed().<Integer>immutable().addNode(0);
-        ArrayList<EndpointPair<Integer>> edges = new ArrayList<>();
-        for (Dependency dependency : dependencies) {
-            Token governor = dependency.getGovernor();
-            Token dependent = dependency.getDependent();
-
-            int govenorIndex = tokens.indexOf(governor) + 1;
-            int dependentIndex = tokens.indexOf(dependent) + 1;
-
-            String dependencyType = dependency.getDependencyType();
-            if (dependency instanceof PUNCT || dependencyType.equalsIgnoreCase("PUNCT")) {
-                edges.add(EndpointPair.ordered(govenorIndex, dependentIndex));
-            } else if (dependency instanceof ROOT || dependencyType.equalsIgnoreCase("ROOT") || governor == dependent) {
-                graphBuilder.putEdge(0, dependentIndex);
-            } else {
-                graphBuilder.putEdge(govenorIndex, dependentIndex);
-            }
-        }
-
-        ImmutableGraph<Integer> dependencyGraph = graphBuilder.build();
-
-        edges.forEach(edge -> graphBuilder.putEdge(edge.source(), edge.target()));
-        ImmutableGraph<Integer> dependencyGraphWithPunct = graphBuilder.build();
-
-        return new SentenceDataPoint(dependencyGraph, dependencyGraphWithPunct);
+    /**
+     * @return A sampler seeded from {@link #pRandomSeed}, the document's meta hash and the sentence's offset if a
+     * seed is given, otherwise an unseeded sampler for the current thread. The sampler draws from the random tree
+     * pool if it is enabled.
+     */
+    private RandomTreeSampler getSampler(String metaHash, int begin) {
+        RandomTreeSampler sampler = Objects.nonNull(pRandomSeed)
+            ? RandomTreeSampler.seeded(pRandomSeed, metaHash, String.valueOf(begin))
+            : new RandomTreeSampler(ThreadLocalRandom.current());
+        return Objects.nonNull(randomTreePool) ? sampler.withPool(randomTreePool) : sampler;
     }
 
-    protected static void save(DocumentDataPoint dataPoints, OutputStream outputStream) throws IOException {
-        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8))) {
-            String json = new Gson().toJson(dataPoints);
-            writer.write(json);
+    private Optional<SentenceDataPoint> processSentenceGraph(SentenceGraph graph, String metaHash) {
+        try {
+            // The sampler is created on the thread that uses it
+            return Optional.of(new SentenceDataPoint(
+                graph.tree(),
+                metrics,
+                pRandomTreeSamples,
+                getSampler(metaHash, graph.begin())
+            ));
+        } catch (InvalidDependencyGraphException ignored) {
+            // Catch exception for invalid sentences
+            getLogger().error("%s\n%s\n", ignored.getMessage(), ignored.getCause());
+            return Optional.empty();
         }
     }
 
-    protected static boolean isNumeric(String s) {
-        try {
-            Integer.parseInt(s);
-            return true;
-        } catch (NumberFormatException e) {
-            return false;
+    protected static void save(DocumentDataPoint dataPoints, OutputStream outputStream) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8))) {
+            DocumentDataPointWriter.write(dataPoints, writer);
         }
     }
 
-    protected Matcher anyMatch(String... strings) {
-        for (Pattern pattern : allPatterns) {
-            for (String s : strings) {
-                Matcher matcher = pattern.matcher(s);
-                if (matcher.find()) {
-                    return matcher;
-                }
+    protected static void save(DocumentDataPoint dataPoints, OutputStream outputStream, OutputFormat format) throws IOException {
+        try (
+            SentenceDataPointWriter writer = format.open(
+                outputStream,
+                dataPoints.getDocumentAnnotation(),
+                dataPoints.getDocumentMetaData()
+            )
+        ) {
+            for (SentenceDataPoint sentenceDataPoint : dataPoints.getSentences()) {
+                writer.write(sentenceDataPoint);
             }
         }
-        return null;
     }
 
     protected String getDateYear(DocumentDataPoint documentDataPoint) throws AnalysisEngineProcessException {
@@ -252,62 +568,10 @@ public class DependencyMetricsEngine extends JCasFileWriter_ImplBase {
     }
 
     protected String fixDateYear(Map<String, String> documentAnnotation, Map<String, String> documentMetaData) {
-        String dateDay = documentAnnotation.get("dateDay");
-        String dateMonth = documentAnnotation.get("dateMonth");
-        String dateYear = documentAnnotation.get("dateYear");
-
-        String documentTitle = documentMetaData.get("documentTitle");
-        String documentId = documentMetaData.get("documentId");
-        String subtitle = documentAnnotation.getOrDefault("subtitle", "");
-        try {
-            if (!checkDateYear(dateYear)) {
-                Matcher mtch = anyMatch(documentTitle, documentId, subtitle);
-                if (Objects.nonNull(mtch)) {
-                    dateDay = mtch.group(1);
-                    dateMonth = mtch.group(2);
-                    dateYear = mtch.group(3);
-                } else {
-                    return dateYear;
-                }
-
-                if (!checkDateYear(dateYear)) {
-                    throw new Exception(String.format("Year %s is not valid from match: %s", dateYear, mtch));
-                }
-            }
-
-            String timestamp = "";
-            if (isNumeric(dateMonth)) {
-                SimpleDateFormat df = new SimpleDateFormat("dd.MM.yyyy hh:mm:ss", Locale.GERMANY);
-                Date date = df.parse(String.format("%s.%s.%s 00:00:00", dateDay, dateMonth, dateYear));
-
-                timestamp = String.valueOf(date.getTime());
-            } else {
-                SimpleDateFormat df = new SimpleDateFormat("dd MMMM yyyy hh:mm:ss", Locale.GERMAN);
-                Date date = df.parse(String.format("%s %s %s 00:00:0", dateDay, dateMonth, dateYear));
-
-                Calendar calendar = df.getCalendar();
-                calendar.setTime(date);
-                dateMonth = String.valueOf(calendar.get(Calendar.MONTH));
-
-                timestamp = String.valueOf(date.getTime());
-            }
-
-            documentAnnotation.put("dateDay", dateDay);
-            documentAnnotation.put("dateMonth", dateMonth);
-            documentAnnotation.put("dateYear", dateYear);
-            documentAnnotation.put("timestamp", timestamp);
-
-            return dateYear;
-        } catch (Exception e) {
-            return dateYear;
-        }
+        return dateNormalizer.normalize(documentAnnotation, documentMetaData);
     }
 
     protected boolean checkDateYear(String dateYear) {
-        return (
-            isNumeric(dateYear) &&
-            (this.pFixDateYearValidFrom <= Integer.parseInt(dateYear)) &&
-            (Integer.parseInt(dateYear) <= this.pFixDateYearValidTo)
-        );
+        return dateNormalizer.isValidYear(dateYear);
     }
 }
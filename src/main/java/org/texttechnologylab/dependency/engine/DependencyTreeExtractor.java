@@ -0,0 +1,73 @@
+package org.texttechnologylab.dependency.engine;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+
+import org.texttechnologylab.dependency.graph.CompactDependencyTree;
+import org.texttechnologylab.dependency.graph.InvalidDependencyGraphException;
+
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token;
+import de.tudarmstadt.ukp.dkpro.core.api.syntax.type.dependency.Dependency;
+import de.tudarmstadt.ukp.dkpro.core.api.syntax.type.dependency.PUNCT;
+import de.tudarmstadt.ukp.dkpro.core.api.syntax.type.dependency.ROOT;
+
+/**
+ * Extracts the head array of a sentence directly from its {@link Dependency} annotations.
+ * <p>
+ * The positions of the tree are the tokens that take part in any of the dependencies, ordered by their begin
+ * offset and starting at 1, position 0 is the root. Tokens are indexed by identity in a single pass over the
+ * dependencies, so looking up the position of a governor or dependent takes constant time instead of a linear
+ * search through the token list.
+ */
+public final class DependencyTreeExtractor {
+
+    private static final Comparator<Token> BY_BEGIN = Comparator.comparingInt(Token::getBegin);
+
+    private DependencyTreeExtractor() {
+    }
+
+    /**
+     * @param dependencies The dependencies of a single sentence.
+     * @return The dependency tree of the sentence.
+     * @throws InvalidDependencyGraphException If the dependencies do not form a tree.
+     */
+    public static CompactDependencyTree extract(Collection<Dependency> dependencies)
+        throws InvalidDependencyGraphException {
+        // Collect each token once, annotations are only equal to themselves
+        IdentityHashMap<Token, Integer> positions = new IdentityHashMap<>(4 * dependencies.size());
+        Token[] tokens = new Token[2 * dependencies.size()];
+        int numberOfTokens = 0;
+        for (Dependency dependency : dependencies) {
+            Token governor = dependency.getGovernor();
+            if (positions.putIfAbsent(governor, 0) == null) tokens[numberOfTokens++] = governor;
+            Token dependent = dependency.getDependent();
+            if (positions.putIfAbsent(dependent, 0) == null) tokens[numberOfTokens++] = dependent;
+        }
+
+        Arrays.sort(tokens, 0, numberOfTokens, BY_BEGIN);
+        for (int i = 0; i < numberOfTokens; i++) {
+            positions.put(tokens[i], i + 1);
+        }
+
+        CompactDependencyTree.Builder treeBuilder = new CompactDependencyTree.Builder(numberOfTokens + 1);
+        for (Dependency dependency : dependencies) {
+            Token governor = dependency.getGovernor();
+            Token dependent = dependency.getDependent();
+
+            int governorIndex = positions.get(governor);
+            int dependentIndex = positions.get(dependent);
+
+            String dependencyType = dependency.getDependencyType();
+            if (dependency instanceof PUNCT || dependencyType.equalsIgnoreCase("PUNCT")) {
+                treeBuilder.addEdge(governorIndex, dependentIndex, true);
+            } else if (dependency instanceof ROOT || dependencyType.equalsIgnoreCase("ROOT") || governor == dependent) {
+                treeBuilder.addEdge(0, dependentIndex, false);
+            } else {
+                treeBuilder.addEdge(governorIndex, dependentIndex, false);
+            }
+        }
+        return treeBuilder.build();
+    }
+}
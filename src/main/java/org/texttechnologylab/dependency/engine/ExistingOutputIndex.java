@@ -0,0 +1,100 @@
+package org.texttechnologylab.dependency.engine;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * The meta hashes of all documents that already have an output in a target location, so that documents that were
+ * processed by an earlier run can be skipped before any work is done for them.
+ * <p>
+ * Outputs are named {@code <dateYear>/<metaHash>[-<ulid>]<extension>}, the index is built by scanning the target
+ * location once and taking the meta hash from the file names, so no output has to be opened. Empty files are left
+ * by writes that did not complete and are not counted as outputs.
+ */
+public class ExistingOutputIndex {
+
+    /**
+     * A hex encoded SHA-256 hash, see {@link org.texttechnologylab.dependency.data.DocumentDataPoint#getMetaHash()}.
+     */
+    private static final Pattern META_HASH = Pattern.compile("[0-9a-f]{64}");
+
+    private final Set<String> metaHashes = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param targetLocation The target location as a path or a {@code file:} URL, may not exist yet.
+     * @return The index of all outputs below the given location.
+     * @throws IllegalArgumentException If the target location is an URL that is not a local directory, e.g. a
+     *                                  {@code jar:} archive, and cannot be scanned.
+     * @throws IOException              If the target location cannot be read.
+     */
+    public static ExistingOutputIndex scan(String targetLocation) throws IOException {
+        return scan(toPath(targetLocation));
+    }
+
+    /**
+     * @param root The target location, may not exist yet.
+     * @return The index of all outputs below the given location.
+     * @throws IOException If the target location cannot be read.
+     */
+    public static ExistingOutputIndex scan(Path root) throws IOException {
+        ExistingOutputIndex index = new ExistingOutputIndex();
+        if (!Files.isDirectory(root)) return index;
+
+        try (Stream<Path> files = Files.find(root, Integer.MAX_VALUE, (file, attributes) -> attributes.isRegularFile() && attributes.size() > 0)) {
+            files.forEach(file -> {
+                String metaHash = getMetaHash(file.getFileName().toString());
+                if (metaHash != null) index.add(metaHash);
+            });
+        }
+        return index;
+    }
+
+    private static Path toPath(String targetLocation) {
+        // A single letter before the colon is a drive, not a scheme
+        int colon = targetLocation.indexOf(':');
+        if (colon <= 1) return Paths.get(targetLocation);
+
+        URI uri = URI.create(targetLocation);
+        if (!"file".equals(uri.getScheme())) {
+            throw new IllegalArgumentException("Cannot scan the target location " + targetLocation + " for existing outputs.");
+        }
+        return Paths.get(uri);
+    }
+
+    /**
+     * @param fileName The name of an output file, e.g. {@code <metaHash>-<ulid>.json.gz}.
+     * @return The meta hash the file name starts with, or {@code null} if it is not the name of an output.
+     */
+    private static String getMetaHash(String fileName) {
+        int end = fileName.length();
+        int dot = fileName.indexOf('.');
+        if (dot >= 0) end = dot;
+        int dash = fileName.indexOf('-');
+        if (dash >= 0 && dash < end) end = dash;
+
+        String metaHash = fileName.substring(0, end);
+        return META_HASH.matcher(metaHash).matches() ? metaHash : null;
+    }
+
+    public boolean contains(String metaHash) {
+        return this.metaHashes.contains(metaHash);
+    }
+
+    /**
+     * @return True, if the meta hash was not in the index yet.
+     */
+    public boolean add(String metaHash) {
+        return this.metaHashes.add(metaHash);
+    }
+
+    public int size() {
+        return this.metaHashes.size();
+    }
+}
@@ -0,0 +1,367 @@
+package org.texttechnologylab.dependency.graph;
+
+import java.util.Arrays;
+
+import com.google.common.graph.EndpointPair;
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.ImmutableGraph;
+
+/**
+ * Compact representation of a dependency tree over primitive arrays.
+ * <p>
+ * Each token position {@code 1..n} stores the position of its head in {@link #heads}, where {@code 0} is the
+ * artificial root node and {@link #NO_HEAD} marks positions that are not attached to the tree. The children of
+ * every node are stored in CSR layout: the children of node {@code u} are
+ * {@code children[childOffsets[u]] .. children[childOffsets[u + 1] - 1]}, ordered by their position in the
+ * sentence. Punctuation edges are part of the tree but flagged in a separate {@link #punct} mask, so the same
+ * instance serves both the dependency graph with and without punctuation.
+ */
+public class CompactDependencyTree {
+
+    public static final int NO_HEAD = -1;
+
+    private final int[] heads;
+    private final boolean[] punct;
+    private final int[] childOffsets;
+    private final int[] children;
+    private final int numberOfEdges;
+    private final int numberOfEdgesWithPunct;
+
+    private CompactDependencyTree(int[] heads, boolean[] punct) {
+        this.heads = heads;
+        this.punct = punct;
+
+        int length = heads.length;
+        this.childOffsets = new int[length + 1];
+        int edges = 0;
+        int edgesWithPunct = 0;
+        for (int node = 1; node < length; node++) {
+            int head = heads[node];
+            if (head != NO_HEAD) {
+                this.childOffsets[head + 1]++;
+                edgesWithPunct++;
+                if (!punct[node]) edges++;
+            }
+        }
+        for (int node = 0; node < length; node++) {
+            this.childOffsets[node + 1] += this.childOffsets[node];
+        }
+
+        // Fill children in ascending order of their position, so siblings are kept in word order
+        this.children = new int[edgesWithPunct];
+        int[] fill = Arrays.copyOf(this.childOffsets, length);
+        for (int node = 1; node < length; node++) {
+            int head = heads[node];
+            if (head != NO_HEAD) {
+                this.children[fill[head]++] = node;
+            }
+        }
+
+        this.numberOfEdges = edges;
+        this.numberOfEdgesWithPunct = edgesWithPunct;
+    }
+
+    /**
+     * Creates a tree from a head array and a punctuation mask.
+     *
+     * @param heads The head of each position, {@code heads[0]} is ignored.
+     * @param punct Whether the edge to each position is a punctuation edge, may be {@code null}.
+     * @return The compact dependency tree.
+     * @throws InvalidDependencyGraphException If a head is out of range or a token is its own head.
+     */
+    public static CompactDependencyTree fromHeads(int[] heads, boolean[] punct) throws InvalidDependencyGraphException {
+        if (heads.length == 0) {
+            throw new InvalidDependencyGraphException("Head array is empty!");
+        }
+        if (punct != null && punct.length != heads.length) {
+            throw new InvalidDependencyGraphException(String.format(
+                "Length of punctuation mask (%d) does not match number of heads (%d)",
+                punct.length,
+                heads.length
+            ));
+        }
+        int[] headsCopy = heads.clone();
+        boolean[] punctCopy = punct == null ? new boolean[heads.length] : punct.clone();
+        headsCopy[0] = NO_HEAD;
+        punctCopy[0] = false;
+        for (int node = 1; node < headsCopy.length; node++) {
+            int head = headsCopy[node];
+            if (head == NO_HEAD) {
+                punctCopy[node] = false;
+                continue;
+            }
+            if (head < 0 || head >= headsCopy.length) {
+                throw new InvalidDependencyGraphException(String.format("Head %d of token %d is out of range", head, node));
+            }
+            if (head == node) {
+                throw new InvalidDependencyGraphException(String.format("Token %d is its own head", node));
+            }
+        }
+        return new CompactDependencyTree(headsCopy, punctCopy);
+    }
+
+    /**
+     * Creates a tree from lists of {@code [head, dependent]} pairs as read by the
+     * {@link org.texttechnologylab.dependency.json.GraphIterator GraphIterator}.
+     *
+     * @param dependencyEdges The dependency edges without punctuation.
+     * @param punctEdges      The punctuation edges.
+     * @return The compact dependency tree.
+     * @throws InvalidDependencyGraphException If the edges do not form a tree.
+     */
+    public static CompactDependencyTree fromEdges(Integer[][] dependencyEdges, Integer[][] punctEdges)
+        throws InvalidDependencyGraphException {
+        Builder builder = new Builder(dependencyEdges.length + punctEdges.length + 1);
+        for (Integer[] edge : dependencyEdges) {
+            builder.addEdge(edge[0], edge[1], false);
+        }
+        for (Integer[] edge : punctEdges) {
+            builder.addEdge(edge[0], edge[1], true);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Creates a tree from flat arrays of {@code [head0, dependent0, head1, dependent1, ...]} as read by the
+     * {@link org.texttechnologylab.dependency.json.IntGraphIterator IntGraphIterator}.
+     *
+     * @param dependencyEdges The dependency edges without punctuation.
+     * @param punctEdges      The punctuation edges.
+     * @return The compact dependency tree.
+     * @throws InvalidDependencyGraphException If the edges do not form a tree.
+     */
+    public static CompactDependencyTree fromEdges(int[] dependencyEdges, int[] punctEdges)
+        throws InvalidDependencyGraphException {
+        if (dependencyEdges.length % 2 != 0 || punctEdges.length % 2 != 0) {
+            throw new InvalidDependencyGraphException("Edge arrays must hold pairs of head and dependent");
+        }
+        Builder builder = new Builder((dependencyEdges.length + punctEdges.length) / 2 + 1);
+        for (int i = 0; i < dependencyEdges.length; i += 2) {
+            builder.addEdge(dependencyEdges[i], dependencyEdges[i + 1], false);
+        }
+        for (int i = 0; i < punctEdges.length; i += 2) {
+            builder.addEdge(punctEdges[i], punctEdges[i + 1], true);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Adapter for the previous representation as a pair of Guava graphs.
+     *
+     * @param dependencyGraph          The dependency graph without punctuation.
+     * @param dependencyGraphWithPunct The dependency graph including the punctuation edges.
+     * @return The compact dependency tree.
+     * @throws InvalidDependencyGraphException If the graphs do not form a tree.
+     */
+    public static CompactDependencyTree fromGraphs(
+        ImmutableGraph<Integer> dependencyGraph, ImmutableGraph<Integer> dependencyGraphWithPunct
+    ) throws InvalidDependencyGraphException {
+        Builder builder = new Builder(dependencyGraphWithPunct.nodes().size());
+        for (EndpointPair<Integer> edge : dependencyGraph.edges()) {
+            builder.addEdge(edge.source(), edge.target(), false);
+        }
+        for (EndpointPair<Integer> edge : dependencyGraphWithPunct.edges()) {
+            builder.addEdge(edge.source(), edge.target(), true);
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return The number of token positions including the root node 0.
+     */
+    public int length() {
+        return this.heads.length;
+    }
+
+    public int getHead(int node) {
+        return this.heads[node];
+    }
+
+    public boolean hasHead(int node) {
+        return this.heads[node] != NO_HEAD;
+    }
+
+    /**
+     * @return True, if the edge leading to the given node is a punctuation edge.
+     */
+    public boolean isPunct(int node) {
+        return this.punct[node];
+    }
+
+    /**
+     * @return True, if the given node is attached by a regular (non-punctuation) edge.
+     */
+    public boolean isAttached(int node) {
+        return this.heads[node] != NO_HEAD && !this.punct[node];
+    }
+
+    /**
+     * @return The offset of the first child of the given node in the child array.
+     * @see #getChild(int)
+     */
+    public int getChildrenStart(int node) {
+        return this.childOffsets[node];
+    }
+
+    /**
+     * @return The offset after the last child of the given node in the child array.
+     * @see #getChild(int)
+     */
+    public int getChildrenEnd(int node) {
+        return this.childOffsets[node + 1];
+    }
+
+    public int getChild(int offset) {
+        return this.children[offset];
+    }
+
+    /**
+     * @return The number of children of the given node, including punctuation.
+     */
+    public int getOutDegreeWithPunct(int node) {
+        return this.childOffsets[node + 1] - this.childOffsets[node];
+    }
+
+    /**
+     * @return The number of children of the given node, excluding punctuation.
+     */
+    public int getOutDegree(int node) {
+        int degree = 0;
+        for (int offset = this.childOffsets[node]; offset < this.childOffsets[node + 1]; offset++) {
+            if (!this.punct[this.children[offset]]) degree++;
+        }
+        return degree;
+    }
+
+    /**
+     * Checks whether the given node is part of the dependency graph without punctuation, i.e. it is the root
+     * node, it is attached by a regular edge or it is the head of a regular edge.
+     */
+    public boolean containsNode(int node) {
+        return node == 0 || this.isAttached(node) || this.getOutDegree(node) > 0;
+    }
+
+    /**
+     * @return The number of nodes in the dependency graph without punctuation, including the root node.
+     * @see #containsNode(int)
+     */
+    public int getNumberOfNodes() {
+        int nodes = 0;
+        for (int node = 0; node < this.heads.length; node++) {
+            if (this.containsNode(node)) nodes++;
+        }
+        return nodes;
+    }
+
+    /**
+     * @return The number of regular (non-punctuation) edges.
+     */
+    public int getNumberOfEdges() {
+        return this.numberOfEdges;
+    }
+
+    /**
+     * @return The number of edges including punctuation edges.
+     */
+    public int getNumberOfEdgesWithPunct() {
+        return this.numberOfEdgesWithPunct;
+    }
+
+    /**
+     * @return A copy of the head array.
+     */
+    public int[] getHeads() {
+        return this.heads.clone();
+    }
+
+    /**
+     * @return A copy of the punctuation mask.
+     */
+    public boolean[] getPunctMask() {
+        return this.punct.clone();
+    }
+
+    /**
+     * Builds an equivalent Guava graph, for callers that still need the graph API.
+     *
+     * @param withPunct Whether to include the punctuation edges.
+     * @return The dependency graph as an immutable Guava graph.
+     */
+    public ImmutableGraph<Integer> toImmutableGraph(boolean withPunct) {
+        ImmutableGraph.Builder<Integer> graphBuilder = GraphBuilder.directed().<Integer>immutable().addNode(0);
+        for (int node = 1; node < this.heads.length; node++) {
+            if (this.heads[node] != NO_HEAD && (withPunct || !this.punct[node])) {
+                graphBuilder.putEdge(this.heads[node], node);
+            }
+        }
+        return graphBuilder.build();
+    }
+
+    /**
+     * Incremental builder that collects {@code (head, dependent)} edges into a head array.
+     */
+    public static class Builder {
+
+        private int[] heads;
+        private boolean[] punct;
+        private int maxNode = 0;
+
+        public Builder() {
+            this(16);
+        }
+
+        public Builder(int expectedLength) {
+            this.heads = new int[Math.max(expectedLength, 1)];
+            this.punct = new boolean[this.heads.length];
+            Arrays.fill(this.heads, NO_HEAD);
+        }
+
+        /**
+         * Adds an edge from the given head to the given dependent. Adding the same edge twice is allowed, in
+         * which case a regular edge takes precedence over a punctuation edge.
+         *
+         * @throws InvalidDependencyGraphException If the dependent already has a different head.
+         */
+        public Builder addEdge(int head, int dependent, boolean isPunct) throws InvalidDependencyGraphException {
+            if (dependent < 1 || head < 0) {
+                throw new InvalidDependencyGraphException(String.format("Invalid edge (%d, %d)", head, dependent));
+            }
+            if (head == dependent) {
+                throw new InvalidDependencyGraphException(String.format("Token %d is its own head", dependent));
+            }
+            this.ensureCapacity(Math.max(head, dependent) + 1);
+
+            int previous = this.heads[dependent];
+            if (previous == NO_HEAD) {
+                this.heads[dependent] = head;
+                this.punct[dependent] = isPunct;
+            } else if (previous == head) {
+                this.punct[dependent] &= isPunct;
+            } else {
+                throw new InvalidDependencyGraphException(String.format(
+                    "Token %d has more than one head: %d, %d",
+                    dependent,
+                    previous,
+                    head
+                ));
+            }
+            this.maxNode = Math.max(this.maxNode, Math.max(head, dependent));
+            return this;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > this.heads.length) {
+                int oldLength = this.heads.length;
+                int newLength = Math.max(capacity, oldLength * 2);
+                this.heads = Arrays.copyOf(this.heads, newLength);
+                this.punct = Arrays.copyOf(this.punct, newLength);
+                Arrays.fill(this.heads, oldLength, newLength, NO_HEAD);
+            }
+        }
+
+        public CompactDependencyTree build() {
+            int length = this.maxNode + 1;
+            return new CompactDependencyTree(Arrays.copyOf(this.heads, length), Arrays.copyOf(this.punct, length));
+        }
+    }
+}
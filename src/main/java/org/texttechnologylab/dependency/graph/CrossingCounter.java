@@ -0,0 +1,123 @@
+package org.texttechnologylab.dependency.graph;
+
+import java.util.Arrays;
+
+/**
+ * Counts crossing edges of a dependency tree in {@code O(n log n)} using two sweeps with a Fenwick tree.
+ * <p>
+ * Only regular (non-punctuation) edges that do not start at the root node 0 are considered. Each such edge is
+ * identified by its dependent and spans the open interval between its two endpoints. Two edges cross if they
+ * share no endpoint and exactly one endpoint of one edge lies strictly inside the interval of the other, i.e.
+ * {@code l1 < l2 < r1 < r2}.
+ */
+public class CrossingCounter {
+
+    /**
+     * Counts the number of crossings of each edge.
+     *
+     * @param tree The dependency tree.
+     * @return An array indexed by the dependent of each edge, holding the number of edges that cross it.
+     * Positions that are not the dependent of a counted edge hold 0.
+     */
+    public static int[] countCrossingsPerEdge(final CompactDependencyTree tree) {
+        final int length = tree.length();
+        final int[] crossings = new int[length];
+        if (length < 4) return crossings;
+
+        // Bucket the edges by their left and their right endpoint
+        final int[] leftOffsets = new int[length + 1];
+        final int[] rightOffsets = new int[length + 1];
+        int edges = 0;
+        for (int node = 1; node < length; node++) {
+            if (!isCounted(tree, node)) continue;
+            int head = tree.getHead(node);
+            leftOffsets[Math.min(head, node) + 1]++;
+            rightOffsets[Math.max(head, node) + 1]++;
+            edges++;
+        }
+        if (edges < 2) return crossings;
+        for (int position = 0; position < length; position++) {
+            leftOffsets[position + 1] += leftOffsets[position];
+            rightOffsets[position + 1] += rightOffsets[position];
+        }
+        final int[] byLeft = new int[edges];
+        final int[] byRight = new int[edges];
+        final int[] leftFill = leftOffsets.clone();
+        final int[] rightFill = rightOffsets.clone();
+        for (int node = 1; node < length; node++) {
+            if (!isCounted(tree, node)) continue;
+            int head = tree.getHead(node);
+            byLeft[leftFill[Math.min(head, node)]++] = node;
+            byRight[rightFill[Math.max(head, node)]++] = node;
+        }
+
+        // Sweep from left to right: count edges that start before and end inside each edge
+        final int[] fenwick = new int[length + 1];
+        for (int position = 0; position < length; position++) {
+            for (int i = leftOffsets[position]; i < leftOffsets[position + 1]; i++) {
+                int node = byLeft[i];
+                int right = Math.max(tree.getHead(node), node);
+                crossings[node] += prefixSum(fenwick, right - 1) - prefixSum(fenwick, position);
+            }
+            for (int i = leftOffsets[position]; i < leftOffsets[position + 1]; i++) {
+                int node = byLeft[i];
+                add(fenwick, Math.max(tree.getHead(node), node));
+            }
+        }
+
+        // Sweep from right to left: count edges that start inside and end after each edge
+        Arrays.fill(fenwick, 0);
+        for (int position = length - 1; position >= 0; position--) {
+            for (int i = rightOffsets[position]; i < rightOffsets[position + 1]; i++) {
+                int node = byRight[i];
+                int left = Math.min(tree.getHead(node), node);
+                crossings[node] += prefixSum(fenwick, position - 1) - prefixSum(fenwick, left);
+            }
+            for (int i = rightOffsets[position]; i < rightOffsets[position + 1]; i++) {
+                int node = byRight[i];
+                add(fenwick, Math.min(tree.getHead(node), node));
+            }
+        }
+
+        return crossings;
+    }
+
+    /**
+     * Counts the number of pairs of crossing edges.
+     *
+     * @param tree The dependency tree.
+     * @return The number of crossings in the dependency tree.
+     */
+    public static int countCrossings(final CompactDependencyTree tree) {
+        long sum = 0;
+        for (int count : countCrossingsPerEdge(tree)) {
+            sum += count;
+        }
+        // Every crossing is counted once for each of the two edges involved
+        return (int) (sum / 2);
+    }
+
+    private static boolean isCounted(final CompactDependencyTree tree, int node) {
+        return tree.getHead(node) > 0 && !tree.isPunct(node);
+    }
+
+    /**
+     * Adds one at the given position of the Fenwick tree.
+     */
+    private static void add(final int[] fenwick, int position) {
+        for (int i = position + 1; i < fenwick.length; i += i & -i) {
+            fenwick[i]++;
+        }
+    }
+
+    /**
+     * @return The sum of the Fenwick tree over the positions {@code 0..position}, or 0 for negative positions.
+     */
+    private static int prefixSum(final int[] fenwick, int position) {
+        int sum = 0;
+        for (int i = position + 1; i > 0; i -= i & -i) {
+            sum += fenwick[i];
+        }
+        return sum;
+    }
+}
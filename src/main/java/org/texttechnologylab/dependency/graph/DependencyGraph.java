@@ -1,35 +1,71 @@
 package org.texttechnologylab.dependency.graph;
 
-import java.io.IOException;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.apache.commons.text.similarity.LevenshteinDistance;
 
-import com.google.common.collect.Range;
-import com.google.common.graph.EndpointPair;
 import com.google.common.graph.ImmutableGraph;
 import com.google.common.graph.Traverser;
 import org.jetbrains.annotations.NotNull;
-import org.texttechnologylab.dependency.graph.random.RandomTree;
-import org.texttechnologylab.dependency.graph.zs.Tree;
+import org.texttechnologylab.dependency.graph.random.RandomTreeSampler;
+import org.texttechnologylab.dependency.graph.ted.PostorderTree;
+import org.texttechnologylab.dependency.graph.ted.TreeEditDistance;
+import org.texttechnologylab.dependency.graph.ted.ZhangShashaTreeEditDistance;
 
 public class DependencyGraph {
 
     private static final LevenshteinDistance LEVENSHTEIN_DISTANCE = new LevenshteinDistance();
-    public final ImmutableGraph<Integer> dependencyGraph;
-    public final ImmutableGraph<Integer> dependencyGraphWithPunct;
+    public static final TreeEditDistance DEFAULT_TREE_EDIT_DISTANCE = new ZhangShashaTreeEditDistance();
+    private final CompactDependencyTree tree;
+
+    public DependencyGraph(CompactDependencyTree tree) throws InvalidDependencyGraphException {
+        if (tree.getOutDegreeWithPunct(0) < 1) {
+            throw new InvalidDependencyGraphException("Dependency graph is empty!");
+        }
+
+        this.tree = tree;
+    }
 
     public DependencyGraph(
         ImmutableGraph<Integer> dependencyGraph, ImmutableGraph<Integer> dependencyGraphWithPunct
     ) throws InvalidDependencyGraphException {
-        if (dependencyGraph.outDegree(0) < 0) {
-            throw new InvalidDependencyGraphException("Dependency graph is empty!");
-        }
+        this(CompactDependencyTree.fromGraphs(dependencyGraph, dependencyGraphWithPunct));
+    }
+
+    public CompactDependencyTree getTree() {
+        return this.tree;
+    }
 
-        this.dependencyGraph = dependencyGraph;
-        this.dependencyGraphWithPunct = dependencyGraphWithPunct;
+    /**
+     * Builds the dependency graph without punctuation as a Guava graph.
+     * Only intended for callers that still depend on the graph API.
+     *
+     * @return The dependency graph without punctuation.
+     */
+    public ImmutableGraph<Integer> getDependencyGraph() {
+        return this.tree.toImmutableGraph(false);
+    }
+
+    /**
+     * Builds the dependency graph including punctuation as a Guava graph.
+     * Only intended for callers that still depend on the graph API.
+     *
+     * @return The dependency graph including punctuation.
+     */
+    public ImmutableGraph<Integer> getDependencyGraphWithPunct() {
+        return this.tree.toImmutableGraph(true);
+    }
+
+    /**
+     * Computes all structural metrics of the dependency graph in a few linear passes.
+     * Prefer this over calling the individual metric methods one after another.
+     *
+     * @return The fused metrics of this dependency graph.
+     * @see DependencyMetrics
+     */
+    public DependencyMetrics computeMetrics() {
+        return new DependencyMetrics(this.tree);
     }
 
     /**
@@ -39,7 +75,7 @@ public class DependencyGraph {
      * @return Length of the sentence without punctuation marks.
      */
     public int getSentenceLength() {
-        return this.dependencyGraph.edges().size();
+        return this.tree.getNumberOfEdges();
     }
 
     /**
@@ -49,7 +85,7 @@ public class DependencyGraph {
      * @return Length of the sentence without the root node.
      */
     public int getNumberOfSyntacticLinks() {
-        return this.dependencyGraph.edges().size() - 1;
+        return this.tree.getNumberOfEdges() - 1;
     }
 
     /**
@@ -59,7 +95,11 @@ public class DependencyGraph {
      * @return The word index of the root node in the sentence.
      */
     public int rootDistance() {
-        return this.dependencyGraph.successors(0).stream().findFirst().get();
+        for (int offset = this.tree.getChildrenStart(0); offset < this.tree.getChildrenEnd(0); offset++) {
+            int child = this.tree.getChild(offset);
+            if (!this.tree.isPunct(child)) return child;
+        }
+        throw new NoSuchElementException("Dependency graph has no root node");
     }
 
     /**
@@ -69,15 +109,14 @@ public class DependencyGraph {
      * @return A list of the distances between the nodes in the dependency graph.
      */
     public ArrayList<Integer> getDependencyDistances() {
-        return this.dependencyGraph
-            .edges()
-            .stream()
-            .filter(edge -> edge.source() > 0)
-            .sorted(Comparator.comparingInt(EndpointPair::target))
-            .map(edge -> {
-                return Math.abs(edge.source() - edge.target());
-            })
-            .collect(Collectors.toCollection(ArrayList<Integer>::new));
+        ArrayList<Integer> distances = new ArrayList<>(this.tree.getNumberOfEdges());
+        for (int node = 1; node < this.tree.length(); node++) {
+            int head = this.tree.getHead(node);
+            if (head > 0 && !this.tree.isPunct(node)) {
+                distances.add(Math.abs(head - node));
+            }
+        }
+        return distances;
     }
 
     /**
@@ -87,9 +126,14 @@ public class DependencyGraph {
      * @return The sum of the distances between the nodes in the dependency graph.
      */
     public int getDependencyDistanceSum() {
-        return this.dependencyGraph.edges().stream().filter(edge -> edge.source() > 0).map(edge -> {
-            return Math.abs(edge.source() - edge.target());
-        }).reduce(0, (a, b) -> a + b);
+        int sum = 0;
+        for (int node = 1; node < this.tree.length(); node++) {
+            int head = this.tree.getHead(node);
+            if (head > 0 && !this.tree.isPunct(node)) {
+                sum += Math.abs(head - node);
+            }
+        }
+        return sum;
     }
 
     /**
@@ -123,40 +167,22 @@ public class DependencyGraph {
      * Calculates the number of crossing edges in the dependency graph.
      *
      * @return The number of crossing edges in the dependency graph.
-     * @see #getNumberOfCrossings(EndpointPair)
-     * getNumberOfCrossings(EndpointPair), which is used to calculate the
-     * number of crossings of a single edge.
+     * @see CrossingCounter#countCrossings(CompactDependencyTree)
      */
     public int crossings() {
-        return (this.dependencyGraph
-            .edges()
-            .stream()
-            .filter(edge -> edge.source() > 0)
-            .map(edge -> this.getNumberOfCrossings(edge))
-            .reduce(0, (a, b) -> a + b) / 2);
+        return CrossingCounter.countCrossings(this.tree);
     }
 
     /**
-     * Calculates the number of crossings of a single edge in this dependency graph.
+     * Calculates the number of crossings of every edge in this dependency graph.
      * Two edges are considered to cross one edges starts within the range of the
      * and ends outside the range of the other edge.
      *
-     * @param u The edge for which the number of crossings is calculated.
-     * @return The number of crossings of the edge u.
+     * @return The number of crossings of each edge, indexed by the dependent of the edge.
+     * @see CrossingCounter#countCrossingsPerEdge(CompactDependencyTree)
      */
-    private Integer getNumberOfCrossings(EndpointPair<Integer> u) {
-        final Range<Integer> uRange = openRangeFromEdge(u);
-        return (int) this.dependencyGraph
-            .edges()
-            .stream()
-            .filter(edge -> edge.source() > 0)
-            .filter(v -> u.source() != v.source() && u.source() != v.target() && u.target() != v.target() && u.target() != v.source() && uRange.contains(
-                v.source()) != uRange.contains(v.target()))
-            .count();
-    }
-
-    private static Range<Integer> openRangeFromEdge(EndpointPair<Integer> u) {
-        return Range.open(Math.min(u.source(), u.target()), Math.max(u.source(), u.target()));
+    public int[] getCrossingsPerEdge() {
+        return CrossingCounter.countCrossingsPerEdge(this.tree);
     }
 
     /**
@@ -167,7 +193,7 @@ public class DependencyGraph {
      * @return The length of the longest dependency path in the dependency graph
      * from the root node.
      * @see #longestPath()
-     * @see #calcLongestPath(Integer)
+     * @see #calcLongestPath(int)
      */
     public int dependencyHeight() {
         return this.calcLongestPath(0);
@@ -181,7 +207,7 @@ public class DependencyGraph {
      * @return The length of the longest dependency path in the dependency graph
      * from the root node.
      * @see #dependencyHeight()
-     * @see #calcLongestPath(Integer)
+     * @see #calcLongestPath(int)
      */
     public int longestPath() {
         return this.calcLongestPath(0);
@@ -194,13 +220,14 @@ public class DependencyGraph {
      * @param node The starting node of the longest dependency path.
      * @return The length of the longest dependency path from the given node.
      */
-    private int calcLongestPath(Integer node) {
-        return this.dependencyGraph
-            .successors(node)
-            .stream()
-            .map(successor -> Math.abs(node - successor) + this.calcLongestPath(successor))
-            .max(Comparator.naturalOrder())
-            .orElse(0);
+    private int calcLongestPath(int node) {
+        int longest = 0;
+        for (int offset = this.tree.getChildrenStart(node); offset < this.tree.getChildrenEnd(node); offset++) {
+            int child = this.tree.getChild(offset);
+            if (this.tree.isPunct(child)) continue;
+            longest = Math.max(longest, Math.abs(node - child) + this.calcLongestPath(child));
+        }
+        return longest;
     }
 
     /**
@@ -211,10 +238,10 @@ public class DependencyGraph {
      *
      * @return The mean dependency depth.
      * @see #depthVariance()
-     * @see #streamDependencyDepthFrom(Integer, Integer)
+     * @see #collectDependencyDepths()
      */
     public double depthMean() {
-        return this.streamDependencyDepthFrom(0, 0).mapToDouble(Double::valueOf).average().getAsDouble();
+        return mean(this.collectDependencyDepths());
     }
 
     /**
@@ -223,17 +250,10 @@ public class DependencyGraph {
      *
      * @return The variance of the dependency depths.
      * @see #depthMean()
-     * @see #streamDependencyDepthFrom(Integer, Integer)
+     * @see #collectDependencyDepths()
      */
     public double depthVariance() {
-        List<Integer> depths = this.streamDependencyDepthFrom(0, 0).collect(Collectors.toList());
-        double mean = depths.stream().mapToDouble(Double::valueOf).average().getAsDouble();
-        return depths
-            .stream()
-            .map(depth -> Math.pow(depth - mean, 2))
-            .mapToDouble(Double::valueOf)
-            .average()
-            .getAsDouble();
+        return variance(this.collectDependencyDepths());
     }
 
     /**
@@ -242,37 +262,47 @@ public class DependencyGraph {
      * This is equal to the maximum dependency depth plus one.
      *
      * @return The height of the dependency tree.
-     * @see #streamDependencyDepthFrom(Integer, Integer)
+     * @see #collectDependencyDepths()
      */
     public int treeHeight() {
-        return this.streamDependencyDepthFrom(0, 1).max(Comparator.naturalOrder()).get();
+        int[] depths = this.collectDependencyDepths();
+        if (depths.length == 0) {
+            throw new NoSuchElementException("Dependency graph has no nodes");
+        }
+        int max = 0;
+        for (int depth : depths) {
+            max = Math.max(max, depth);
+        }
+        return max + 1;
     }
 
     /**
-     * Recursively streams the dependency depths of all nodes in the dependency
-     * graph starting from the given node.
+     * Collects the dependency depths of all nodes reachable from the root node 0
+     * in depth-first pre-order, where the root of the sentence has depth 0.
      *
-     * @param node  The starting node.
-     * @param depth The depth of the given node.
-     * @return A stream of the dependency depths of all nodes in the dependency
-     * graph starting from the given node.
+     * @return The dependency depths of all nodes in the dependency graph.
      */
-    private Stream<Integer> streamDependencyDepthFrom(
-        Integer node, Integer depth
-    ) {
-        return this.dependencyGraph
-            .successors(node)
-            .stream()
-            .flatMap(successor -> Stream.concat(Stream.of(depth),
-                                                this.streamDependencyDepthFrom(successor, depth + 1)
-            ));
+    private int[] collectDependencyDepths() {
+        int[] depths = new int[this.tree.getNumberOfEdges()];
+        int count = this.collectDependencyDepthsFrom(0, 0, depths, 0);
+        return count == depths.length ? depths : Arrays.copyOf(depths, count);
+    }
+
+    private int collectDependencyDepthsFrom(int node, int depth, int[] depths, int count) {
+        for (int offset = this.tree.getChildrenStart(node); offset < this.tree.getChildrenEnd(node); offset++) {
+            int child = this.tree.getChild(offset);
+            if (this.tree.isPunct(child)) continue;
+            depths[count++] = depth;
+            count = this.collectDependencyDepthsFrom(child, depth + 1, depths, count);
+        }
+        return count;
     }
 
     /**
      * Calculates the number of leaves in the dependency graph.
      *
      * @return The number of leaves in the dependency graph.
-     * @see #recurseLeaves(Integer)
+     * @see #recurseLeaves(int)
      */
     public int leaves() {
         return this.recurseLeaves(0);
@@ -286,14 +316,14 @@ public class DependencyGraph {
      * @return The number of leaves in the dependency graph starting from the given
      * node.
      */
-    private int recurseLeaves(Integer node) {
-        return this.dependencyGraph
-            .successors(node)
-            .stream()
-            .flatMap(successor -> this.dependencyGraph
-                .successors(successor)
-                .isEmpty() ? Stream.of(1) : Stream.of(this.recurseLeaves(successor)))
-            .reduce(0, (a, b) -> a + b);
+    private int recurseLeaves(int node) {
+        int leaves = 0;
+        for (int offset = this.tree.getChildrenStart(node); offset < this.tree.getChildrenEnd(node); offset++) {
+            int child = this.tree.getChild(offset);
+            if (this.tree.isPunct(child)) continue;
+            leaves += this.tree.getOutDegree(child) == 0 ? 1 : this.recurseLeaves(child);
+        }
+        return leaves;
     }
 
     /**
@@ -301,10 +331,18 @@ public class DependencyGraph {
      * nodes in the dependency graph, excluding the root node.
      *
      * @return The tree degree.
-     * @see #streamNodeDegree()
+     * @see #collectNodeDegrees()
      */
     public int treeDegree() {
-        return streamNodeDegree().skip(1).max(Comparator.naturalOrder()).get();
+        int[] degrees = this.collectNodeDegrees();
+        if (degrees.length == 0) {
+            throw new NoSuchElementException("Dependency graph has no nodes");
+        }
+        int max = 0;
+        for (int degree : degrees) {
+            max = Math.max(max, degree);
+        }
+        return max;
     }
 
     /**
@@ -313,10 +351,10 @@ public class DependencyGraph {
      *
      * @return The mean tree degree.
      * @see #treeDegreeVariance()
-     * @see #streamNodeDegree()
+     * @see #collectNodeDegrees()
      */
     public double treeDegreeMean() {
-        return streamNodeDegree().skip(1).mapToDouble(Double::valueOf).average().getAsDouble();
+        return mean(this.collectNodeDegrees());
     }
 
     /**
@@ -325,26 +363,47 @@ public class DependencyGraph {
      *
      * @return The variance of the degrees of all nodes in the dependency graph.
      * @see #treeDegreeMean()
-     * @see #streamNodeDegree()
+     * @see #collectNodeDegrees()
      */
     public double treeDegreeVariance() {
-        List<Integer> degrees = streamNodeDegree().skip(1).collect(Collectors.toList());
-        double mean = degrees.stream().mapToDouble(Double::valueOf).average().getAsDouble();
-        return degrees
-            .stream()
-            .map(degree -> Math.pow(degree - mean, 2))
-            .mapToDouble(Double::valueOf)
-            .average()
-            .getAsDouble();
+        return variance(this.collectNodeDegrees());
     }
 
     /**
-     * Streams the degrees of all nodes in the dependency graph.
+     * Collects the degrees of all nodes in the dependency graph, excluding the root node.
      *
-     * @return A stream of the degrees of all nodes in the dependency graph.
+     * @return The degrees of all nodes in the dependency graph.
      */
-    private Stream<Integer> streamNodeDegree() {
-        return this.dependencyGraph.nodes().stream().map(node -> this.dependencyGraph.outDegree(node));
+    private int[] collectNodeDegrees() {
+        int[] degrees = new int[this.tree.length()];
+        int count = 0;
+        for (int node = 1; node < this.tree.length(); node++) {
+            int degree = this.tree.getOutDegree(node);
+            if (degree > 0 || this.tree.isAttached(node)) {
+                degrees[count++] = degree;
+            }
+        }
+        return Arrays.copyOf(degrees, count);
+    }
+
+    private static double mean(int[] values) {
+        if (values.length == 0) {
+            throw new NoSuchElementException("Cannot calculate the mean of an empty sequence");
+        }
+        long sum = 0;
+        for (int value : values) {
+            sum += value;
+        }
+        return sum / (double) values.length;
+    }
+
+    private static double variance(int[] values) {
+        double mean = mean(values);
+        double sum = 0.;
+        for (int value : values) {
+            sum += (value - mean) * (value - mean);
+        }
+        return sum / values.length;
     }
 
     /**
@@ -354,19 +413,26 @@ public class DependencyGraph {
      * @return The head-final ratio.
      */
     public double headFinalRatio() {
-        return this.dependencyGraph
-            .nodes()
-            .stream()
-            .skip(1)
-            .map(head -> this.dependencyGraph
-                .successors(head)
-                .stream()
-                .mapToDouble(dependent -> head > dependent ? 1. : 0.)
-                .average())
-            .filter(OptionalDouble::isPresent)
-            .mapToDouble(OptionalDouble::getAsDouble)
-            .average()
-            .getAsDouble();
+        double sum = 0.;
+        int heads = 0;
+        for (int head = 1; head < this.tree.length(); head++) {
+            int dependents = 0;
+            int headFinal = 0;
+            for (int offset = this.tree.getChildrenStart(head); offset < this.tree.getChildrenEnd(head); offset++) {
+                int dependent = this.tree.getChild(offset);
+                if (this.tree.isPunct(dependent)) continue;
+                dependents++;
+                if (head > dependent) headFinal++;
+            }
+            if (dependents > 0) {
+                sum += headFinal / (double) dependents;
+                heads++;
+            }
+        }
+        if (heads == 0) {
+            throw new NoSuchElementException("Dependency graph has no head with dependents");
+        }
+        return sum / heads;
     }
 
     /**
@@ -378,31 +444,36 @@ public class DependencyGraph {
      * @return The head-final distance.
      */
     public int headFinalDistance() {
-        ImmutableGraph<Integer> graph = this.dependencyGraphWithPunct;
-
-        Integer rootNode = getRootNode(graph);
-
-        final ArrayList<Integer> traversalOrder = getTraversalOrder(graph, rootNode);
+        final int[] traversalOrder = getTraversalOrder(this.tree, getRootNode(this.tree));
 
         // Sort to obtain regular word order in sentence
-        final ArrayList<Integer> wordOrder = new ArrayList<>(traversalOrder);
-        wordOrder.sort(Comparator.naturalOrder());
+        final int[] wordOrder = traversalOrder.clone();
+        Arrays.sort(wordOrder);
 
         // Render node IDs as characters to obtain String representations of the orders
-        char[] originalCharacters = new char[wordOrder.size()];
-        char[] traversalCharacters = new char[traversalOrder.size()];
-        for (int i = 0; i < traversalOrder.size(); i++) {
-            originalCharacters[i] = (char) wordOrder.get(i).intValue();
-            traversalCharacters[i] = (char) traversalOrder.get(i).intValue();
+        char[] originalCharacters = new char[wordOrder.length];
+        char[] traversalCharacters = new char[traversalOrder.length];
+        for (int i = 0; i < traversalOrder.length; i++) {
+            originalCharacters[i] = (char) wordOrder[i];
+            traversalCharacters[i] = (char) traversalOrder[i];
         }
 
         // Calculate the Levenshtein (edit) distance between the orders
         return LEVENSHTEIN_DISTANCE.apply(new String(originalCharacters), new String(traversalCharacters));
     }
 
-    @NotNull
-    private Integer getRootNode() {
-        return getRootNode(this.dependencyGraphWithPunct);
+    /**
+     * @return The first regular child of the root node 0, or its first punctuation child if there is none.
+     */
+    public static int getRootNode(CompactDependencyTree tree) {
+        if (tree.getOutDegreeWithPunct(0) == 0) {
+            throw new NoSuchElementException("Dependency graph has no root node");
+        }
+        for (int offset = tree.getChildrenStart(0); offset < tree.getChildrenEnd(0); offset++) {
+            int child = tree.getChild(offset);
+            if (!tree.isPunct(child)) return child;
+        }
+        return tree.getChild(tree.getChildrenStart(0));
     }
 
     @NotNull
@@ -428,46 +499,103 @@ public class DependencyGraph {
         return traversalOrder;
     }
 
+    /**
+     * Traverse the dependency tree including punctuation in depth-first pre-order starting from the given node,
+     * and collect the order of the nodes. The regular dependents of a node are visited before its punctuation
+     * dependents, each in word order.
+     */
+    public static int[] getTraversalOrder(final CompactDependencyTree tree, int rootNode) {
+        int[] traversalOrder = new int[tree.length()];
+        int[] stack = new int[tree.length()];
+        int count = 0;
+        int top = 0;
+        stack[top++] = rootNode;
+        while (top > 0) {
+            int node = stack[--top];
+            traversalOrder[count++] = node;
+            // Push children in reverse, so they are popped in the order they are visited
+            for (int offset = tree.getChildrenEnd(node) - 1; offset >= tree.getChildrenStart(node); offset--) {
+                int child = tree.getChild(offset);
+                if (tree.isPunct(child)) stack[top++] = child;
+            }
+            for (int offset = tree.getChildrenEnd(node) - 1; offset >= tree.getChildrenStart(node); offset--) {
+                int child = tree.getChild(offset);
+                if (!tree.isPunct(child)) stack[top++] = child;
+            }
+        }
+        return Arrays.copyOf(traversalOrder, count);
+    }
+
     public int randomTreeDistance() throws InvalidDependencyGraphException {
-        try {
-            String treeString = this.graphToZsStringRepresentation();
-            Tree zsTree = new Tree(treeString);
-            int treeSize = this.dependencyGraph.nodes().size() - 1;
-            int maxTries = 16;
-            for (int i = 0; i < maxTries; i++) {
-                try {
-                    String randomTreeString = DependencyGraphStringifier.graphToZsStringRepresentation(RandomTree.getRandomGraph(
-                        treeSize));
-                    try {
-                        Tree zsRandomTree = new Tree(randomTreeString);
-                        try {
-                            return Tree.ZhangShasha(zsTree, zsRandomTree);
-                        } catch (Exception e) {
-                            throw new RuntimeException(String.format("Failed to compare trees:\n%s\n%s",
-                                                                     treeString,
-                                                                     randomTreeString
-                            ), e);
-                        }
-                    } catch (Exception e) {
-                        throw new RuntimeException("Failed to stringfy random tree", e);
-                    }
-                } catch (Exception e) {
-                    // Ignore any exception here...
-                    throw new RuntimeException("Failed to generate random tree", e);
-                }
+        return randomTreeDistance(DEFAULT_TREE_EDIT_DISTANCE);
+    }
+
+    /**
+     * @param treeEditDistance The tree edit distance implementation to compare the trees with.
+     * @return The tree edit distance between this dependency tree without punctuation and a random tree of the
+     * same size.
+     */
+    public int randomTreeDistance(TreeEditDistance treeEditDistance) throws InvalidDependencyGraphException {
+        return randomTreeDistance(1, new RandomTreeSampler(ThreadLocalRandom.current()), treeEditDistance).first;
+    }
+
+    /**
+     * Compares this dependency tree without punctuation with {@code samples} random trees of the same size. The
+     * tree of this graph is built once, the random trees are drawn from the given sampler and the statistics are
+     * accumulated on the fly, so no distances are kept.
+     *
+     * @param samples          The number of random trees, must be positive.
+     * @param sampler          The sampler to draw the random trees from.
+     * @param treeEditDistance The tree edit distance implementation to compare the trees with.
+     * @return The minimum, maximum, mean and (population) variance of the distances, and the distance to the first
+     * random tree.
+     */
+    public RandomTreeDistance randomTreeDistance(
+        int samples,
+        RandomTreeSampler sampler,
+        TreeEditDistance treeEditDistance
+    ) throws InvalidDependencyGraphException {
+        if (samples < 1) {
+            throw new IllegalArgumentException(String.format("Number of random tree samples must be positive, but is %d", samples));
+        }
+        PostorderTree zsTree = PostorderTree.fromDependencyTree(this.tree);
+        int treeSize = this.tree.getNumberOfNodes() - 1;
+
+        int first = 0;
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        double mean = 0.;
+        double squares = 0.;
+        for (int sample = 0; sample < samples; sample++) {
+            PostorderTree zsRandomTree;
+            try {
+                zsRandomTree = sampler.sample(treeSize);
+            } catch (Exception e) {
+                throw new RuntimeException("Failed to generate random tree", e);
             }
-            String message = String.format("Failed to generate a valid random tree of length %d in %d tries!",
-                                           treeSize,
-                                           maxTries
-            );
-            throw new RuntimeException(message);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+            int distance;
+            try {
+                distance = treeEditDistance.distance(zsTree, zsRandomTree);
+            } catch (Exception e) {
+                throw new RuntimeException(String.format("Failed to compare trees:\n%s\nwith random tree of length %d",
+                                                         this.graphToZsStringRepresentation(),
+                                                         treeSize
+                ), e);
+            }
+
+            // Welford's online algorithm for mean and variance
+            if (sample == 0) first = distance;
+            min = Math.min(min, distance);
+            max = Math.max(max, distance);
+            double delta = distance - mean;
+            mean += delta / (sample + 1);
+            squares += delta * (distance - mean);
         }
+        return new RandomTreeDistance(samples, first, min, max, mean, squares / samples);
     }
 
     private String graphToZsStringRepresentation() {
-        return DependencyGraphStringifier.graphToZsStringRepresentation(this.dependencyGraph);
+        return DependencyGraphStringifier.treeToZsStringRepresentation(this.tree);
     }
 
 }
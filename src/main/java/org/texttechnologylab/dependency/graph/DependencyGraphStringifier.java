@@ -26,4 +26,36 @@ public class DependencyGraphStringifier {
             }
         }).collect(Collectors.joining(" "));
     }
+
+    /**
+     * Renders the dependency tree without punctuation in the same notation as
+     * {@link #graphToZsStringRepresentation(ImmutableGraph)}.
+     */
+    public static String treeToZsStringRepresentation(
+        final CompactDependencyTree tree
+    ) {
+        StringBuilder builder = new StringBuilder(tree.length() * 8);
+        appendZsStringRepresentation(tree, 0, builder);
+        return builder.toString();
+    }
+
+    private static void appendZsStringRepresentation(
+        final CompactDependencyTree tree, int rootNode, StringBuilder builder
+    ) {
+        boolean first = true;
+        for (int offset = tree.getChildrenStart(rootNode); offset < tree.getChildrenEnd(rootNode); offset++) {
+            int node = tree.getChild(offset);
+            if (tree.isPunct(node)) continue;
+
+            if (!first) builder.append(' ');
+            first = false;
+
+            builder.append("node").append(node);
+            if (tree.getOutDegree(node) > 0) {
+                builder.append('(');
+                appendZsStringRepresentation(tree, node, builder);
+                builder.append(')');
+            }
+        }
+    }
 }
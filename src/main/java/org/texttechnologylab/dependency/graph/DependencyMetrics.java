@@ -0,0 +1,154 @@
+package org.texttechnologylab.dependency.graph;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Fused computation of the structural metrics of a dependency tree.
+ * <p>
+ * Instead of re-traversing the tree once per metric, as the individual methods of {@link DependencyGraph} do,
+ * all metrics are gathered in one scan over the head array, one depth-first traversal from the root node and
+ * one final scan over the collected per-node values. The results are the same as those of the corresponding
+ * {@link DependencyGraph} methods.
+ *
+ * @see DependencyGraph#computeMetrics()
+ */
+public class DependencyMetrics {
+
+    public final int[] dependencyDistances;
+    public final int dependencyDistanceSum;
+    public final int sentenceLength;
+    public final int numberOfSyntacticLinks;
+    public final int rootDistance;
+    public final int dependencyHeight;
+    public final double mdd;
+    public final double ndd;
+    public final int treeHeight;
+    public final double depthMean;
+    public final double depthVariance;
+    public final int leaves;
+    public final int treeDegree;
+    public final double treeDegreeMean;
+    public final double treeDegreeVariance;
+    /**
+     * {@link Double#NaN} if no node has dependents, where {@link DependencyGraph#headFinalRatio()} fails.
+     */
+    public final double headFinalRatio;
+
+    /**
+     * Computes all metrics for the dependency graph without punctuation of the given tree.
+     *
+     * @param tree The dependency tree.
+     * @throws NoSuchElementException If the tree has no root node, i.e. in the same cases where the individual
+     *                                {@link DependencyGraph} methods fail.
+     */
+    public DependencyMetrics(CompactDependencyTree tree) {
+        final int length = tree.length();
+
+        // Pass 1: scan the head array for distances, degrees and head-direction counts
+        final int[] outDegree = new int[length];
+        final int[] headFinal = new int[length];
+        final int[] distances = new int[tree.getNumberOfEdges()];
+        int distanceCount = 0;
+        int distanceSum = 0;
+        int rootDistance = -1;
+        for (int node = 1; node < length; node++) {
+            if (!tree.isAttached(node)) continue;
+
+            int head = tree.getHead(node);
+            outDegree[head]++;
+            if (head == 0) {
+                if (rootDistance < 0) rootDistance = node;
+            } else {
+                int distance = Math.abs(head - node);
+                distances[distanceCount++] = distance;
+                distanceSum += distance;
+                if (head > node) headFinal[head]++;
+            }
+        }
+        if (rootDistance < 0) {
+            throw new NoSuchElementException("Dependency graph has no root node");
+        }
+
+        // Pass 2: depth-first traversal from the root node for depths and weighted path lengths
+        final int[] depth = new int[length];
+        final int[] pathLength = new int[length];
+        final int[] stack = new int[length];
+        int top = 0;
+        stack[top++] = 0;
+        // Nodes that are not reachable from the root node keep a negative depth
+        Arrays.fill(depth, -1);
+
+        int reachable = 0;
+        long depthSum = 0;
+        int maxDepth = -1;
+        int maxPathLength = 0;
+        int leaves = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (node != 0) {
+                reachable++;
+                depthSum += depth[node];
+                maxDepth = Math.max(maxDepth, depth[node]);
+                maxPathLength = Math.max(maxPathLength, pathLength[node]);
+                if (outDegree[node] == 0) leaves++;
+            }
+            for (int offset = tree.getChildrenStart(node); offset < tree.getChildrenEnd(node); offset++) {
+                int child = tree.getChild(offset);
+                if (tree.isPunct(child)) continue;
+                depth[child] = depth[node] + 1;
+                pathLength[child] = pathLength[node] + Math.abs(node - child);
+                stack[top++] = child;
+            }
+        }
+
+        // Pass 3: aggregate the per-node values
+        final double depthMean = depthSum / (double) reachable;
+        double depthSquares = 0.;
+        int degreeCount = 0;
+        long degreeSum = 0;
+        int maxDegree = 0;
+        double headFinalSum = 0.;
+        int heads = 0;
+        for (int node = 1; node < length; node++) {
+            int degree = outDegree[node];
+            if (depth[node] >= 0) {
+                depthSquares += (depth[node] - depthMean) * (depth[node] - depthMean);
+            }
+            if (degree > 0 || tree.isAttached(node)) {
+                degreeCount++;
+                degreeSum += degree;
+                maxDegree = Math.max(maxDegree, degree);
+            }
+            if (degree > 0) {
+                headFinalSum += headFinal[node] / (double) degree;
+                heads++;
+            }
+        }
+        final double degreeMean = degreeSum / (double) degreeCount;
+        double degreeSquares = 0.;
+        for (int node = 1; node < length; node++) {
+            int degree = outDegree[node];
+            if (degree > 0 || tree.isAttached(node)) {
+                degreeSquares += (degree - degreeMean) * (degree - degreeMean);
+            }
+        }
+
+        this.dependencyDistances = distanceCount == distances.length ? distances : Arrays.copyOf(distances, distanceCount);
+        this.dependencyDistanceSum = distanceSum;
+        this.sentenceLength = tree.getNumberOfEdges();
+        this.numberOfSyntacticLinks = this.sentenceLength - 1;
+        this.rootDistance = rootDistance;
+        this.dependencyHeight = maxPathLength;
+        this.mdd = distanceSum / (double) this.numberOfSyntacticLinks;
+        this.ndd = Math.abs(Math.log(this.mdd / Math.sqrt(rootDistance * this.sentenceLength)));
+        this.treeHeight = maxDepth + 1;
+        this.depthMean = depthMean;
+        this.depthVariance = depthSquares / reachable;
+        this.leaves = leaves;
+        this.treeDegree = maxDegree;
+        this.treeDegreeMean = degreeMean;
+        this.treeDegreeVariance = degreeSquares / degreeCount;
+        this.headFinalRatio = heads > 0 ? headFinalSum / heads : Double.NaN;
+    }
+}
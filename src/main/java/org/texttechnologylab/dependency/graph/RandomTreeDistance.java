@@ -0,0 +1,26 @@
+package org.texttechnologylab.dependency.graph;
+
+/**
+ * Summary of the tree edit distances between a dependency tree and a number of random trees of the same size.
+ *
+ * @see DependencyGraph#randomTreeDistance(int, org.texttechnologylab.dependency.graph.random.RandomTreeSampler,
+ * org.texttechnologylab.dependency.graph.ted.TreeEditDistance)
+ */
+public class RandomTreeDistance {
+
+    public final int samples;
+    public final int first;
+    public final int min;
+    public final int max;
+    public final double mean;
+    public final double variance;
+
+    public RandomTreeDistance(int samples, int first, int min, int max, double mean, double variance) {
+        this.samples = samples;
+        this.first = first;
+        this.min = min;
+        this.max = max;
+        this.mean = mean;
+        this.variance = variance;
+    }
+}
@@ -3,13 +3,21 @@ package org.texttechnologylab.dependency.graph.random;
 import com.google.common.graph.GraphBuilder;
 import com.google.common.graph.ImmutableGraph;
 
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 public class RandomTree {
 
     public static ImmutableGraph<Integer> getRandomGraph(int numberOfNodes) {
+        return getRandomGraph(numberOfNodes, ThreadLocalRandom.current());
+    }
+
+    /**
+     * @param numberOfNodes The number of nodes of the tree, excluding the root node 0.
+     * @param rng           The random number generator to draw the tree from.
+     * @return A random tree over the nodes {@code 1..numberOfNodes}, attached to the root node 0.
+     */
+    public static ImmutableGraph<Integer> getRandomGraph(int numberOfNodes, RandomGenerator rng) {
         ImmutableGraph.Builder<Integer> graphBuilder = GraphBuilder
             .directed()
             .expectedNodeCount(numberOfNodes)
@@ -21,9 +29,14 @@ public class RandomTree {
         for (int i = 0; i < numberOfNodes; i++) {
             array[i] = i + 1; // Fill the array with integers from 1 to n
         }
-        Collections.shuffle(Arrays.asList(array));
+        // Fisher-Yates shuffle
+        for (int i = numberOfNodes - 1; i > 0; i--) {
+            int j = rng.nextInt(i + 1);
+            Integer swap = array[i];
+            array[i] = array[j];
+            array[j] = swap;
+        }
 
-        Random rng = new Random();
         graphBuilder.putEdge(0, array[numberOfNodes - 1]);
         for (int i = 0; i < numberOfNodes - 1; i++) {
             int offset = rng.nextInt(1, numberOfNodes - i);
@@ -0,0 +1,104 @@
+package org.texttechnologylab.dependency.graph.random;
+
+import java.util.SplittableRandom;
+
+import org.texttechnologylab.dependency.graph.ted.PostorderTree;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+
+/**
+ * A bounded pool of pre-generated random trees, shared between threads.
+ * <p>
+ * For every number of nodes the pool offers {@link #getSlotsPerLength()} slots. The tree in a slot is generated
+ * on first use from a {@link SplittableRandom} seeded with the pool seed, the number of nodes and the slot, so it
+ * only depends on these three values. Evicting a tree and generating it again thus yields the same tree. The
+ * pool holds at most {@code maximumNodes} nodes in total, the least recently used trees are evicted first.
+ *
+ * @see RandomTreeSampler#withPool(RandomTreePool)
+ */
+public class RandomTreePool {
+
+    private final int slotsPerLength;
+    private final long seed;
+    private final LoadingCache<Long, PostorderTree> cache;
+
+    /**
+     * @param slotsPerLength The number of different trees per number of nodes.
+     * @param maximumNodes   The maximum total number of nodes of all trees in the pool.
+     * @param seed           The seed for the trees in the pool.
+     */
+    public RandomTreePool(int slotsPerLength, long maximumNodes, long seed) {
+        if (slotsPerLength < 1) {
+            throw new IllegalArgumentException(String.format("Number of slots must be positive, but is %d", slotsPerLength));
+        }
+        this.slotsPerLength = slotsPerLength;
+        this.seed = seed;
+        this.cache = CacheBuilder
+            .newBuilder()
+            .maximumWeight(maximumNodes)
+            .<Long, PostorderTree>weigher((key, tree) -> tree.size())
+            .recordStats()
+            .build(new CacheLoader<>() {
+                @Override
+                public PostorderTree load(Long key) {
+                    return generate((int) (key >>> 32), (int) (long) key);
+                }
+            });
+    }
+
+    private PostorderTree generate(int numberOfNodes, int slot) {
+        long slotSeed = new SplittableRandom(this.seed ^ ((long) numberOfNodes << 32 | slot)).nextLong();
+        return new RandomTreeSampler(new SplittableRandom(slotSeed)).sample(numberOfNodes);
+    }
+
+    /**
+     * @param numberOfNodes The number of nodes of the tree, must be positive.
+     * @param slot          The slot, in {@code 0..getSlotsPerLength()-1}.
+     * @return The tree of the given slot, generated if it is not in the pool.
+     */
+    public PostorderTree get(int numberOfNodes, int slot) {
+        if (numberOfNodes < 1) {
+            throw new IllegalArgumentException(String.format("Number of nodes must be positive, but is %d", numberOfNodes));
+        }
+        if (slot < 0 || slot >= slotsPerLength) {
+            throw new IndexOutOfBoundsException(String.format("Slot %d out of range [0, %d)", slot, slotsPerLength));
+        }
+        return cache.getUnchecked((long) numberOfNodes << 32 | slot);
+    }
+
+    public int getSlotsPerLength() {
+        return slotsPerLength;
+    }
+
+    /**
+     * @return The number of trees currently in the pool.
+     */
+    public long size() {
+        return cache.size();
+    }
+
+    /**
+     * @return Request, hit, miss and eviction counts of the pool.
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * @return A one-line summary of the pool statistics.
+     */
+    public String report() {
+        CacheStats stats = cache.stats();
+        return String.format(
+            "Random tree pool: %d requests, %.2f%% hits, %d misses, %d evictions, %d trees",
+            stats.requestCount(),
+            100. * stats.hitRate(),
+            stats.missCount(),
+            stats.evictionCount(),
+            cache.size()
+        );
+    }
+}
@@ -0,0 +1,184 @@
+package org.texttechnologylab.dependency.graph.random;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+import org.texttechnologylab.dependency.graph.ted.PostorderTree;
+
+/**
+ * Samples random trees like {@link RandomTree#getRandomGraph(int)}, but builds them directly as
+ * {@link PostorderTree}s and reuses its scratch arrays across samples.
+ * <p>
+ * Node {@code i} of a random permutation of {@code 1..n} is attached to one of the nodes following it in the
+ * permutation, the last node becomes the root. Children are ordered as they are inserted into the graph by
+ * {@link RandomTree#getRandomGraph(int)}, so both produce the same distribution of ordered trees. A sampler must
+ * not be shared between threads.
+ * <p>
+ * A {@linkplain #seeded(long, String...) seeded} sampler draws the {@code i}-th tree from a {@link SplittableRandom}
+ * whose seed is derived from the base seed, the given keys and {@code i} only. Its trees therefore do not depend
+ * on the thread, on the order in which sentences are processed or on the number of samples drawn.
+ * <p>
+ * A sampler {@linkplain #withPool(RandomTreePool) with a pool} does not generate trees itself, but uses its random
+ * numbers to pick one of the pooled trees of the requested size.
+ */
+public class RandomTreeSampler {
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final RandomGenerator random;
+    private final long seed;
+    private final RandomTreePool pool;
+    private int sampleIndex = 0;
+
+    private int[] permutation = new int[0];
+    private int[] heads = new int[0];
+    private int[] childOffsets = new int[0];
+    private int[] children = new int[0];
+    private int[] stack = new int[0];
+    private int[] nextChild = new int[0];
+
+    /**
+     * @param random The random number generator to draw all trees from.
+     */
+    public RandomTreeSampler(RandomGenerator random) {
+        this(random, 0L, null);
+    }
+
+    private RandomTreeSampler(RandomGenerator random, long seed, RandomTreePool pool) {
+        this.random = random;
+        this.seed = seed;
+        this.pool = pool;
+    }
+
+    /**
+     * @param pool The pool to draw the trees from.
+     * @return A sampler with the same source of randomness as this one, that picks its trees from the pool.
+     */
+    public RandomTreeSampler withPool(RandomTreePool pool) {
+        return new RandomTreeSampler(this.random, this.seed, pool);
+    }
+
+    /**
+     * Creates a sampler for reproducible random trees.
+     *
+     * @param seed The base seed of the run.
+     * @param keys The keys that identify the sentence, e.g. corpus, document id and text id. {@code null} keys are
+     *             allowed.
+     * @return A sampler whose trees only depend on the seed, the keys and the index of the sample.
+     */
+    public static RandomTreeSampler seeded(long seed, String... keys) {
+        long hash = mix(seed);
+        for (String key : keys) {
+            hash = mix(hash ^ fnv1a(key));
+        }
+        return new RandomTreeSampler(null, hash, null);
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the UTF-8 bytes of the given string, independent of {@link String#hashCode()}.
+     */
+    private static long fnv1a(String key) {
+        if (key == null) return 0L;
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * The finalizer of SplitMix64.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * @param numberOfNodes The number of nodes of the tree, must be positive.
+     * @return A random tree over the nodes {@code 1..numberOfNodes}, each labeled with its number.
+     */
+    public PostorderTree sample(int numberOfNodes) {
+        if (numberOfNodes < 1) {
+            throw new IllegalArgumentException(String.format("Number of nodes must be positive, but is %d", numberOfNodes));
+        }
+        final RandomGenerator random = this.random != null
+            ? this.random
+            : new SplittableRandom(mix(this.seed + GOLDEN_GAMMA * ++this.sampleIndex));
+        if (pool != null) {
+            return pool.get(numberOfNodes, random.nextInt(pool.getSlotsPerLength()));
+        }
+        ensureCapacity(numberOfNodes);
+
+        // Fisher-Yates shuffle of 1..n
+        for (int i = 0; i < numberOfNodes; i++) {
+            permutation[i] = i + 1;
+        }
+        for (int i = numberOfNodes - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = permutation[i];
+            permutation[i] = permutation[j];
+            permutation[j] = swap;
+        }
+
+        final int root = permutation[numberOfNodes - 1];
+        heads[root] = 0;
+        for (int i = 0; i < numberOfNodes - 1; i++) {
+            heads[permutation[i]] = permutation[i + random.nextInt(1, numberOfNodes - i)];
+        }
+
+        // Children in CSR layout, in the order in which they were attached
+        Arrays.fill(childOffsets, 0, numberOfNodes + 2, 0);
+        for (int i = 0; i < numberOfNodes - 1; i++) {
+            childOffsets[heads[permutation[i]] + 1]++;
+        }
+        for (int node = 0; node <= numberOfNodes; node++) {
+            childOffsets[node + 1] += childOffsets[node];
+        }
+        for (int i = 0; i < numberOfNodes - 1; i++) {
+            int head = heads[permutation[i]];
+            children[childOffsets[head]++] = permutation[i];
+        }
+        // Filling advanced each offset to the end of its children, shift back to the start
+        for (int node = numberOfNodes; node > 0; node--) {
+            childOffsets[node] = childOffsets[node - 1];
+        }
+        childOffsets[0] = 0;
+
+        PostorderTree.Builder builder = new PostorderTree.Builder(numberOfNodes);
+        int top = 0;
+        builder.open(root);
+        stack[top] = root;
+        nextChild[top++] = childOffsets[root];
+        while (top > 0) {
+            int node = stack[top - 1];
+            int offset = nextChild[top - 1];
+            if (offset == childOffsets[node + 1]) {
+                builder.close();
+                top--;
+                continue;
+            }
+            int child = children[offset];
+            nextChild[top - 1] = offset + 1;
+            builder.open(child);
+            stack[top] = child;
+            nextChild[top++] = childOffsets[child];
+        }
+        return builder.build();
+    }
+
+    private void ensureCapacity(int numberOfNodes) {
+        if (permutation.length < numberOfNodes) {
+            permutation = new int[numberOfNodes];
+            heads = new int[numberOfNodes + 1];
+            childOffsets = new int[numberOfNodes + 2];
+            children = new int[numberOfNodes];
+            stack = new int[numberOfNodes];
+            nextChild = new int[numberOfNodes];
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package org.texttechnologylab.dependency.graph.ted;
+
+import java.io.IOException;
+import java.io.StreamTokenizer;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.texttechnologylab.dependency.graph.CompactDependencyTree;
+import org.texttechnologylab.dependency.graph.InvalidDependencyGraphException;
+
+import com.google.common.graph.ImmutableGraph;
+
+/**
+ * An ordered, labeled tree in postorder layout over primitive arrays, as used by {@link TreeEditDistance}.
+ * <p>
+ * Nodes are numbered {@code 0..n-1} in postorder, so the root is node {@code n-1}. For each node the tree stores
+ * an integer label and the postorder number of its leftmost leaf descendant. The keyroots, i.e. the root and
+ * all nodes that have a left sibling, are derived from the leftmost leaves and stored in ascending order.
+ */
+public class PostorderTree {
+
+    private final int[] labels;
+    private final int[] leftmost;
+    private final int[] keyroots;
+
+    /**
+     * @param labels   The label of each node in postorder.
+     * @param leftmost The postorder number of the leftmost leaf descendant of each node in postorder.
+     */
+    public PostorderTree(int[] labels, int[] leftmost) {
+        if (labels.length != leftmost.length) {
+            throw new IllegalArgumentException(String.format(
+                "Number of labels (%d) does not match number of leftmost leaves (%d)",
+                labels.length,
+                leftmost.length
+            ));
+        }
+        this.labels = labels;
+        this.leftmost = leftmost;
+        this.keyroots = computeKeyroots(leftmost);
+    }
+
+    /**
+     * A node is a keyroot if no node with a higher postorder number shares its leftmost leaf.
+     */
+    private static int[] computeKeyroots(int[] leftmost) {
+        final int size = leftmost.length;
+        final boolean[] seen = new boolean[size];
+        final int[] keyroots = new int[size];
+        int count = 0;
+        for (int node = size - 1; node >= 0; node--) {
+            if (!seen[leftmost[node]]) {
+                seen[leftmost[node]] = true;
+                keyroots[count++] = node;
+            }
+        }
+        // Collected in descending order, but subproblems must be solved bottom-up
+        int[] ascending = new int[count];
+        for (int i = 0; i < count; i++) {
+            ascending[i] = keyroots[count - 1 - i];
+        }
+        return ascending;
+    }
+
+    /**
+     * Parses a tree from the preorder notation of {@link org.texttechnologylab.dependency.graph.zs.Tree}, e.g.
+     * {@code f(a b(c))}.
+     *
+     * @param notation The tree in preorder notation.
+     * @param labelIds The dictionary used to map labels to integers. Trees that are to be compared with each other
+     *                 must share the same dictionary, new labels are added to it.
+     * @return The parsed tree.
+     * @throws IOException If the notation cannot be read.
+     */
+    public static PostorderTree parse(String notation, Map<String, Integer> labelIds) throws IOException {
+        StreamTokenizer tokenizer = new StreamTokenizer(new StringReader(notation));
+        // The number of nodes is bounded by the number of characters
+        Builder builder = new Builder(notation.length());
+
+        tokenizer.nextToken();
+        builder.open(labelId(tokenizer.sval, labelIds));
+        tokenizer.nextToken();
+        while (true) {
+            if (tokenizer.ttype == '(') {
+                tokenizer.nextToken();
+                builder.open(labelId(tokenizer.sval, labelIds));
+                tokenizer.nextToken();
+                continue;
+            }
+
+            // The current node has no further children
+            builder.close();
+            while (builder.depth() > 0 && tokenizer.ttype == ')') {
+                tokenizer.nextToken();
+                builder.close();
+            }
+            if (builder.depth() == 0) break;
+
+            if (tokenizer.ttype == StreamTokenizer.TT_EOF) {
+                throw new RuntimeException("Unbalanced tree notation: " + notation);
+            }
+            // The next sibling
+            builder.open(labelId(tokenizer.sval, labelIds));
+            tokenizer.nextToken();
+        }
+        if (tokenizer.ttype != StreamTokenizer.TT_EOF) {
+            throw new RuntimeException("Leftover token: " + tokenizer.ttype);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Creates the tree of the dependency graph without punctuation of the given dependency tree, rooted at the
+     * single dependent of the root node 0. Each node is labeled with its position and children are ordered by
+     * their position, matching
+     * {@link org.texttechnologylab.dependency.graph.DependencyGraphStringifier#treeToZsStringRepresentation}
+     * with labels {@code node<position>}.
+     *
+     * @param tree The dependency tree.
+     * @return The postorder tree.
+     * @throws InvalidDependencyGraphException If the root node 0 does not have exactly one regular dependent.
+     */
+    public static PostorderTree fromDependencyTree(CompactDependencyTree tree) throws InvalidDependencyGraphException {
+        int root = -1;
+        for (int offset = tree.getChildrenStart(0); offset < tree.getChildrenEnd(0); offset++) {
+            int child = tree.getChild(offset);
+            if (tree.isPunct(child)) continue;
+            if (root >= 0) {
+                throw new InvalidDependencyGraphException("Dependency graph has more than one root node!");
+            }
+            root = child;
+        }
+        if (root < 0) {
+            throw new InvalidDependencyGraphException("Dependency graph has no root node!");
+        }
+
+        Builder builder = new Builder(tree.length());
+        // For each open node, the offset of the next child to visit
+        int[] nodes = new int[tree.length()];
+        int[] nextChild = new int[tree.length()];
+        int top = 0;
+        builder.open(root);
+        nodes[top] = root;
+        nextChild[top++] = tree.getChildrenStart(root);
+        while (top > 0) {
+            int node = nodes[top - 1];
+            int offset = nextChild[top - 1];
+            while (offset < tree.getChildrenEnd(node) && tree.isPunct(tree.getChild(offset))) {
+                offset++;
+            }
+            if (offset == tree.getChildrenEnd(node)) {
+                builder.close();
+                top--;
+                continue;
+            }
+            int child = tree.getChild(offset);
+            nextChild[top - 1] = offset + 1;
+            builder.open(child);
+            nodes[top] = child;
+            nextChild[top++] = tree.getChildrenStart(child);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Creates the tree of the given graph, rooted at the single successor of node 0, e.g. a random tree from
+     * {@link org.texttechnologylab.dependency.graph.random.RandomTree}. Each node is labeled with its number and
+     * children are ordered as the successors of their parent, matching
+     * {@link org.texttechnologylab.dependency.graph.DependencyGraphStringifier#graphToZsStringRepresentation}
+     * with labels {@code node<number>}.
+     *
+     * @param graph The graph.
+     * @return The postorder tree.
+     * @throws InvalidDependencyGraphException If node 0 does not have exactly one successor.
+     */
+    public static PostorderTree fromGraph(ImmutableGraph<Integer> graph) throws InvalidDependencyGraphException {
+        if (graph.successors(0).size() != 1) {
+            throw new InvalidDependencyGraphException(String.format(
+                "Graph must have exactly one root node, but has %d!",
+                graph.successors(0).size()
+            ));
+        }
+        int root = graph.successors(0).iterator().next();
+
+        Builder builder = new Builder(graph.nodes().size());
+        ArrayDeque<Iterator<Integer>> children = new ArrayDeque<>();
+        builder.open(root);
+        children.push(graph.successors(root).iterator());
+        while (!children.isEmpty()) {
+            Iterator<Integer> iterator = children.peek();
+            if (!iterator.hasNext()) {
+                builder.close();
+                children.pop();
+                continue;
+            }
+            int child = iterator.next();
+            builder.open(child);
+            children.push(graph.successors(child).iterator());
+        }
+        return builder.build();
+    }
+
+    private static int labelId(String label, Map<String, Integer> labelIds) {
+        return labelIds.computeIfAbsent(label, key -> labelIds.size());
+    }
+
+    public int size() {
+        return labels.length;
+    }
+
+    public int getLabel(int node) {
+        return labels[node];
+    }
+
+    public int getLeftmost(int node) {
+        return leftmost[node];
+    }
+
+    public int getNumberOfKeyroots() {
+        return keyroots.length;
+    }
+
+    public int getKeyroot(int index) {
+        return keyroots[index];
+    }
+
+    /**
+     * Builds a {@link PostorderTree} from a depth-first traversal: {@link #open(int)} is called when a node is
+     * entered and {@link #close()} once all of its children have been visited.
+     */
+    public static class Builder {
+
+        private int[] labels;
+        private int[] leftmost;
+        private int[] stack;
+        private int[] firstLeaf;
+        private int depth = 0;
+        private int size = 0;
+
+        /**
+         * @param expectedSize The expected number of nodes, the builder grows if necessary.
+         */
+        public Builder(int expectedSize) {
+            int capacity = Math.max(expectedSize, 1);
+            this.labels = new int[capacity];
+            this.leftmost = new int[capacity];
+            this.stack = new int[capacity];
+            this.firstLeaf = new int[capacity];
+        }
+
+        /**
+         * Enters a new node with the given label as the next child of the current node.
+         */
+        public Builder open(int label) {
+            if (depth == stack.length) {
+                stack = Arrays.copyOf(stack, 2 * depth);
+                firstLeaf = Arrays.copyOf(firstLeaf, 2 * depth);
+            }
+            stack[depth] = label;
+            firstLeaf[depth] = -1;
+            depth++;
+            return this;
+        }
+
+        /**
+         * Leaves the current node and assigns its postorder number.
+         */
+        public Builder close() {
+            if (depth == 0) {
+                throw new IllegalStateException("No open node to close");
+            }
+            if (size == labels.length) {
+                labels = Arrays.copyOf(labels, 2 * size);
+                leftmost = Arrays.copyOf(leftmost, 2 * size);
+            }
+            depth--;
+            int node = size++;
+            labels[node] = stack[depth];
+            leftmost[node] = firstLeaf[depth] < 0 ? node : firstLeaf[depth];
+            if (depth > 0 && firstLeaf[depth - 1] < 0) {
+                firstLeaf[depth - 1] = leftmost[node];
+            }
+            return this;
+        }
+
+        /**
+         * @return The number of currently open nodes.
+         */
+        public int depth() {
+            return depth;
+        }
+
+        public PostorderTree build() {
+            if (depth > 0) {
+                throw new IllegalStateException(String.format("%d nodes have not been closed", depth));
+            }
+            return new PostorderTree(Arrays.copyOf(labels, size), Arrays.copyOf(leftmost, size));
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package org.texttechnologylab.dependency.graph.ted;
+
+/**
+ * Computes the edit distance between two ordered, labeled trees with unit costs for deletion, insertion and
+ * relabeling of nodes.
+ */
+public interface TreeEditDistance {
+
+    /**
+     * @param tree1 The source tree.
+     * @param tree2 The target tree.
+     * @return The minimal number of edit operations that transform {@code tree1} into {@code tree2}.
+     */
+    int distance(PostorderTree tree1, PostorderTree tree2);
+}
@@ -0,0 +1,58 @@
+package org.texttechnologylab.dependency.graph.ted;
+
+/**
+ * Reusable scratch buffers for {@link TreeEditDistance} implementations.
+ * <p>
+ * The buffers only ever grow, so once a thread has compared its largest pair of trees, further comparisons
+ * do not allocate. A workspace must not be shared between threads; use {@link #get()} to borrow the workspace
+ * of the current thread.
+ */
+public class TreeEditDistanceWorkspace {
+
+    private static final ThreadLocal<TreeEditDistanceWorkspace> WORKSPACE = ThreadLocal.withInitial(
+        TreeEditDistanceWorkspace::new);
+
+    private int[] treeDistance = new int[0];
+    private int[] forestDistance = new int[0];
+
+    /**
+     * @return The workspace of the current thread.
+     */
+    public static TreeEditDistanceWorkspace get() {
+        return WORKSPACE.get();
+    }
+
+    /**
+     * @param size The required number of entries.
+     * @return A buffer for the tree distance matrix with at least {@code size} entries and arbitrary contents.
+     */
+    public int[] treeDistance(int size) {
+        if (treeDistance.length < size) {
+            treeDistance = new int[grow(treeDistance.length, size)];
+        }
+        return treeDistance;
+    }
+
+    /**
+     * @param size The required number of entries.
+     * @return A buffer for the forest distance matrix with at least {@code size} entries and arbitrary contents.
+     */
+    public int[] forestDistance(int size) {
+        if (forestDistance.length < size) {
+            forestDistance = new int[grow(forestDistance.length, size)];
+        }
+        return forestDistance;
+    }
+
+    /**
+     * @return The number of {@code int} entries currently held by this workspace.
+     */
+    public long capacity() {
+        return (long) treeDistance.length + forestDistance.length;
+    }
+
+    private static int grow(int capacity, int size) {
+        // Grow by at least half the current capacity to avoid reallocating for every slightly larger tree
+        return Math.max(size, capacity + (capacity >> 1));
+    }
+}
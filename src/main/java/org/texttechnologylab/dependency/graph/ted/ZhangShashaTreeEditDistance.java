@@ -0,0 +1,107 @@
+package org.texttechnologylab.dependency.graph.ted;
+
+/**
+ * Zhang-Shasha tree edit distance over {@link PostorderTree}s with unit costs.
+ * <p>
+ * Computes the same distances as {@link org.texttechnologylab.dependency.graph.zs.Tree#ZhangShasha}, but works on
+ * integer labels and flat {@code int} arrays borrowed from a {@link TreeEditDistanceWorkspace}: a single forest
+ * distance buffer, large enough for the biggest pair of keyroot subtrees, is reused for all keyroot pairs, and
+ * both buffers are reused across calls. In steady state a comparison does not allocate.
+ */
+public class ZhangShashaTreeEditDistance implements TreeEditDistance {
+
+    private static final int DELETE = 1;
+    private static final int INSERT = 1;
+    private static final int RELABEL = 1;
+
+    /**
+     * Compares the trees using the workspace of the current thread.
+     */
+    @Override
+    public int distance(PostorderTree tree1, PostorderTree tree2) {
+        return distance(tree1, tree2, TreeEditDistanceWorkspace.get());
+    }
+
+    /**
+     * Compares the trees using the given workspace.
+     */
+    public int distance(PostorderTree tree1, PostorderTree tree2, TreeEditDistanceWorkspace workspace) {
+        final int size1 = tree1.size();
+        final int size2 = tree2.size();
+        if (size1 == 0) return size2 * INSERT;
+        if (size2 == 0) return size1 * DELETE;
+
+        // Every entry is written before it is read, so the buffers need not be cleared
+        final int[] treeDistance = workspace.treeDistance(size1 * size2);
+        final int[] forestDistance = workspace.forestDistance((size1 + 1) * (size2 + 1));
+        for (int k1 = 0; k1 < tree1.getNumberOfKeyroots(); k1++) {
+            for (int k2 = 0; k2 < tree2.getNumberOfKeyroots(); k2++) {
+                forestDistance(
+                    tree1,
+                    tree2,
+                    tree1.getKeyroot(k1),
+                    tree2.getKeyroot(k2),
+                    treeDistance,
+                    forestDistance
+                );
+            }
+        }
+        return treeDistance[size1 * size2 - 1];
+    }
+
+    /**
+     * Fills the forest distances between the subtrees rooted at the keyroots {@code i} and {@code j} and records
+     * the tree distances of all subtree pairs on their leftmost paths in {@code treeDistance}.
+     * <p>
+     * Row {@code x} and column {@code y} of the forest distance buffer correspond to the forests of the first
+     * {@code x} and {@code y} nodes of the subtrees, in postorder starting at their leftmost leaves.
+     */
+    private static void forestDistance(
+        final PostorderTree tree1,
+        final PostorderTree tree2,
+        final int i,
+        final int j,
+        final int[] treeDistance,
+        final int[] forestDistance
+    ) {
+        final int size2 = tree2.size();
+        final int leftmostI = tree1.getLeftmost(i);
+        final int leftmostJ = tree2.getLeftmost(j);
+        final int rows = i - leftmostI + 2;
+        final int columns = j - leftmostJ + 2;
+
+        forestDistance[0] = 0;
+        for (int x = 1; x < rows; x++) {
+            forestDistance[x * columns] = forestDistance[(x - 1) * columns] + DELETE;
+        }
+        for (int y = 1; y < columns; y++) {
+            forestDistance[y] = forestDistance[y - 1] + INSERT;
+        }
+
+        for (int x = 1; x < rows; x++) {
+            final int i1 = leftmostI + x - 1;
+            final int leftmostI1 = tree1.getLeftmost(i1);
+            final int label1 = tree1.getLabel(i1);
+            final int row = x * columns;
+            final int previousRow = row - columns;
+            for (int y = 1; y < columns; y++) {
+                final int j1 = leftmostJ + y - 1;
+                final int leftmostJ1 = tree2.getLeftmost(j1);
+                final int delete = forestDistance[previousRow + y] + DELETE;
+                final int insert = forestDistance[row + y - 1] + INSERT;
+                final int distance;
+                if (leftmostI1 == leftmostI && leftmostJ1 == leftmostJ) {
+                    // Both forests are trees
+                    int relabel = forestDistance[previousRow + y - 1] + (label1 == tree2.getLabel(j1) ? 0 : RELABEL);
+                    distance = Math.min(Math.min(delete, insert), relabel);
+                    treeDistance[i1 * size2 + j1] = distance;
+                } else {
+                    int match = forestDistance[(leftmostI1 - leftmostI) * columns + leftmostJ1 - leftmostJ]
+                        + treeDistance[i1 * size2 + j1];
+                    distance = Math.min(Math.min(delete, insert), match);
+                }
+                forestDistance[row + y] = distance;
+            }
+        }
+    }
+}
@@ -100,7 +100,7 @@ public class Tree {
         for (int i = 0; i < l.size(); i++) {
             int flag = 0;
             for (int j = i + 1; j < l.size(); j++) {
-                if (l.get(j) == l.get(i)) {
+                if (l.get(j).equals(l.get(i))) {
                     flag = 1;
                 }
             }
@@ -168,7 +168,7 @@ public class Tree {
             for (int j1 = l2.get(j - 1); j1 <= j; j1++) {
                 int i_temp = (l1.get(i - 1) > i1 - 1) ? 0 : i1 - 1;
                 int j_temp = (l2.get(j - 1) > j1 - 1) ? 0 : j1 - 1;
-                if ((l1.get(i1 - 1) == l1.get(i - 1)) && (l2.get(j1 - 1) == l2.get(j - 1))) {
+                if ((l1.get(i1 - 1).equals(l1.get(i - 1))) && (l2.get(j1 - 1).equals(l2.get(j - 1)))) {
 
                     int Cost = (tree1.labels.get(i1 - 1).equals(tree2.labels.get(j1 - 1))) ? 0 : Relabel;
                     forestdist[i1][j1] = Math.min(
@@ -0,0 +1,101 @@
+package org.texttechnologylab.dependency.json;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import org.texttechnologylab.dependency.json.GraphIterator.GraphIteratorException;
+
+/**
+ * Walks the top-level object of a graph file, see {@link GraphIterator} for the format. Subclasses decide how the
+ * two edge arrays of each entry are decoded.
+ */
+abstract class AbstractGraphIterator<T> implements CountingIterator<T> {
+
+    protected final JsonReader reader;
+    private final AtomicInteger counter = new AtomicInteger(0);
+
+    protected AbstractGraphIterator(Gson gson, Reader reader) throws IOException {
+        this.reader = gson.newJsonReader(reader);
+
+        // Start the top-level object
+        this.reader.beginObject();
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            if (this.reader.hasNext()) {
+                JsonToken peeked = this.reader.peek();
+                switch (peeked) {
+                    case NAME:
+                        return true;
+                    // case BEGIN_ARRAY:
+                    // return true;
+                    case END_ARRAY:
+                        this.reader.endArray();
+                        return this.hasNext();
+                    case END_OBJECT:
+                        this.reader.endObject();
+                        // There is only one object in the JSON
+                        return false;
+                    case END_DOCUMENT:
+                        return false;
+                    default:
+                        throw new IllegalStateException("Unexpected token! Expected JSON arrays but got: " + peeked);
+                }
+            }
+            return false;
+        } catch (IOException e) {
+            throw new GraphIteratorException(e);
+        }
+    }
+
+    @Override
+    public T next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException("No more elements");
+        }
+        this.counter.incrementAndGet();
+
+        try {
+            try {
+                String textId = this.reader.nextName();
+
+                try {
+                    this.reader.beginArray();
+                    T item = this.readEdges(textId);
+                    this.reader.endArray();
+
+                    return item;
+                } catch (IllegalStateException e) {
+                    throw new GraphIteratorException("Expected exactly two arrays of integer pairs", e);
+                }
+            } catch (IllegalStateException e) {
+                throw new GraphIteratorException("Expected object key", e);
+            }
+        } catch (IOException e) {
+            throw new GraphIteratorException(e);
+        }
+    }
+
+    /**
+     * Reads the dependency and the punctuation edge array of the entry with the given text id.
+     */
+    protected abstract T readEdges(String textId) throws IOException;
+
+    @Override
+    public int count() {
+        return this.counter.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.reader.close();
+    }
+}
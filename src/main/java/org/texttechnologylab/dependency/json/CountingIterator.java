@@ -0,0 +1,21 @@
+package org.texttechnologylab.dependency.json;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Iterator over the graphs of an input that counts the items it has returned and releases the input on
+ * {@link #close()}.
+ */
+public interface CountingIterator<T> extends Iterator<T>, Closeable {
+
+    /**
+     * @return The number of items returned by {@link #next()} so far.
+     */
+    int count();
+
+    @Override
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,50 @@
+package org.texttechnologylab.dependency.json;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+import com.google.gson.Gson;
+
+/**
+ * Variant of {@link GraphIterator} that reads the {@code [head, dependent]} pairs directly with
+ * {@link com.google.gson.stream.JsonReader#nextInt()} into a reusable buffer, so no {@link Integer} or
+ * {@code Integer[]} is allocated per edge. Each item only allocates one exactly sized {@code int[]} per edge array.
+ */
+public class IntGraphIterator extends AbstractGraphIterator<IntGraphIteratorItem> {
+
+    private static final Gson GSON = new Gson();
+
+    private int[] buffer = new int[256];
+
+    public IntGraphIterator(Reader reader) throws IOException {
+        super(GSON, reader);
+    }
+
+    @Override
+    protected IntGraphIteratorItem readEdges(String textId) throws IOException {
+        int[] dependencyEdges = this.readEdgeArray();
+        int[] punctEdges = this.readEdgeArray();
+        return new IntGraphIteratorItem(textId, dependencyEdges, punctEdges);
+    }
+
+    /**
+     * @return The pairs of the next edge array, flattened to {@code [head0, dependent0, head1, dependent1, ...]}.
+     * @throws IllegalStateException If the next value is not an array of integer pairs.
+     */
+    private int[] readEdgeArray() throws IOException {
+        int size = 0;
+        this.reader.beginArray();
+        while (this.reader.hasNext()) {
+            if (size + 2 > this.buffer.length) {
+                this.buffer = Arrays.copyOf(this.buffer, 2 * this.buffer.length);
+            }
+            this.reader.beginArray();
+            this.buffer[size++] = this.reader.nextInt();
+            this.buffer[size++] = this.reader.nextInt();
+            this.reader.endArray();
+        }
+        this.reader.endArray();
+        return Arrays.copyOf(this.buffer, size);
+    }
+}
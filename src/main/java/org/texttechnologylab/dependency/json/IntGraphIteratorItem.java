@@ -0,0 +1,48 @@
+package org.texttechnologylab.dependency.json;
+
+import org.texttechnologylab.dependency.graph.CompactDependencyTree;
+import org.texttechnologylab.dependency.graph.InvalidDependencyGraphException;
+
+/**
+ * Primitive counterpart of {@link GraphIteratorItem}. The edges are stored as flat arrays of
+ * {@code [head0, dependent0, head1, dependent1, ...]}.
+ */
+public class IntGraphIteratorItem {
+
+    public final String textId;
+    public final int[] dependencyEdges;
+    public final int[] punctEdges;
+
+    public IntGraphIteratorItem(String textId, int[] dependencyEdges, int[] punctEdges) {
+        this.textId = textId;
+        this.dependencyEdges = dependencyEdges;
+        this.punctEdges = punctEdges;
+    }
+
+    public int getNumberOfDependencyEdges() {
+        return this.dependencyEdges.length / 2;
+    }
+
+    public int getNumberOfPunctEdges() {
+        return this.punctEdges.length / 2;
+    }
+
+    public CompactDependencyTree toTree() throws InvalidDependencyGraphException {
+        return CompactDependencyTree.fromEdges(this.dependencyEdges, this.punctEdges);
+    }
+
+    /**
+     * @return The boxed representation of this item.
+     */
+    public GraphIteratorItem toGraphIteratorItem() {
+        return new GraphIteratorItem(textId, box(dependencyEdges), box(punctEdges));
+    }
+
+    private static Integer[][] box(int[] edges) {
+        Integer[][] boxed = new Integer[edges.length / 2][];
+        for (int i = 0; i < boxed.length; i++) {
+            boxed[i] = new Integer[] { edges[2 * i], edges[2 * i + 1] };
+        }
+        return boxed;
+    }
+}
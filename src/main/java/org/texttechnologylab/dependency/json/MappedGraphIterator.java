@@ -0,0 +1,424 @@
+package org.texttechnologylab.dependency.json;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.texttechnologylab.dependency.json.GraphIterator.GraphIteratorException;
+
+/**
+ * Reads an uncompressed graph file in the format of {@link GraphIterator} by memory-mapping it and parsing chunks
+ * of the file in parallel.
+ * <p>
+ * The file is cut into chunks of roughly {@code chunkSize} bytes. Each cut is placed in front of the key of a
+ * top-level entry, i.e. at a {@code "} that follows {@code ]]} and a comma and that is followed by a string, a colon
+ * and {@code [[}. Such a sequence cannot occur inside the edge arrays and would only be ambiguous in text ids that
+ * themselves contain a full entry. The chunks are parsed directly from the mapped bytes on the given executor, at
+ * most {@code maxChunksInFlight} ahead of the consumer, and their items are returned in file order.
+ * <p>
+ * Unlike {@link IntGraphIterator}, edge endpoints must be plain JSON integers.
+ */
+public class MappedGraphIterator implements CountingIterator<IntGraphIteratorItem> {
+
+    public static final int DEFAULT_CHUNK_SIZE = 4 << 20;
+
+    private static final int SPLIT_WINDOW = 64 << 10;
+    private static final int MAX_LOOK_BEHIND = 256;
+    private static final int INVALID = -1;
+    private static final int INCOMPLETE = -2;
+
+    private final FileChannel channel;
+    private final ExecutorService executor;
+    private final int chunkSize;
+    private final int maxChunksInFlight;
+    /**
+     * Position of the first entry and of the closing brace of the top-level object.
+     */
+    private final long start;
+    private final long end;
+
+    private final ArrayDeque<Future<List<IntGraphIteratorItem>>> pending = new ArrayDeque<>();
+    private long nextChunkStart;
+    private List<IntGraphIteratorItem> current = List.of();
+    private int currentIndex = 0;
+    private int counter = 0;
+
+    public MappedGraphIterator(Path path, ExecutorService executor) throws IOException {
+        this(path, executor, DEFAULT_CHUNK_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param path              The uncompressed graph file.
+     * @param executor          The executor that parses the chunks.
+     * @param chunkSize         The approximate number of bytes per chunk.
+     * @param maxChunksInFlight The maximum number of chunks parsed ahead of the consumer.
+     * @throws EOFException          If the file is empty.
+     * @throws IllegalStateException If the file does not hold a JSON object.
+     */
+    public MappedGraphIterator(Path path, ExecutorService executor, int chunkSize, int maxChunksInFlight)
+        throws IOException {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException(String.format("Chunk size must be positive, but is %d", chunkSize));
+        }
+        if (maxChunksInFlight < 1) {
+            throw new IllegalArgumentException(String.format(
+                "Number of chunks in flight must be positive, but is %d",
+                maxChunksInFlight
+            ));
+        }
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+        this.maxChunksInFlight = maxChunksInFlight;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = this.channel.size();
+            long first = this.skipWhitespace(0, size, 1);
+            long last = this.skipWhitespace(size - 1, -1, -1);
+            if (first >= size) {
+                throw new EOFException("End of input at " + path);
+            }
+            if (this.byteAt(first) != '{' || last <= first || this.byteAt(last) != '}') {
+                throw new IllegalStateException("Expected a JSON object in " + path);
+            }
+            this.start = this.skipWhitespace(first + 1, last, 1);
+            this.end = last;
+            this.nextChunkStart = this.start;
+            if (this.start == this.end) {
+                this.channel.close();
+            }
+        } catch (IOException | RuntimeException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (this.currentIndex >= this.current.size()) {
+            this.submitChunks();
+            Future<List<IntGraphIteratorItem>> future = this.pending.poll();
+            if (future == null) return false;
+            this.current = await(future);
+            this.currentIndex = 0;
+        }
+        return true;
+    }
+
+    @Override
+    public IntGraphIteratorItem next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException("No more elements");
+        }
+        this.counter++;
+        return this.current.get(this.currentIndex++);
+    }
+
+    @Override
+    public int count() {
+        return this.counter;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Future<List<IntGraphIteratorItem>> future : this.pending) {
+            future.cancel(true);
+        }
+        this.pending.clear();
+        this.channel.close();
+    }
+
+    /**
+     * Maps and submits the next chunks until enough are in flight. The mapped buffers stay valid after the channel
+     * is closed, so the channel is closed as soon as the last chunk is mapped.
+     */
+    private void submitChunks() {
+        try {
+            while (this.pending.size() < this.maxChunksInFlight && this.nextChunkStart < this.end) {
+                final long from = this.nextChunkStart;
+                final long to = this.findSplit(from + this.chunkSize);
+                final ByteBuffer buffer = this.channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+                final boolean last = to == this.end;
+                this.pending.add(this.executor.submit(() -> new ChunkParser(buffer, from, last).parse()));
+                this.nextChunkStart = to;
+                if (last) {
+                    this.channel.close();
+                }
+            }
+        } catch (IOException e) {
+            throw new GraphIteratorException(e);
+        }
+    }
+
+    /**
+     * @return The position of the first entry key at or after the given offset, or the end of the object.
+     */
+    private long findSplit(long offset) throws IOException {
+        if (offset >= this.end) return this.end;
+        long from = Math.max(this.start, offset - MAX_LOOK_BEHIND);
+        for (long window = SPLIT_WINDOW; ; window *= 2) {
+            long limit = Math.min(this.end, offset + window);
+            ByteBuffer buffer = this.channel.map(FileChannel.MapMode.READ_ONLY, from, limit - from);
+            for (int position = (int) (offset - from); position < buffer.limit(); position++) {
+                if (buffer.get(position) != ',') continue;
+                int split = entryKeyAfter(buffer, position);
+                if (split >= 0) return from + split;
+                if (split == INCOMPLETE && limit < this.end) break;
+            }
+            if (limit == this.end) return this.end;
+        }
+    }
+
+    /**
+     * Checks whether the comma at the given position separates two top-level entries.
+     *
+     * @return The position of the next key, {@link #INVALID} if the comma does not separate two entries or
+     * {@link #INCOMPLETE} if the buffer ends before this could be decided.
+     */
+    private static int entryKeyAfter(ByteBuffer buffer, int comma) {
+        // The previous entry ends with the closing brackets of the punctuation edges and the entry itself
+        int position = comma - 1;
+        for (int bracket = 0; bracket < 2; bracket++) {
+            while (position >= 0 && isWhitespace(buffer.get(position))) position--;
+            if (position < 0 || buffer.get(position) != ']') return INVALID;
+            position--;
+        }
+
+        position = comma + 1;
+        while (position < buffer.limit() && isWhitespace(buffer.get(position))) position++;
+        if (position >= buffer.limit()) return INCOMPLETE;
+        if (buffer.get(position) != '"') return INVALID;
+        int key = position;
+
+        // The key is followed by a colon and the opening brackets of the entry and its dependency edges
+        position++;
+        while (position < buffer.limit() && buffer.get(position) != '"') {
+            position += buffer.get(position) == '\\' ? 2 : 1;
+        }
+        position++;
+        for (byte expected : new byte[] { ':', '[', '[' }) {
+            while (position < buffer.limit() && isWhitespace(buffer.get(position))) position++;
+            if (position >= buffer.limit()) return INCOMPLETE;
+            if (buffer.get(position) != expected) return INVALID;
+            position++;
+        }
+        return key;
+    }
+
+    private long skipWhitespace(long position, long limit, int step) throws IOException {
+        while (position != limit && isWhitespace(this.byteAt(position))) {
+            position += step;
+        }
+        return position;
+    }
+
+    private byte byteAt(long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1);
+        if (this.channel.read(buffer, position) != 1) {
+            throw new EOFException("End of input at offset " + position);
+        }
+        return buffer.get(0);
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    private static List<IntGraphIteratorItem> await(Future<List<IntGraphIteratorItem>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GraphIteratorException(e);
+        } catch (CancellationException e) {
+            throw new GraphIteratorException("Chunk was cancelled", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) throw runtimeException;
+            if (cause instanceof Error error) throw error;
+            throw new GraphIteratorException(cause);
+        }
+    }
+
+    /**
+     * Parses the entries of one chunk. A chunk starts at an entry key and ends either in front of the next chunk's
+     * key, after the separating comma, or in front of the closing brace of the top-level object.
+     */
+    private static class ChunkParser {
+
+        private final ByteBuffer buffer;
+        private final long offset;
+        private final boolean last;
+        private int position = 0;
+        private int[] edges = new int[256];
+
+        ChunkParser(ByteBuffer buffer, long offset, boolean last) {
+            this.buffer = buffer;
+            this.offset = offset;
+            this.last = last;
+        }
+
+        List<IntGraphIteratorItem> parse() {
+            final List<IntGraphIteratorItem> items = new ArrayList<>();
+            this.skipWhitespace();
+            while (this.position < this.buffer.limit()) {
+                String textId = this.readString();
+                this.expect(':');
+                this.expect('[');
+                int[] dependencyEdges = this.readEdgeArray();
+                this.expect(',');
+                int[] punctEdges = this.readEdgeArray();
+                this.expect(']');
+                items.add(new IntGraphIteratorItem(textId, dependencyEdges, punctEdges));
+
+                this.skipWhitespace();
+                if (this.position < this.buffer.limit()) {
+                    this.expect(',');
+                    this.skipWhitespace();
+                    if (this.last && this.position == this.buffer.limit()) {
+                        throw this.error("Expected object key");
+                    }
+                }
+            }
+            return items;
+        }
+
+        /**
+         * @return The pairs of the next edge array, flattened to {@code [head0, dependent0, head1, dependent1, ...]}.
+         */
+        private int[] readEdgeArray() {
+            int size = 0;
+            this.expect('[');
+            this.skipWhitespace();
+            if (this.peek() == ']') {
+                this.position++;
+                return new int[0];
+            }
+            while (true) {
+                if (size + 2 > this.edges.length) {
+                    this.edges = Arrays.copyOf(this.edges, 2 * this.edges.length);
+                }
+                this.expect('[');
+                this.edges[size++] = this.readInt();
+                this.expect(',');
+                this.edges[size++] = this.readInt();
+                this.expect(']');
+                this.skipWhitespace();
+                byte next = this.peek();
+                this.position++;
+                if (next == ']') break;
+                if (next != ',') {
+                    this.position--;
+                    throw this.error("Expected ',' or ']'");
+                }
+            }
+            return Arrays.copyOf(this.edges, size);
+        }
+
+        private int readInt() {
+            this.skipWhitespace();
+            boolean negative = this.peek() == '-';
+            if (negative) this.position++;
+            int begin = this.position;
+            long value = 0;
+            while (this.position < this.buffer.limit()) {
+                byte b = this.buffer.get(this.position);
+                if (b < '0' || b > '9') break;
+                value = 10 * value + (b - '0');
+                if (value > (long) Integer.MAX_VALUE + 1) throw this.error("Integer out of range");
+                this.position++;
+            }
+            if (this.position == begin) throw this.error("Expected an integer");
+            value = negative ? -value : value;
+            if (value > Integer.MAX_VALUE) throw this.error("Integer out of range");
+            return (int) value;
+        }
+
+        private String readString() {
+            this.expect('"');
+            int begin = this.position;
+            boolean escaped = false;
+            while (this.peek() != '"') {
+                if (this.buffer.get(this.position) == '\\') {
+                    escaped = true;
+                    this.position++;
+                    this.peek();
+                }
+                this.position++;
+            }
+            byte[] bytes = new byte[this.position - begin];
+            this.buffer.get(begin, bytes);
+            this.position++;
+            String string = new String(bytes, StandardCharsets.UTF_8);
+            return escaped ? this.unescape(string) : string;
+        }
+
+        private String unescape(String string) {
+            StringBuilder builder = new StringBuilder(string.length());
+            for (int i = 0; i < string.length(); i++) {
+                char c = string.charAt(i);
+                if (c != '\\') {
+                    builder.append(c);
+                    continue;
+                }
+                char escape = string.charAt(++i);
+                switch (escape) {
+                    case '"', '\\', '/' -> builder.append(escape);
+                    case 'b' -> builder.append('\b');
+                    case 'f' -> builder.append('\f');
+                    case 'n' -> builder.append('\n');
+                    case 'r' -> builder.append('\r');
+                    case 't' -> builder.append('\t');
+                    case 'u' -> {
+                        if (i + 4 >= string.length()) throw this.error("Invalid unicode escape in string");
+                        try {
+                            builder.append((char) Integer.parseInt(string.substring(i + 1, i + 5), 16));
+                        } catch (NumberFormatException e) {
+                            throw this.error("Invalid unicode escape in string");
+                        }
+                        i += 4;
+                    }
+                    default -> throw this.error("Invalid escape sequence in string");
+                }
+            }
+            return builder.toString();
+        }
+
+        private void expect(char expected) {
+            this.skipWhitespace();
+            if (this.peek() != expected) {
+                throw this.error(String.format("Expected '%c'", expected));
+            }
+            this.position++;
+        }
+
+        private byte peek() {
+            if (this.position >= this.buffer.limit()) {
+                throw this.error("Unexpected end of input");
+            }
+            return this.buffer.get(this.position);
+        }
+
+        private void skipWhitespace() {
+            while (this.position < this.buffer.limit() && isWhitespace(this.buffer.get(this.position))) {
+                this.position++;
+            }
+        }
+
+        private GraphIteratorException error(String message) {
+            return new GraphIteratorException(String.format("%s at offset %d", message, this.offset + this.position));
+        }
+    }
+}
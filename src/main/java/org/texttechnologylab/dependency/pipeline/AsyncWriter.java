@@ -0,0 +1,125 @@
+package org.texttechnologylab.dependency.pipeline;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Runs write tasks on dedicated I/O threads, so the caller can go on with the next item while the previous one is
+ * serialized, compressed and written.
+ * <p>
+ * At most {@code capacity} tasks are pending, i.e. submitted but not yet finished, and {@link #submit(Task)} blocks
+ * while the writer is full, so a slow disk holds back the producer instead of filling up the memory. A failed task
+ * does not stop the others, its exception is rethrown by the next {@link #submit(Task)} or {@link #flush()}.
+ */
+public class AsyncWriter implements Closeable {
+
+    /**
+     * A single write, e.g. of one document.
+     */
+    @FunctionalInterface
+    public interface Task {
+        void write() throws IOException;
+    }
+
+    private final ExecutorService executor;
+    private final Semaphore pending;
+    private final int capacity;
+
+    private IOException failure;
+
+    /**
+     * @param threads  The number of I/O threads.
+     * @param capacity The maximum number of pending tasks, including the ones that are being written.
+     */
+    public AsyncWriter(int threads, int capacity) {
+        if (threads < 1) {
+            throw new IllegalArgumentException(String.format("Number of threads must be positive, but is %d", threads));
+        }
+        if (capacity < threads) {
+            throw new IllegalArgumentException(String.format(
+                "Capacity must be at least the number of threads (%d), but is %d",
+                threads,
+                capacity
+            ));
+        }
+        this.capacity = capacity;
+        this.pending = new Semaphore(capacity);
+        this.executor = Executors.newFixedThreadPool(
+            threads,
+            new ThreadFactoryBuilder().setNameFormat("async-writer-%d").setDaemon(true).build()
+        );
+    }
+
+    /**
+     * Submits the given task, blocking while the writer is full.
+     *
+     * @throws IOException          If a previously submitted task failed.
+     * @throws InterruptedException If the calling thread is interrupted while the writer is full.
+     */
+    public void submit(Task task) throws IOException, InterruptedException {
+        rethrowFailure();
+        this.pending.acquire();
+        try {
+            this.executor.execute(() -> {
+                try {
+                    task.write();
+                } catch (IOException | RuntimeException e) {
+                    addFailure(e instanceof IOException ioException ? ioException : new IOException(e));
+                } finally {
+                    this.pending.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            this.pending.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Waits until all submitted tasks are finished.
+     *
+     * @throws IOException          If any of the tasks failed, the first failure is thrown with the others
+     *                              suppressed.
+     * @throws InterruptedException If the calling thread is interrupted while waiting.
+     */
+    public void flush() throws IOException, InterruptedException {
+        this.pending.acquire(this.capacity);
+        this.pending.release(this.capacity);
+        rethrowFailure();
+    }
+
+    /**
+     * Finishes the submitted tasks and stops the I/O threads. Failures are only reported by {@link #flush()}.
+     */
+    @Override
+    public void close() {
+        this.executor.shutdown();
+        try {
+            this.executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized void addFailure(IOException e) {
+        if (this.failure == null) {
+            this.failure = e;
+        } else {
+            this.failure.addSuppressed(e);
+        }
+    }
+
+    private synchronized void rethrowFailure() throws IOException {
+        IOException e = this.failure;
+        if (e != null) {
+            this.failure = null;
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package org.texttechnologylab.dependency.pipeline;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Schedules the files of a run and the sentence batches of all files on one configurable pool.
+ * <p>
+ * Each file is driven by one of at most {@code concurrentFiles} driver threads, which run its parser and writer
+ * (see {@link OrderedPipeline}), while the batches of all files are computed by a single work-stealing pool of
+ * {@code threads} workers. Files are started largest first, so a huge file does not start last and hold up the
+ * end of the run while the small files have long finished. Since the workers are shared, a file that is
+ * waiting on its parser does not leave any worker idle as long as another file has batches pending.
+ */
+public class FileScheduler implements Closeable {
+
+    private final ForkJoinPool workers;
+    private final int threads;
+    private final int concurrentFiles;
+
+    /**
+     * @param threads         The number of worker threads.
+     * @param concurrentFiles The maximum number of files that are processed at the same time.
+     */
+    public FileScheduler(int threads, int concurrentFiles) {
+        if (threads < 1) {
+            throw new IllegalArgumentException(String.format("Number of threads must be positive, but is %d", threads));
+        }
+        if (concurrentFiles < 1) {
+            throw new IllegalArgumentException(
+                String.format("Number of concurrent files must be positive, but is %d", concurrentFiles)
+            );
+        }
+        this.threads = threads;
+        this.concurrentFiles = concurrentFiles;
+        // Batches are independent tasks, so they are taken in submission order rather than as a stack
+        this.workers = new ForkJoinPool(
+            threads,
+            pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("metrics-worker-" + thread.getPoolIndex());
+                return thread;
+            },
+            null,
+            true
+        );
+    }
+
+    /**
+     * @return The work-stealing pool for the sentence batches of all files.
+     */
+    public ExecutorService getWorkers() {
+        return this.workers;
+    }
+
+    public int getThreads() {
+        return this.threads;
+    }
+
+    /**
+     * Processes the given files largest first and waits until all of them are done.
+     *
+     * @param files The files to process.
+     * @param size  The size of a file, e.g. its length in bytes.
+     * @param task  The task that processes a single file, usually through an {@link OrderedPipeline} on
+     *              {@link #getWorkers()}.
+     * @throws RuntimeException If any of the tasks failed, the first failure is rethrown with the others suppressed
+     *                          after all other files are done.
+     */
+    public <F> void run(Collection<F> files, ToLongFunction<F> size, Consumer<F> task) {
+        if (files.isEmpty()) return;
+
+        List<F> ordered = new ArrayList<>(files);
+        ordered.sort(Comparator.comparingLong(size).reversed());
+
+        ExecutorService drivers = Executors.newFixedThreadPool(
+            Math.min(this.concurrentFiles, ordered.size()),
+            new ThreadFactoryBuilder().setNameFormat("file-driver-%d").setDaemon(true).build()
+        );
+        try {
+            // The queue of the fixed pool is FIFO, so the files are started in order of decreasing size
+            List<Future<?>> futures = new ArrayList<>(ordered.size());
+            for (F file : ordered) {
+                futures.add(drivers.submit(() -> task.accept(file)));
+            }
+
+            RuntimeException failure = null;
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    RuntimeException cause = e.getCause() instanceof RuntimeException runtimeException
+                        ? runtimeException
+                        : new RuntimeException(e.getCause());
+                    if (failure == null) {
+                        failure = cause;
+                    } else {
+                        failure.addSuppressed(cause);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    futures.forEach(pending -> pending.cancel(true));
+                    throw new RuntimeException(e);
+                }
+            }
+            if (failure != null) throw failure;
+        } finally {
+            drivers.shutdown();
+        }
+    }
+
+    /**
+     * Shuts the worker pool down, batches that are already submitted are still completed.
+     */
+    @Override
+    public void close() {
+        this.workers.shutdown();
+    }
+}
@@ -0,0 +1,217 @@
+package org.texttechnologylab.dependency.pipeline;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Objects;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+/**
+ * Records the input files of a job whose output is complete, so that an interrupted job can be resumed.
+ * <p>
+ * The manifest is a file of JSON lines in the output directory with one {@link Entry} per completed input, which
+ * is appended and flushed as soon as the output of the input has been {@linkplain #commit(Path, Path) committed}.
+ * An input is only considered complete if it has not changed since, i.e. it has the same size and either the
+ * same modification time or the same SHA-256 hash, and its output still exists. Hashing reads every input a
+ * second time, so it can be {@linkplain #open(Path, boolean) disabled}, then a touched input is processed again.
+ * Outputs are written to a
+ * {@linkplain #getTemporaryFile(Path) temporary file} and atomically renamed once complete, so an output file
+ * never holds a partial document, and leftover temporary files mark inputs that were interrupted.
+ */
+public class JobManifest implements Closeable {
+
+    public static final String FILE_NAME = ".dependency-manifest.jsonl";
+    public static final String TEMPORARY_PREFIX = ".part-";
+
+    private static final Gson GSON = new Gson();
+
+    /**
+     * A completed input and its output.
+     */
+    public static class Entry {
+
+        public final String input;
+        public final long size;
+        public final long lastModified;
+        public final String sha256;
+        public final String output;
+
+        public Entry(String input, long size, long lastModified, String sha256, String output) {
+            this.input = input;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.sha256 = sha256;
+            this.output = output;
+        }
+    }
+
+    private final Path path;
+    private final Map<String, Entry> entries;
+    private final BufferedWriter writer;
+    private final boolean hashInputs;
+
+    private JobManifest(Path path, Map<String, Entry> entries, BufferedWriter writer, boolean hashInputs) {
+        this.path = path;
+        this.entries = entries;
+        this.writer = writer;
+        this.hashInputs = hashInputs;
+    }
+
+    /**
+     * Opens the manifest in the given directory and records the hash of every committed input.
+     *
+     * @see #open(Path, boolean)
+     */
+    public static JobManifest open(Path directory) throws IOException {
+        return open(directory, true);
+    }
+
+    /**
+     * Opens the manifest in the given directory, reading the entries of previous runs if there are any.
+     *
+     * @param directory  The output directory of the job.
+     * @param hashInputs Whether the SHA-256 hash of every committed input is recorded, which reads the input again.
+     *                   Without a hash, an input is only complete if its modification time has not changed.
+     * @return The manifest.
+     * @throws IOException If the manifest cannot be read or created.
+     */
+    public static JobManifest open(Path directory, boolean hashInputs) throws IOException {
+        Files.createDirectories(directory);
+        Path path = directory.resolve(FILE_NAME);
+        Map<String, Entry> entries = new HashMap<>();
+        if (Files.exists(path)) {
+            byte[] bytes = Files.readAllBytes(path);
+            // The last line is cut off if the job was killed while writing it, it is dropped so that the next
+            // entry starts on a line of its own
+            int complete = bytes.length;
+            while (complete > 0 && bytes[complete - 1] != '\n') complete--;
+            if (complete < bytes.length) {
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    channel.truncate(complete);
+                }
+            }
+            for (String line : new String(bytes, 0, complete, StandardCharsets.UTF_8).split("\n")) {
+                if (line.isBlank()) continue;
+                try {
+                    Entry entry = GSON.fromJson(line, Entry.class);
+                    if (entry != null && entry.input != null) entries.put(entry.input, entry);
+                } catch (JsonParseException e) {
+                    // Skip corrupt lines, their inputs are simply processed again
+                }
+            }
+        }
+        BufferedWriter writer = Files.newBufferedWriter(
+            path,
+            StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.APPEND
+        );
+        return new JobManifest(path, entries, writer, hashInputs);
+    }
+
+    public Path getPath() {
+        return this.path;
+    }
+
+    /**
+     * @param input  The input file.
+     * @param output The output file the input is written to.
+     * @return Whether the input has been completed by a previous run, has not changed since and its output still
+     * exists.
+     * @throws IOException If the input cannot be read.
+     */
+    public boolean isComplete(Path input, Path output) throws IOException {
+        Entry entry;
+        synchronized (this) {
+            entry = this.entries.get(key(input));
+        }
+        if (entry == null || !Objects.equals(entry.output, key(output)) || !Files.isRegularFile(output)) {
+            return false;
+        }
+        if (Files.size(input) != entry.size) return false;
+        if (Files.getLastModifiedTime(input).toMillis() == entry.lastModified) return true;
+        // A copied or touched input keeps its content, so only hash it if the modification time differs
+        return entry.sha256 != null && sha256(input).equals(entry.sha256);
+    }
+
+    /**
+     * Moves the complete output from its temporary file to its final location and records the input as complete.
+     *
+     * @param input  The input file.
+     * @param output The final output file, its temporary file must exist.
+     * @throws IOException If the output cannot be moved or the manifest cannot be written.
+     */
+    public void commit(Path input, Path output) throws IOException {
+        moveAtomically(getTemporaryFile(output), output);
+        Entry entry = new Entry(
+            key(input),
+            Files.size(input),
+            Files.getLastModifiedTime(input).toMillis(),
+            this.hashInputs ? sha256(input) : null,
+            key(output)
+        );
+        synchronized (this) {
+            this.entries.put(entry.input, entry);
+            this.writer.write(GSON.toJson(entry));
+            this.writer.newLine();
+            this.writer.flush();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        this.writer.close();
+    }
+
+    /**
+     * @return The file the given output is written to until it is complete. It is in the same directory and keeps
+     * the extension, so the compression is chosen by it as for the output itself.
+     */
+    public static Path getTemporaryFile(Path output) {
+        return output.resolveSibling(TEMPORARY_PREFIX + output.getFileName().toString());
+    }
+
+    private static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static String key(Path path) {
+        return path.toAbsolutePath().normalize().toString();
+    }
+
+    private static String sha256(Path path) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[1 << 20];
+        try (InputStream stream = Files.newInputStream(path)) {
+            int read;
+            while ((read = stream.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
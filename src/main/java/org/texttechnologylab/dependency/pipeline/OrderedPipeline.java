@@ -0,0 +1,277 @@
+package org.texttechnologylab.dependency.pipeline;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Streams items through a pool of workers and hands the results to a sink in input order.
+ * <p>
+ * The pipeline has three stages. A dedicated parser thread reads the items, groups them into batches of
+ * {@code batchSize} items, submits each batch to the executor and puts the pending batch into a queue holding at
+ * most {@code queueDepth} batches. The workers of the executor apply the function to every item of a batch. The
+ * calling thread acts as the writer: it takes the batches from the queue in order, waits for them to complete and
+ * passes their results to the sink. If the writer or the workers fall behind, the parser blocks on the full queue,
+ * so memory use is bounded by {@code (queueDepth + 2) * batchSize} items regardless of the input size.
+ * <p>
+ * Every stage measures the time it spends working, see {@link Statistics}.
+ */
+public class OrderedPipeline {
+
+    public static final int DEFAULT_BATCH_SIZE = 64;
+
+    /**
+     * Marks the end of the input in the queue.
+     */
+    private static final Future<?> END = CompletableFuture.completedFuture(null);
+
+    /**
+     * Receives the results of the pipeline in input order.
+     */
+    @FunctionalInterface
+    public interface Sink<T> {
+        void accept(T item) throws IOException;
+    }
+
+    private final ExecutorService executor;
+    private final int workers;
+    private final int batchSize;
+    private final int queueDepth;
+
+    /**
+     * @param executor   The executor that runs the workers, may be shared between pipelines.
+     * @param workers    The number of threads of the executor, only used to compute the worker utilization.
+     * @param batchSize  The number of items per batch.
+     * @param queueDepth The maximum number of batches that are submitted but not yet taken by the writer.
+     */
+    public OrderedPipeline(ExecutorService executor, int workers, int batchSize, int queueDepth) {
+        if (workers < 1) {
+            throw new IllegalArgumentException(String.format("Number of workers must be positive, but is %d", workers));
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException(String.format("Batch size must be positive, but is %d", batchSize));
+        }
+        if (queueDepth < 1) {
+            throw new IllegalArgumentException(String.format("Queue depth must be positive, but is %d", queueDepth));
+        }
+        this.executor = executor;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.queueDepth = queueDepth;
+    }
+
+    /**
+     * @param items    The items to process, only accessed by the parser thread.
+     * @param function The function applied by the workers.
+     * @param sink     The sink for the results, called on the calling thread.
+     * @return The statistics of this run.
+     * @throws IOException          If the sink fails.
+     * @throws InterruptedException If the calling thread is interrupted while waiting for a batch.
+     * @throws RuntimeException     If reading an item or applying the function fails, remaining batches are cancelled.
+     */
+    public <I, O> Statistics run(Iterator<I> items, Function<I, O> function, Sink<O> sink)
+        throws IOException, InterruptedException {
+        final long start = System.nanoTime();
+        final BlockingQueue<Future<?>> queue = new ArrayBlockingQueue<>(queueDepth);
+        final Parser<I, O> parser = new Parser<>(items, function, queue);
+        final Thread parserThread = new Thread(parser, "pipeline-parser");
+        parserThread.setDaemon(true);
+        parserThread.start();
+
+        long writerBusy = 0;
+        long written = 0;
+        try {
+            while (true) {
+                Future<?> future = queue.take();
+                if (future == END) break;
+                @SuppressWarnings("unchecked")
+                List<O> batch = (List<O>) await(future);
+
+                long writeStart = System.nanoTime();
+                for (O result : batch) {
+                    sink.accept(result);
+                }
+                writerBusy += System.nanoTime() - writeStart;
+                written += batch.size();
+            }
+        } finally {
+            // Only still running if the writer failed
+            parserThread.interrupt();
+            parserThread.join();
+            for (Future<?> future : queue) {
+                future.cancel(true);
+            }
+        }
+        if (parser.failure != null) {
+            if (parser.failure instanceof RuntimeException runtimeException) throw runtimeException;
+            if (parser.failure instanceof Error error) throw error;
+            throw new RuntimeException(parser.failure);
+        }
+
+        return new Statistics(
+            written,
+            parser.batches,
+            workers,
+            System.nanoTime() - start,
+            parser.busy,
+            parser.workerBusy.sum(),
+            writerBusy
+        );
+    }
+
+    private static Object await(Future<?> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (CancellationException e) {
+            throw new IllegalStateException("Worker was cancelled", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) throw runtimeException;
+            if (cause instanceof Error error) throw error;
+            throw new RuntimeException(cause);
+        }
+    }
+
+    private class Parser<I, O> implements Runnable {
+
+        private final Iterator<I> items;
+        private final Function<I, O> function;
+        private final BlockingQueue<Future<?>> queue;
+
+        final LongAdder workerBusy = new LongAdder();
+        volatile Throwable failure;
+        long batches = 0;
+        long busy = 0;
+
+        Parser(Iterator<I> items, Function<I, O> function, BlockingQueue<Future<?>> queue) {
+            this.items = items;
+            this.function = function;
+            this.queue = queue;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    long readStart = System.nanoTime();
+                    final List<I> batch = new ArrayList<>(batchSize);
+                    while (batch.size() < batchSize && items.hasNext()) {
+                        batch.add(items.next());
+                    }
+                    busy += System.nanoTime() - readStart;
+                    if (batch.isEmpty()) break;
+
+                    queue.put(executor.submit(() -> apply(batch)));
+                    batches++;
+                }
+                queue.put(END);
+            } catch (InterruptedException e) {
+                // The writer stopped and is no longer taking batches
+            } catch (Throwable e) {
+                failure = e;
+                // The writer only waits for batches that are already in the queue, so this does not block forever
+                try {
+                    queue.put(END);
+                } catch (InterruptedException ignored) {
+                }
+            }
+        }
+
+        private List<O> apply(List<I> batch) {
+            long workStart = System.nanoTime();
+            try {
+                final List<O> results = new ArrayList<>(batch.size());
+                for (I item : batch) {
+                    results.add(function.apply(item));
+                }
+                return results;
+            } finally {
+                workerBusy.add(System.nanoTime() - workStart);
+            }
+        }
+    }
+
+    /**
+     * Per-stage statistics of a pipeline run. The utilization of a stage is the fraction of the wall time it spent
+     * working rather than waiting for another stage, so the stage with the highest utilization is the bottleneck.
+     * If the executor is shared with other pipelines, the worker utilization only counts the work of this run.
+     */
+    public static class Statistics {
+
+        public final long items;
+        public final long batches;
+        public final int workers;
+        public final long wallNanos;
+        public final long parserBusyNanos;
+        public final long workerBusyNanos;
+        public final long writerBusyNanos;
+
+        public Statistics(
+            long items,
+            long batches,
+            int workers,
+            long wallNanos,
+            long parserBusyNanos,
+            long workerBusyNanos,
+            long writerBusyNanos
+        ) {
+            this.items = items;
+            this.batches = batches;
+            this.workers = workers;
+            this.wallNanos = wallNanos;
+            this.parserBusyNanos = parserBusyNanos;
+            this.workerBusyNanos = workerBusyNanos;
+            this.writerBusyNanos = writerBusyNanos;
+        }
+
+        public double getParserUtilization() {
+            return utilization(parserBusyNanos, 1);
+        }
+
+        public double getWorkerUtilization() {
+            return utilization(workerBusyNanos, workers);
+        }
+
+        public double getWriterUtilization() {
+            return utilization(writerBusyNanos, 1);
+        }
+
+        /**
+         * @return The name of the stage with the highest utilization.
+         */
+        public String getBottleneck() {
+            double parser = getParserUtilization();
+            double worker = getWorkerUtilization();
+            double writer = getWriterUtilization();
+            if (parser >= worker && parser >= writer) return "parser";
+            return worker >= writer ? "workers" : "writer";
+        }
+
+        public String report() {
+            return String.format(
+                "%d items in %d batches in %.2fs, utilization: parser %.0f%%, workers %.0f%%, writer %.0f%% (bottleneck: %s)",
+                items,
+                batches,
+                wallNanos / 1e9,
+                100 * getParserUtilization(),
+                100 * getWorkerUtilization(),
+                100 * getWriterUtilization(),
+                getBottleneck()
+            );
+        }
+
+        private double utilization(long busyNanos, int threads) {
+            return wallNanos > 0 ? (double) busyNanos / ((double) wallNanos * threads) : 0.0;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.texttechnologylab.dependency.pipeline;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * A worker pool that is shared by all users in the JVM, e.g. by all instances of an analysis engine that a
+ * pipeline scales out, so the total number of worker threads stays bounded no matter how many instances there are.
+ * <p>
+ * The pool is created by the first {@link #acquire(int)} with the requested number of threads and shut down by the
+ * {@link #release()} of its last user. Later users share the existing pool, whatever number of threads they
+ * request.
+ */
+public final class SharedWorkerPool {
+
+    private static ForkJoinPool pool;
+    private static int users = 0;
+
+    private SharedWorkerPool() {
+    }
+
+    /**
+     * @param threads The number of worker threads if the pool has to be created.
+     * @return The shared pool, every call must be matched by a call to {@link #release()}.
+     */
+    public static synchronized ExecutorService acquire(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException(String.format("Number of threads must be positive, but is %d", threads));
+        }
+        if (pool == null) {
+            // Batches are independent tasks, so they are taken in submission order rather than as a stack
+            pool = new ForkJoinPool(
+                threads,
+                forkJoinPool -> {
+                    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                    thread.setName("shared-worker-" + thread.getPoolIndex());
+                    return thread;
+                },
+                null,
+                true
+            );
+        }
+        users++;
+        return pool;
+    }
+
+    /**
+     * @return The number of worker threads of the shared pool, or 0 if there is none.
+     */
+    public static synchronized int getThreads() {
+        return pool == null ? 0 : pool.getParallelism();
+    }
+
+    /**
+     * Releases a pool obtained from {@link #acquire(int)}, the pool is shut down once it has no users left.
+     */
+    public static synchronized void release() {
+        if (users == 0) {
+            throw new IllegalStateException("Shared worker pool released more often than it was acquired");
+        }
+        if (--users == 0) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+}
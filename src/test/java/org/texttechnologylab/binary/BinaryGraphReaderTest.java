@@ -0,0 +1,130 @@
+package org.texttechnologylab.binary;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.texttechnologylab.dependency.binary.BinaryGraphFormat;
+import org.texttechnologylab.dependency.binary.BinaryGraphReader;
+import org.texttechnologylab.dependency.binary.BinaryGraphWriter;
+import org.texttechnologylab.dependency.graph.CompactDependencyTree;
+import org.texttechnologylab.dependency.graph.InvalidDependencyGraphException;
+import org.texttechnologylab.dependency.json.CountingIterator;
+import org.texttechnologylab.dependency.json.IntGraphIteratorItem;
+
+public class BinaryGraphReaderTest {
+
+    @Test
+    public void testRoundTrip(@TempDir Path tempDir) throws IOException, InvalidDependencyGraphException {
+        // Enough sentences to span several read blocks
+        List<IntGraphIteratorItem> items = randomItems(new Random(3), 40000);
+        Path path = tempDir.resolve("graphs" + BinaryGraphFormat.EXTENSION);
+        Assertions.assertEquals(items.size(), BinaryGraphWriter.convert(items.iterator(), path));
+        Assertions.assertTrue(BinaryGraphFormat.isBinaryGraphFile(path));
+
+        try (CountingIterator<IntGraphIteratorItem> iterator = BinaryGraphReader.iterate(path)) {
+            for (IntGraphIteratorItem expected : items) {
+                Assertions.assertTrue(iterator.hasNext());
+                assertSameGraph(expected, iterator.next());
+            }
+            Assertions.assertFalse(iterator.hasNext());
+            Assertions.assertEquals(items.size(), iterator.count());
+        }
+    }
+
+    @Test
+    public void testRandomAccessAndSplit(@TempDir Path tempDir) throws IOException, InvalidDependencyGraphException {
+        List<IntGraphIteratorItem> items = randomItems(new Random(5), 500);
+        Path path = tempDir.resolve("graphs" + BinaryGraphFormat.EXTENSION);
+        BinaryGraphWriter.convert(items.iterator(), path);
+
+        try (BinaryGraphReader reader = new BinaryGraphReader(path)) {
+            Assertions.assertEquals(items.size(), reader.size());
+            for (int index : new int[] { 0, 1, 250, 499 }) {
+                assertSameGraph(items.get(index), reader.get(index));
+            }
+            Assertions.assertThrows(IndexOutOfBoundsException.class, () -> reader.get(500));
+
+            for (int parts : new int[] { 1, 3, 8, 1000 }) {
+                int[] boundaries = reader.split(parts);
+                Assertions.assertEquals(0, boundaries[0]);
+                Assertions.assertEquals(items.size(), boundaries[boundaries.length - 1]);
+                Assertions.assertTrue(boundaries.length - 1 <= parts);
+
+                int index = 0;
+                for (int part = 0; part + 1 < boundaries.length; part++) {
+                    Assertions.assertTrue(boundaries[part] < boundaries[part + 1], "ranges must not be empty");
+                    CountingIterator<IntGraphIteratorItem> iterator = reader.iterator(boundaries[part], boundaries[part + 1]);
+                    while (iterator.hasNext()) {
+                        assertSameGraph(items.get(index++), iterator.next());
+                    }
+                }
+                Assertions.assertEquals(items.size(), index);
+            }
+        }
+    }
+
+    @Test
+    public void testNotBinary(@TempDir Path tempDir) throws IOException {
+        Path path = tempDir.resolve("graphs.json");
+        Files.writeString(path, "{\"1234\": [[[0, 1], [0, 2], [2, 3]], [[3, 4]]]}");
+        Assertions.assertFalse(BinaryGraphFormat.isBinaryGraphFile(path));
+        Assertions.assertThrows(IOException.class, () -> new BinaryGraphReader(path));
+    }
+
+    /**
+     * Compares the trees of both items, or the raw edges if they do not form a tree.
+     */
+    private static void assertSameGraph(IntGraphIteratorItem expected, IntGraphIteratorItem actual)
+        throws InvalidDependencyGraphException {
+        Assertions.assertEquals(expected.textId, actual.textId);
+        CompactDependencyTree expectedTree;
+        try {
+            expectedTree = expected.toTree();
+        } catch (InvalidDependencyGraphException e) {
+            Assertions.assertArrayEquals(expected.dependencyEdges, actual.dependencyEdges);
+            Assertions.assertArrayEquals(expected.punctEdges, actual.punctEdges);
+            return;
+        }
+        CompactDependencyTree actualTree = actual.toTree();
+        Assertions.assertArrayEquals(expectedTree.getHeads(), actualTree.getHeads());
+        Assertions.assertArrayEquals(expectedTree.getPunctMask(), actualTree.getPunctMask());
+    }
+
+    private static List<IntGraphIteratorItem> randomItems(Random random, int size) {
+        List<IntGraphIteratorItem> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int n = random.nextInt(i % 100 == 0 ? 300 : 60);
+            int[] dependencyEdges = new int[2 * n];
+            int[] punctEdges = new int[0];
+            int edges = 0;
+            for (int node = 1; node <= n; node++) {
+                int head = node == 1 ? 0 : random.nextInt(node);
+                if (random.nextInt(8) == 0) {
+                    punctEdges = Arrays.copyOf(punctEdges, punctEdges.length + 2);
+                    punctEdges[punctEdges.length - 2] = head;
+                    punctEdges[punctEdges.length - 1] = node;
+                } else {
+                    dependencyEdges[edges++] = head;
+                    dependencyEdges[edges++] = node;
+                }
+            }
+            dependencyEdges = Arrays.copyOf(dependencyEdges, edges);
+            // Some sentences with a token that has two heads, which are stored as raw edges
+            if (n > 2 && random.nextInt(50) == 0) {
+                punctEdges = Arrays.copyOf(punctEdges, punctEdges.length + 2);
+                punctEdges[punctEdges.length - 2] = n;
+                punctEdges[punctEdges.length - 1] = 1;
+            }
+            items.add(new IntGraphIteratorItem("s" + i + (i % 7 == 0 ? "/ä" : ""), dependencyEdges, punctEdges));
+        }
+        return items;
+    }
+}
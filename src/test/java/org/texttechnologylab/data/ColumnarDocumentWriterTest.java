@@ -0,0 +1,172 @@
+package org.texttechnologylab.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.texttechnologylab.dependency.data.ColumnarDocument;
+import org.texttechnologylab.dependency.data.ColumnarDocumentWriter;
+import org.texttechnologylab.dependency.data.OutputFormat;
+import org.texttechnologylab.dependency.data.SentenceDataPoint;
+import org.texttechnologylab.dependency.data.SentenceDataPointWriter;
+import org.texttechnologylab.dependency.graph.CompactDependencyTree;
+import org.texttechnologylab.dependency.graph.InvalidDependencyGraphException;
+
+public class ColumnarDocumentWriterTest {
+
+    private static final Map<String, String> ANNOTATION = Map.of("file", "<data>/2021 Ä.json", "dateYear", "2021");
+    private static final Map<String, String> META_DATA = Map.of("documentId", "corpus/parser/2021");
+
+    private static class NamedSentenceDataPoint extends SentenceDataPoint {
+
+        public final String textId;
+
+        public NamedSentenceDataPoint(String textId, CompactDependencyTree tree, int randomTreeSamples)
+            throws InvalidDependencyGraphException {
+            super(tree, randomTreeSamples);
+            this.textId = textId;
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws InvalidDependencyGraphException, IOException {
+        List<SentenceDataPoint> sentences = randomSentences(new Random(42), 600, 3);
+        ColumnarDocument document = writeAndRead(OutputFormat.COLUMNAR, sentences);
+
+        Assertions.assertEquals(ANNOTATION, document.getDocumentAnnotation());
+        Assertions.assertEquals(META_DATA, document.getDocumentMetaData());
+        Assertions.assertEquals(sentences.size(), document.getNumberOfRows());
+        // Subclass fields first, like in the JSON output, and no lists by default
+        Assertions.assertEquals("textId", document.getColumnNames().get(0));
+        Assertions.assertFalse(document.getColumnNames().contains("dependencyEdges"));
+
+        for (int row = 0; row < sentences.size(); row++) {
+            SentenceDataPoint expected = sentences.get(row);
+            Assertions.assertEquals(((NamedSentenceDataPoint) expected).textId, document.getColumn("textId").getString(row));
+            Assertions.assertEquals(expected.mdd, document.getDoubleColumn("mdd")[row]);
+            Assertions.assertEquals(expected.ndd, document.getDoubleColumn("ndd")[row]);
+            Assertions.assertEquals(expected.crossings, document.getIntColumn("crossings")[row]);
+            Assertions.assertEquals(expected.sentenceLength, document.getIntColumn("sentenceLength")[row]);
+            Assertions.assertEquals(expected.treeEditDistance, document.getIntColumn("treeEditDistance")[row]);
+            Assertions.assertEquals(expected.treeEditDistanceMin, document.getIntColumn("treeEditDistanceMin")[row]);
+            Assertions.assertEquals(expected.treeEditDistanceMean, document.getDoubleColumn("treeEditDistanceMean")[row]);
+            Assertions.assertFalse(document.isNull("treeEditDistanceMin", row));
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> document.getColumn("missing"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> document.getIntColumn("mdd"));
+    }
+
+    @Test
+    public void testListsAndNulls() throws InvalidDependencyGraphException, IOException {
+        // A single random tree sample leaves the summary statistics empty
+        List<SentenceDataPoint> sentences = randomSentences(new Random(7), 20, 1);
+        ColumnarDocument document = writeAndRead(OutputFormat.COLUMNAR_WITH_LISTS, sentences);
+
+        for (int row = 0; row < sentences.size(); row++) {
+            SentenceDataPoint expected = sentences.get(row);
+            Assertions.assertTrue(document.isNull("treeEditDistanceMin", row));
+            Assertions.assertTrue(document.isNull("treeEditDistanceVariance", row));
+            Assertions.assertFalse(document.isNull("mdd", row));
+
+            int[] distances = document.getColumn("dependencyDistances").getList(row);
+            Assertions.assertArrayEquals(expected.dependencyDistances.stream().mapToInt(Integer::intValue).toArray(), distances);
+
+            int[] edges = document.getColumn("dependencyEdgesWithPunct").getList(row);
+            Assertions.assertEquals(2 * expected.dependencyEdgesWithPunct.size(), edges.length);
+            for (int i = 0; i < expected.dependencyEdgesWithPunct.size(); i++) {
+                Assertions.assertEquals((int) expected.dependencyEdgesWithPunct.get(i)[0], edges[2 * i]);
+                Assertions.assertEquals((int) expected.dependencyEdgesWithPunct.get(i)[1], edges[2 * i + 1]);
+            }
+        }
+    }
+
+    @Test
+    public void testRowGroups() throws InvalidDependencyGraphException, IOException {
+        List<SentenceDataPoint> sentences = randomSentences(new Random(11), 25, 1);
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        // The last row group is not full
+        try (ColumnarDocumentWriter writer = new ColumnarDocumentWriter(stream, ANNOTATION, META_DATA, true, 7)) {
+            for (SentenceDataPoint sentence : sentences) {
+                writer.write(sentence);
+            }
+        }
+        ColumnarDocument document = ColumnarDocument.read(new ByteArrayInputStream(stream.toByteArray()));
+        ColumnarDocument expected = writeAndRead(OutputFormat.COLUMNAR_WITH_LISTS, sentences);
+
+        Assertions.assertEquals(sentences.size(), document.getNumberOfRows());
+        Assertions.assertEquals(expected.getColumnNames(), document.getColumnNames());
+        Assertions.assertArrayEquals(expected.getDoubleColumn("mdd"), document.getDoubleColumn("mdd"));
+        Assertions.assertArrayEquals(expected.getIntColumn("crossings"), document.getIntColumn("crossings"));
+        for (int row = 0; row < sentences.size(); row++) {
+            Assertions.assertEquals(expected.getColumn("textId").getString(row), document.getColumn("textId").getString(row));
+            Assertions.assertArrayEquals(
+                expected.getColumn("dependencyEdges").getList(row),
+                document.getColumn("dependencyEdges").getList(row)
+            );
+            Assertions.assertTrue(document.isNull("treeEditDistanceMin", row));
+        }
+    }
+
+    @Test
+    public void testMixedClasses() throws InvalidDependencyGraphException, IOException {
+        CompactDependencyTree tree = CompactDependencyTree.fromHeads(new int[] { 0, 0, 1, 1 }, new boolean[4]);
+        try (SentenceDataPointWriter writer = OutputFormat.COLUMNAR.open(new ByteArrayOutputStream(), ANNOTATION, META_DATA)) {
+            writer.write(new NamedSentenceDataPoint("a", tree, 1));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> writer.write(new SentenceDataPoint(tree, 1)));
+        }
+    }
+
+    @Test
+    public void testExtensions() {
+        Set<String> extensions = new HashSet<>();
+        for (OutputFormat format : OutputFormat.values()) {
+            Assertions.assertTrue(extensions.add(format.getExtension()), format.getExtension());
+        }
+    }
+
+    @Test
+    public void testEmptyDocument() throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        new ColumnarDocumentWriter(stream, ANNOTATION, META_DATA, false).close();
+        ColumnarDocument document = ColumnarDocument.read(new ByteArrayInputStream(stream.toByteArray()));
+        Assertions.assertEquals(0, document.getNumberOfRows());
+        Assertions.assertTrue(document.getColumnNames().isEmpty());
+        Assertions.assertEquals(ANNOTATION, document.getDocumentAnnotation());
+    }
+
+    private static ColumnarDocument writeAndRead(OutputFormat format, List<SentenceDataPoint> sentences) throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        try (SentenceDataPointWriter writer = format.open(stream, ANNOTATION, META_DATA)) {
+            for (SentenceDataPoint sentence : sentences) {
+                writer.write(sentence);
+            }
+            Assertions.assertEquals(sentences.size(), writer.getNumberOfSentences());
+        }
+        return ColumnarDocument.read(new ByteArrayInputStream(stream.toByteArray()));
+    }
+
+    private static List<SentenceDataPoint> randomSentences(Random random, int size, int randomTreeSamples)
+        throws InvalidDependencyGraphException {
+        List<SentenceDataPoint> sentences = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int n = 3 + random.nextInt(20);
+            int[] heads = new int[n + 1];
+            boolean[] punct = new boolean[n + 1];
+            for (int node = 2; node <= n; node++) {
+                heads[node] = 1 + random.nextInt(node - 1);
+                punct[node] = node == n;
+            }
+            CompactDependencyTree tree = CompactDependencyTree.fromHeads(heads, punct);
+            sentences.add(new NamedSentenceDataPoint("text" + i + (i % 5 == 0 ? "/ä" : ""), tree, randomTreeSamples));
+        }
+        return sentences;
+    }
+}
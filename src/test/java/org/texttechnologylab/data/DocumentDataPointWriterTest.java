@@ -0,0 +1,116 @@
+package org.texttechnologylab.data;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.EnumSet;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.texttechnologylab.dependency.data.DocumentDataPoint;
+import org.texttechnologylab.dependency.data.DocumentDataPointWriter;
+import org.texttechnologylab.dependency.data.Metric;
+import org.texttechnologylab.dependency.data.SentenceDataPoint;
+import org.texttechnologylab.dependency.data.SentenceDataPointTypeAdapterFactory;
+import org.texttechnologylab.dependency.graph.CompactDependencyTree;
+import org.texttechnologylab.dependency.graph.InvalidDependencyGraphException;
+import org.texttechnologylab.dependency.graph.random.RandomTreeSampler;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+public class DocumentDataPointWriterTest {
+
+    private static final Gson GSON = new GsonBuilder()
+        .registerTypeAdapterFactory(new SentenceDataPointTypeAdapterFactory())
+        .create();
+
+    private static class NamedSentenceDataPoint extends SentenceDataPoint {
+
+        public final String textId;
+
+        public NamedSentenceDataPoint(String textId, CompactDependencyTree tree, int randomTreeSamples)
+            throws InvalidDependencyGraphException {
+            super(tree, randomTreeSamples);
+            this.textId = textId;
+        }
+    }
+
+    @Test
+    public void testMatchesGson() throws InvalidDependencyGraphException, IOException {
+        DocumentDataPoint documentDataPoint = new DocumentDataPoint();
+        documentDataPoint.getDocumentAnnotation().put("file", "<data>/2021 \"Zeitung\" & Ä.json");
+        documentDataPoint.getDocumentAnnotation().put("dateYear", "2021");
+        documentDataPoint.getDocumentMetaData().put("documentId", "corpus/parser/2021");
+
+        Random random = new Random(42);
+        for (int i = 0; i < 20; i++) {
+            int n = 3 + random.nextInt(20);
+            int[] heads = new int[n + 1];
+            boolean[] punct = new boolean[n + 1];
+            for (int node = 2; node <= n; node++) {
+                heads[node] = 1 + random.nextInt(node - 1);
+                punct[node] = node == n;
+            }
+            CompactDependencyTree tree = CompactDependencyTree.fromHeads(heads, punct);
+            documentDataPoint.add(
+                i % 2 == 0 ? new SentenceDataPoint(tree, 1) : new NamedSentenceDataPoint("text" + i, tree, 3)
+            );
+        }
+
+        StringWriter writer = new StringWriter();
+        DocumentDataPointWriter.write(documentDataPoint, writer);
+        Assertions.assertEquals(GSON.toJson(documentDataPoint), writer.toString());
+    }
+
+    @Test
+    public void testSpecialFloatingPointValues() throws InvalidDependencyGraphException {
+        // A single token has no syntactic links, so its mdd is 0 / 0
+        CompactDependencyTree tree = CompactDependencyTree.fromHeads(new int[] { 0, 0 }, new boolean[2]);
+        SentenceDataPoint sentence = new SentenceDataPoint(tree, EnumSet.of(Metric.MDD), 1, RandomTreeSampler.seeded(1L, "test"));
+        Assertions.assertTrue(Double.isNaN(sentence.mdd));
+
+        DocumentDataPoint documentDataPoint = new DocumentDataPoint();
+        documentDataPoint.add(sentence);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new Gson().toJson(sentence));
+        Assertions.assertThrows(
+            IllegalArgumentException.class,
+            () -> DocumentDataPointWriter.write(documentDataPoint, new StringWriter())
+        );
+
+        Gson special = new GsonBuilder()
+            .registerTypeAdapterFactory(new SentenceDataPointTypeAdapterFactory())
+            .serializeSpecialFloatingPointValues()
+            .create();
+        Assertions.assertTrue(special.toJson(sentence).contains("\"mdd\":NaN"));
+    }
+
+    @Test
+    public void testReadBack() throws InvalidDependencyGraphException {
+        CompactDependencyTree tree = CompactDependencyTree.fromHeads(new int[] { 0, 2, 0, 2 }, new boolean[4]);
+        SentenceDataPoint sentence = new SentenceDataPoint(tree, 3, RandomTreeSampler.seeded(1L, "test"));
+
+        String json = GSON.toJson(sentence);
+        SentenceDataPoint read = GSON.fromJson(json, SentenceDataPoint.class);
+        Assertions.assertEquals(sentence.mdd, read.mdd);
+        Assertions.assertEquals(sentence.treeEditDistanceMax, read.treeEditDistanceMax);
+        Assertions.assertEquals(json, GSON.toJson(read));
+    }
+
+    @Test
+    public void testEmptyDocument() throws IOException {
+        DocumentDataPoint documentDataPoint = new DocumentDataPoint();
+
+        StringWriter writer = new StringWriter();
+        try (
+            DocumentDataPointWriter documentWriter = new DocumentDataPointWriter(
+                writer,
+                documentDataPoint.getDocumentAnnotation(),
+                documentDataPoint.getDocumentMetaData()
+            )
+        ) {
+            Assertions.assertEquals(0, documentWriter.getNumberOfSentences());
+        }
+        Assertions.assertEquals(GSON.toJson(documentDataPoint), writer.toString());
+    }
+}
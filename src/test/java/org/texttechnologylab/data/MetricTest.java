@@ -0,0 +1,123 @@
+package org.texttechnologylab.data;
+
+import java.util.EnumSet;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.texttechnologylab.dependency.data.Metric;
+import org.texttechnologylab.dependency.data.SentenceDataPoint;
+import org.texttechnologylab.dependency.data.SentenceDataPointTypeAdapterFactory;
+import org.texttechnologylab.dependency.graph.CompactDependencyTree;
+import org.texttechnologylab.dependency.graph.InvalidDependencyGraphException;
+import org.texttechnologylab.dependency.graph.random.RandomTreeSampler;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+
+public class MetricTest {
+
+    private static final Gson GSON = new GsonBuilder()
+        .registerTypeAdapterFactory(new SentenceDataPointTypeAdapterFactory())
+        .create();
+
+    private static CompactDependencyTree getTree() throws InvalidDependencyGraphException {
+        return CompactDependencyTree.fromHeads(
+            new int[] { 0, 2, 0, 4, 2, 2, 7, 5, 2 },
+            new boolean[] { false, false, false, false, false, false, false, false, true }
+        );
+    }
+
+    @Test
+    public void testParse() {
+        Assertions.assertEquals(EnumSet.of(Metric.MDD, Metric.NDD), Metric.parse("mdd, NDD"));
+        Assertions.assertEquals(
+            EnumSet.of(Metric.TREE_EDIT_DISTANCE, Metric.CROSSINGS),
+            Metric.parse("treeEditDistance", "tree_edit_distance,crossings")
+        );
+        Assertions.assertEquals(Metric.ALL, Metric.parse());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Metric.parse("mdd,unknown"));
+    }
+
+    @Test
+    public void testPrerequisites() {
+        Assertions.assertEquals(
+            EnumSet.of(
+                Metric.NDD,
+                Metric.MDD,
+                Metric.ROOT_DISTANCE,
+                Metric.SENTENCE_LENGTH,
+                Metric.DEPENDENCY_DISTANCE_SUM,
+                Metric.NUMBER_OF_SYNTACTIC_LINKS
+            ),
+            Metric.withPrerequisites(EnumSet.of(Metric.NDD))
+        );
+        Assertions.assertEquals(EnumSet.of(Metric.CROSSINGS), Metric.withPrerequisites(EnumSet.of(Metric.CROSSINGS)));
+    }
+
+    @Test
+    public void testSubsetMatchesAllMetrics() throws InvalidDependencyGraphException {
+        CompactDependencyTree tree = getTree();
+        SentenceDataPoint all = new SentenceDataPoint(tree, 3, RandomTreeSampler.seeded(1L, "test"));
+        SentenceDataPoint subset = new SentenceDataPoint(
+            tree,
+            EnumSet.of(Metric.NDD, Metric.CROSSINGS),
+            3,
+            RandomTreeSampler.seeded(1L, "test")
+        );
+
+        Assertions.assertEquals(all.ndd, subset.ndd);
+        Assertions.assertEquals(all.mdd, subset.mdd);
+        Assertions.assertEquals(all.rootDistance, subset.rootDistance);
+        Assertions.assertEquals(all.crossings, subset.crossings);
+        Assertions.assertNull(subset.dependencyEdges);
+        Assertions.assertNull(subset.dependencyDistances);
+        Assertions.assertFalse(subset.hasValue("headFinalDistance"));
+        Assertions.assertFalse(subset.hasValue("treeHeight"));
+        Assertions.assertFalse(subset.hasValue("treeEditDistance"));
+        Assertions.assertFalse(subset.hasValue("treeEditDistanceMin"));
+        Assertions.assertTrue(subset.hasValue("ndd"));
+        Assertions.assertEquals(Metric.withPrerequisites(EnumSet.of(Metric.NDD, Metric.CROSSINGS)), subset.getMetrics());
+
+        // Only the selected metrics and their prerequisites are serialized
+        JsonObject json = GSON.toJsonTree(subset).getAsJsonObject();
+        Assertions.assertEquals(
+            Metric.withPrerequisites(EnumSet.of(Metric.NDD, Metric.CROSSINGS)).size(),
+            json.size()
+        );
+        for (Metric metric : Metric.withPrerequisites(EnumSet.of(Metric.NDD, Metric.CROSSINGS))) {
+            Assertions.assertTrue(json.has(metric.getName()), metric.getName());
+        }
+    }
+
+    @Test
+    public void testFlatTree() throws InvalidDependencyGraphException {
+        // All tokens are attached to the root, so no token has dependents
+        CompactDependencyTree tree = CompactDependencyTree.fromHeads(new int[] { 0, 0, 0, 0 }, new boolean[4]);
+        SentenceDataPoint subset = new SentenceDataPoint(
+            tree,
+            EnumSet.of(Metric.MDD, Metric.TREE_DEGREE),
+            1,
+            RandomTreeSampler.seeded(1L, "test")
+        );
+        Assertions.assertEquals(0., subset.mdd);
+        Assertions.assertEquals(0, subset.treeDegree);
+
+        Assertions.assertThrows(
+            InvalidDependencyGraphException.class,
+            () -> new SentenceDataPoint(tree, EnumSet.of(Metric.HEAD_FINAL_RATIO), 1, RandomTreeSampler.seeded(1L, "test"))
+        );
+    }
+
+    @Test
+    public void testAllMetricsAreSerialized() throws InvalidDependencyGraphException {
+        Random random = new Random(5);
+        SentenceDataPoint all = new SentenceDataPoint(getTree(), Metric.ALL, 1, new RandomTreeSampler(random));
+        JsonObject json = GSON.toJsonTree(all).getAsJsonObject();
+        for (Metric metric : Metric.values()) {
+            Assertions.assertTrue(json.has(metric.getName()), metric.getName());
+        }
+        Assertions.assertEquals(Metric.values().length, json.size());
+    }
+}
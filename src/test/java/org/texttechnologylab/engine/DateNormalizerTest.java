@@ -0,0 +1,114 @@
+package org.texttechnologylab.engine;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.texttechnologylab.dependency.engine.DateNormalizer;
+
+public class DateNormalizerTest {
+
+    private static String timestamp(int year, int month, int day) {
+        return String.valueOf(LocalDate.of(year, month, day).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    private static Map<String, String> metaData(String title, String id) {
+        Map<String, String> metaData = new TreeMap<>();
+        metaData.put("documentTitle", title);
+        metaData.put("documentId", id);
+        return metaData;
+    }
+
+    @Test
+    public void testNumericDate() {
+        DateNormalizer normalizer = new DateNormalizer(1700, 2024, 100);
+        Map<String, String> annotation = new TreeMap<>(Map.of("dateYear", "0000"));
+        Assertions.assertEquals("1990", normalizer.normalize(annotation, metaData("Sitzung vom 12.3.1990", "id")));
+        Assertions.assertEquals("12", annotation.get("dateDay"));
+        Assertions.assertEquals("3", annotation.get("dateMonth"));
+        Assertions.assertEquals("1990", annotation.get("dateYear"));
+        Assertions.assertEquals(timestamp(1990, 3, 12), annotation.get("timestamp"));
+    }
+
+    @Test
+    public void testMonthName() {
+        DateNormalizer normalizer = new DateNormalizer(1700, 2024, 100);
+        Map<String, String> annotation = new TreeMap<>(Map.of("dateYear", "0000"));
+        Assertions.assertEquals("1921", normalizer.normalize(annotation, metaData("Sitzung am 5. märz 1921", "id")));
+        Assertions.assertEquals("5", annotation.get("dateDay"));
+        // Month names are replaced by the zero-based month
+        Assertions.assertEquals("2", annotation.get("dateMonth"));
+        Assertions.assertEquals(timestamp(1921, 3, 5), annotation.get("timestamp"));
+    }
+
+    @Test
+    public void testAbbreviatedMonthName() {
+        DateNormalizer normalizer = new DateNormalizer(1700, 2024, 100);
+        for (String title : new String[] { "Sitzung am 3. Okt. 1990", "Sitzung am 3. Okt 1990", "Sitzung am 3.okt.1990" }) {
+            Map<String, String> annotation = new TreeMap<>(Map.of("dateYear", "0000"));
+            Assertions.assertEquals("1990", normalizer.normalize(annotation, metaData(title, "id")), title);
+            Assertions.assertEquals("9", annotation.get("dateMonth"), title);
+            Assertions.assertEquals(timestamp(1990, 10, 3), annotation.get("timestamp"), title);
+        }
+        Map<String, String> annotation = new TreeMap<>(Map.of("dateYear", "0000"));
+        normalizer.normalize(annotation, metaData("Sitzung am 1. Sept. 1990", "id"));
+        Assertions.assertEquals("8", annotation.get("dateMonth"));
+    }
+
+    @Test
+    public void testNumericDateTakesPrecedence() {
+        DateNormalizer normalizer = new DateNormalizer(1700, 2024, 100);
+        Assertions.assertEquals(
+            Optional.of(new DateNormalizer.DateMatch("1", "2", "1950")),
+            normalizer.find("12. Mai 1949", "protocol-1.2.1950", null)
+        );
+        Assertions.assertEquals(
+            Optional.of(new DateNormalizer.DateMatch("12", "Mai", "1949")),
+            normalizer.find("12. Mai 1949", "protocol", "Juni 1950")
+        );
+        Assertions.assertEquals(Optional.empty(), normalizer.find("Protokoll", "1990", ""));
+    }
+
+    @Test
+    public void testAnnotatedDate() {
+        DateNormalizer normalizer = new DateNormalizer(1700, 2024, 100);
+        // Days out of range roll over into the next month
+        Map<String, String> annotation = new TreeMap<>(Map.of("dateDay", "30", "dateMonth", "2", "dateYear", "2001"));
+        Assertions.assertEquals("2001", normalizer.normalize(annotation, metaData("12.3.1990", "id")));
+        Assertions.assertEquals("2", annotation.get("dateMonth"));
+        Assertions.assertEquals(timestamp(2001, 3, 2), annotation.get("timestamp"));
+
+        // Without a day, nothing is changed
+        annotation = new TreeMap<>(Map.of("dateYear", "2001"));
+        Assertions.assertEquals("2001", normalizer.normalize(annotation, metaData("12.3.1990", "id")));
+        Assertions.assertEquals(Map.of("dateYear", "2001"), annotation);
+    }
+
+    @Test
+    public void testInvalidYear() {
+        DateNormalizer normalizer = new DateNormalizer(1700, 2024, 100);
+        Map<String, String> annotation = new TreeMap<>(Map.of("dateYear", "0000"));
+        Assertions.assertEquals("2100", normalizer.normalize(annotation, metaData("1.1.2100", "id")));
+        Assertions.assertFalse(annotation.containsKey("timestamp"));
+
+        Assertions.assertEquals("0000", normalizer.normalize(annotation, metaData("Protokoll", "id")));
+        Assertions.assertFalse(normalizer.isValidYear("1699"));
+        Assertions.assertTrue(normalizer.isValidYear("2024"));
+        Assertions.assertFalse(normalizer.isValidYear(null));
+    }
+
+    @Test
+    public void testCache() {
+        DateNormalizer normalizer = new DateNormalizer(1700, 2024, 100);
+        for (int i = 0; i < 10; i++) {
+            normalizer.normalize(new TreeMap<>(), metaData("Plenarprotokoll vom 1.2.1990", "id"));
+        }
+        normalizer.normalize(new TreeMap<>(), metaData("Plenarprotokoll vom 2.2.1990", "id"));
+        Assertions.assertEquals(2, normalizer.stats().missCount());
+        Assertions.assertEquals(9, normalizer.stats().hitCount());
+    }
+}
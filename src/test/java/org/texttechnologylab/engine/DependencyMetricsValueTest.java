@@ -40,7 +40,26 @@ public class DependencyMetricsValueTest {
         testWithValue("xmi/test-geklappt.xmi", ExpectedValues.getExpectedForGeklappt(), ExpectedDocumentAnnotations.get20211223());
     }
 
+    @Test
+    public void testGeklapptParallel() {
+        testWithValue(
+            "xmi/test-geklappt.xmi",
+            ExpectedValues.getExpectedForGeklappt(),
+            ExpectedDocumentAnnotations.get20211223(),
+            4
+        );
+    }
+
     public void testWithValue(String path, ExpectedValues expectedValues, ExpectedDocumentAnnotations expectedAnnotations) {
+        testWithValue(path, expectedValues, expectedAnnotations, 1);
+    }
+
+    public void testWithValue(
+        String path,
+        ExpectedValues expectedValues,
+        ExpectedDocumentAnnotations expectedAnnotations,
+        int sentenceThreads
+    ) {
         try {
             String pOutput = System.getProperty("output", "target/output/");
 
@@ -61,10 +80,13 @@ public class DependencyMetricsValueTest {
                 ReflectionEngine.PARAM_FAIL_ON_ERROR,
                 true,
                 ReflectionEngine.PARAM_FIX_DATE_YEAR,
-                true
+                true,
+                ReflectionEngine.PARAM_SENTENCE_THREADS,
+                sentenceThreads
             );
 
             engine.process(jCas);
+            engine.destroy();
 
             try {
                 Field field = PrimitiveAnalysisEngine_impl.class.getDeclaredField("mAnalysisComponent");
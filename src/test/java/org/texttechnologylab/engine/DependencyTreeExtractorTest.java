@@ -0,0 +1,124 @@
+package org.texttechnologylab.engine;
+
+import java.util.List;
+
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.texttechnologylab.dependency.engine.DependencyTreeExtractor;
+import org.texttechnologylab.dependency.graph.CompactDependencyTree;
+import org.texttechnologylab.dependency.graph.InvalidDependencyGraphException;
+
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token;
+import de.tudarmstadt.ukp.dkpro.core.api.syntax.type.dependency.Dependency;
+import de.tudarmstadt.ukp.dkpro.core.api.syntax.type.dependency.PUNCT;
+import de.tudarmstadt.ukp.dkpro.core.api.syntax.type.dependency.ROOT;
+
+public class DependencyTreeExtractorTest {
+
+    private static Dependency dependency(Dependency dependency, Token governor, Token dependent, String type) {
+        dependency.setBegin(dependent.getBegin());
+        dependency.setEnd(dependent.getEnd());
+        dependency.setGovernor(governor);
+        dependency.setDependent(dependent);
+        dependency.setDependencyType(type);
+        return dependency;
+    }
+
+    private static void assertTree(int[] heads, boolean[] punct, CompactDependencyTree tree)
+        throws InvalidDependencyGraphException {
+        CompactDependencyTree expected = CompactDependencyTree.fromHeads(heads, punct);
+        Assertions.assertArrayEquals(expected.getHeads(), tree.getHeads(), "heads");
+        Assertions.assertArrayEquals(expected.getPunctMask(), tree.getPunctMask(), "punct");
+    }
+
+    @Test
+    public void testRootAndPunct() throws Exception {
+        JCas jCas = JCasFactory.createText("Der Hund bellt .", "de");
+        Token der = new Token(jCas, 0, 3);
+        Token hund = new Token(jCas, 4, 8);
+        Token bellt = new Token(jCas, 9, 14);
+        Token dot = new Token(jCas, 15, 16);
+
+        // The order of the dependencies does not matter, positions follow the begin offsets
+        CompactDependencyTree tree = DependencyTreeExtractor.extract(List.of(
+            dependency(new PUNCT(jCas), bellt, dot, "PUNCT"),
+            dependency(new Dependency(jCas), bellt, hund, "SB"),
+            dependency(new ROOT(jCas), bellt, bellt, "ROOT"),
+            dependency(new Dependency(jCas), hund, der, "NK")
+        ));
+        assertTree(new int[] { 0, 2, 3, 0, 3 }, new boolean[] { false, false, false, false, true }, tree);
+        Assertions.assertFalse(tree.isAttached(4));
+        Assertions.assertTrue(tree.hasHead(4));
+    }
+
+    @Test
+    public void testRootAndPunctByType() throws Exception {
+        JCas jCas = JCasFactory.createText("Der Hund bellt .", "de");
+        Token der = new Token(jCas, 0, 3);
+        Token hund = new Token(jCas, 4, 8);
+        Token bellt = new Token(jCas, 9, 14);
+        Token dot = new Token(jCas, 15, 16);
+
+        // Plain dependencies, where only the type tells the root and punctuation apart
+        CompactDependencyTree tree = DependencyTreeExtractor.extract(List.of(
+            dependency(new Dependency(jCas), hund, der, "NK"),
+            dependency(new Dependency(jCas), bellt, hund, "SB"),
+            dependency(new Dependency(jCas), bellt, bellt, "root"),
+            dependency(new Dependency(jCas), bellt, dot, "punct")
+        ));
+        assertTree(new int[] { 0, 2, 3, 0, 3 }, new boolean[] { false, false, false, false, true }, tree);
+    }
+
+    @Test
+    public void testSelfLoopIsRoot() throws Exception {
+        JCas jCas = JCasFactory.createText("Hund bellt", "de");
+        Token hund = new Token(jCas, 0, 4);
+        Token bellt = new Token(jCas, 5, 10);
+
+        CompactDependencyTree tree = DependencyTreeExtractor.extract(List.of(
+            dependency(new Dependency(jCas), bellt, hund, "SB"),
+            dependency(new Dependency(jCas), bellt, bellt, "--")
+        ));
+        assertTree(new int[] { 0, 2, 0 }, new boolean[3], tree);
+    }
+
+    @Test
+    public void testEqualBeginOffsets() throws Exception {
+        // A contraction split into two tokens that both span "zum"
+        JCas jCas = JCasFactory.createText("zum Haus", "de");
+        Token zu = new Token(jCas, 0, 3);
+        Token dem = new Token(jCas, 0, 3);
+        Token haus = new Token(jCas, 4, 8);
+
+        // Tokens with the same begin offset keep the order in which they first appear in the dependencies
+        CompactDependencyTree tree = DependencyTreeExtractor.extract(List.of(
+            dependency(new Dependency(jCas), haus, zu, "AC"),
+            dependency(new Dependency(jCas), haus, dem, "NK"),
+            dependency(new ROOT(jCas), haus, haus, "ROOT")
+        ));
+        assertTree(new int[] { 0, 3, 3, 0 }, new boolean[4], tree);
+
+        tree = DependencyTreeExtractor.extract(List.of(
+            dependency(new Dependency(jCas), dem, zu, "AC"),
+            dependency(new Dependency(jCas), haus, dem, "NK"),
+            dependency(new ROOT(jCas), haus, haus, "ROOT")
+        ));
+        // "dem" is the governor of the first dependency, so it comes before "zu"
+        assertTree(new int[] { 0, 3, 1, 0 }, new boolean[4], tree);
+    }
+
+    @Test
+    public void testMultipleHeads() throws Exception {
+        JCas jCas = JCasFactory.createText("Hund bellt", "de");
+        Token hund = new Token(jCas, 0, 4);
+        Token bellt = new Token(jCas, 5, 10);
+
+        Assertions.assertThrows(InvalidDependencyGraphException.class, () -> DependencyTreeExtractor.extract(List.of(
+            dependency(new ROOT(jCas), hund, hund, "ROOT"),
+            dependency(new ROOT(jCas), bellt, bellt, "ROOT"),
+            dependency(new Dependency(jCas), bellt, hund, "SB")
+        )));
+    }
+}
@@ -0,0 +1,57 @@
+package org.texttechnologylab.engine;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.texttechnologylab.dependency.engine.ExistingOutputIndex;
+
+public class ExistingOutputIndexTest {
+
+    private static final String FIRST = "0123456789abcdef".repeat(4);
+    private static final String SECOND = "fedcba9876543210".repeat(4);
+    private static final String THIRD = "00112233445566778899aabbccddeeff".repeat(2);
+
+    @Test
+    public void testScan(@TempDir Path tempDir) throws IOException {
+        Files.createDirectories(tempDir.resolve("1990"));
+        Files.createDirectories(tempDir.resolve("2000"));
+        Files.writeString(tempDir.resolve("1990").resolve(FIRST + ".json"), "{}");
+        Files.writeString(tempDir.resolve("2000").resolve(SECOND + "-01ARZ3NDEKTSV4RRFFQ69G5FAV.json.gz"), "{}");
+        Files.writeString(tempDir.resolve("2000").resolve(THIRD), "{}");
+        // Not outputs
+        Files.writeString(tempDir.resolve("README.md"), "");
+        Files.writeString(tempDir.resolve("1990").resolve(FIRST.substring(1) + ".json"), "{}");
+        // An output whose write did not complete
+        Files.createFile(tempDir.resolve("1990").resolve(FIRST.replace('0', '2') + ".json"));
+
+        ExistingOutputIndex index = ExistingOutputIndex.scan(tempDir);
+        Assertions.assertEquals(3, index.size());
+        Assertions.assertTrue(index.contains(FIRST));
+        Assertions.assertTrue(index.contains(SECOND));
+        Assertions.assertTrue(index.contains(THIRD));
+
+        Assertions.assertFalse(index.add(FIRST));
+        Assertions.assertTrue(index.add(FIRST.replace('0', '1')));
+    }
+
+    @Test
+    public void testMissingTargetLocation(@TempDir Path tempDir) throws IOException {
+        ExistingOutputIndex index = ExistingOutputIndex.scan(tempDir.resolve("missing"));
+        Assertions.assertEquals(0, index.size());
+    }
+
+    @Test
+    public void testTargetLocationUrl(@TempDir Path tempDir) throws IOException {
+        Files.writeString(tempDir.resolve(FIRST + ".json"), "{}");
+        Assertions.assertEquals(1, ExistingOutputIndex.scan(tempDir.toUri().toString()).size());
+        Assertions.assertEquals(1, ExistingOutputIndex.scan(tempDir.toString()).size());
+        Assertions.assertThrows(
+            IllegalArgumentException.class,
+            () -> ExistingOutputIndex.scan("jar:" + tempDir.resolve("out.zip").toUri())
+        );
+    }
+}
@@ -0,0 +1,101 @@
+package org.texttechnologylab.graph;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.texttechnologylab.dependency.graph.CompactDependencyTree;
+import org.texttechnologylab.dependency.graph.DependencyGraph;
+import org.texttechnologylab.dependency.graph.DependencyGraphStringifier;
+import org.texttechnologylab.dependency.graph.InvalidDependencyGraphException;
+
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.ImmutableGraph;
+
+public class CompactDependencyTreeTest {
+
+    // test-geklappt.json: [[0, 6],[6, 1],[6, 2],[6, 5],[5, 4],[1, 3]] + punct [[6, 7]]
+    final Integer[][] DEP_EDGES = new Integer[][] { { 0, 6 }, { 6, 1 }, { 6, 2 }, { 6, 5 }, { 5, 4 }, { 1, 3 } };
+    final Integer[][] PUNCT_EDGES = new Integer[][] { { 6, 7 } };
+
+    @Test
+    public void testFromEdges() throws InvalidDependencyGraphException {
+        CompactDependencyTree tree = CompactDependencyTree.fromEdges(DEP_EDGES, PUNCT_EDGES);
+
+        Assertions.assertEquals(8, tree.length(), "length");
+        Assertions.assertArrayEquals(new int[] { -1, 6, 6, 1, 5, 6, 0, 6 }, tree.getHeads(), "heads");
+        Assertions.assertArrayEquals(
+            new boolean[] { false, false, false, false, false, false, false, true },
+            tree.getPunctMask(),
+            "punct"
+        );
+        Assertions.assertEquals(6, tree.getNumberOfEdges(), "numberOfEdges");
+        Assertions.assertEquals(7, tree.getNumberOfEdgesWithPunct(), "numberOfEdgesWithPunct");
+        Assertions.assertEquals(3, tree.getOutDegree(6), "outDegree(6)");
+        Assertions.assertEquals(4, tree.getOutDegreeWithPunct(6), "outDegreeWithPunct(6)");
+
+        int[] children = new int[tree.getOutDegreeWithPunct(6)];
+        for (int offset = tree.getChildrenStart(6); offset < tree.getChildrenEnd(6); offset++) {
+            children[offset - tree.getChildrenStart(6)] = tree.getChild(offset);
+        }
+        Assertions.assertArrayEquals(new int[] { 1, 2, 5, 7 }, children, "children(6)");
+    }
+
+    @Test
+    public void testGraphAdapter() throws InvalidDependencyGraphException {
+        ImmutableGraph.Builder<Integer> graphBuilder = GraphBuilder.directed().<Integer>immutable().addNode(0);
+        for (Integer[] edge : DEP_EDGES) {
+            graphBuilder.putEdge(edge[0], edge[1]);
+        }
+        ImmutableGraph<Integer> dependencyGraph = graphBuilder.build();
+        for (Integer[] edge : PUNCT_EDGES) {
+            graphBuilder.putEdge(edge[0], edge[1]);
+        }
+        ImmutableGraph<Integer> dependencyGraphWithPunct = graphBuilder.build();
+
+        CompactDependencyTree fromGraphs = CompactDependencyTree.fromGraphs(dependencyGraph, dependencyGraphWithPunct);
+        CompactDependencyTree fromEdges = CompactDependencyTree.fromEdges(DEP_EDGES, PUNCT_EDGES);
+
+        Assertions.assertArrayEquals(fromEdges.getHeads(), fromGraphs.getHeads(), "heads");
+        Assertions.assertArrayEquals(fromEdges.getPunctMask(), fromGraphs.getPunctMask(), "punct");
+        Assertions.assertEquals(dependencyGraph, fromEdges.toImmutableGraph(false), "toImmutableGraph(false)");
+        Assertions.assertEquals(dependencyGraphWithPunct, fromEdges.toImmutableGraph(true), "toImmutableGraph(true)");
+        Assertions.assertEquals(
+            DependencyGraphStringifier.graphToZsStringRepresentation(dependencyGraph),
+            DependencyGraphStringifier.treeToZsStringRepresentation(fromEdges),
+            "treeToZsStringRepresentation"
+        );
+    }
+
+    @Test
+    public void testMetrics() throws InvalidDependencyGraphException {
+        DependencyGraph dg = new DependencyGraph(CompactDependencyTree.fromEdges(DEP_EDGES, PUNCT_EDGES));
+
+        Assertions.assertEquals(6, dg.getSentenceLength(), "sentenceLength");
+        Assertions.assertEquals(6, dg.rootDistance(), "rootDistance");
+        Assertions.assertEquals(13, dg.getDependencyDistanceSum(), "dependencyDistanceSum");
+        Assertions.assertEquals(1, dg.crossings(), "crossings");
+        Assertions.assertEquals(3, dg.treeHeight(), "treeHeight");
+        Assertions.assertEquals(13, dg.dependencyHeight(), "dependencyHeight");
+        Assertions.assertEquals(3, dg.leaves(), "leaves");
+        Assertions.assertEquals(3, dg.treeDegree(), "treeDegree");
+        Assertions.assertEquals(4, dg.headFinalDistance(), "headFinalDistance");
+    }
+
+    @Test
+    public void testInvalid() {
+        Assertions.assertThrows(
+            InvalidDependencyGraphException.class,
+            () -> CompactDependencyTree.fromEdges(new Integer[][] { { 0, 1 }, { 0, 2 }, { 1, 2 } }, new Integer[0][]),
+            "Token with two heads should be rejected"
+        );
+        Assertions.assertThrows(
+            InvalidDependencyGraphException.class,
+            () -> CompactDependencyTree.fromEdges(new Integer[][] { { 0, 1 }, { 2, 2 } }, new Integer[0][]),
+            "Self loops should be rejected"
+        );
+        Assertions.assertThrows(
+            InvalidDependencyGraphException.class,
+            () -> CompactDependencyTree.fromHeads(new int[] { -1, 0, 5 }, null),
+            "Heads out of range should be rejected"
+        );
+    }
+}
@@ -0,0 +1,62 @@
+package org.texttechnologylab.graph;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.texttechnologylab.dependency.graph.CompactDependencyTree;
+import org.texttechnologylab.dependency.graph.CrossingCounter;
+import org.texttechnologylab.dependency.graph.InvalidDependencyGraphException;
+
+public class CrossingCounterTest {
+
+    @Test
+    public void testGeklappt() throws InvalidDependencyGraphException {
+        CompactDependencyTree tree = CompactDependencyTree.fromEdges(
+            new Integer[][] { { 0, 6 }, { 6, 1 }, { 6, 2 }, { 6, 5 }, { 5, 4 }, { 1, 3 } },
+            new Integer[][] { { 6, 7 } }
+        );
+        // Only the edges 6 -> 2 and 1 -> 3 cross
+        Assertions.assertArrayEquals(new int[] { 0, 0, 1, 1, 0, 0, 0, 0 }, CrossingCounter.countCrossingsPerEdge(tree));
+        Assertions.assertEquals(1, CrossingCounter.countCrossings(tree));
+    }
+
+    @Test
+    public void testRandomTreesMatchPairwiseCount() throws InvalidDependencyGraphException {
+        Random random = new Random(42);
+        for (int j = 0; j < 1000; j++) {
+            int n = 1 + random.nextInt(j < 900 ? 30 : 300);
+            int[] heads = new int[n + 1];
+            boolean[] punct = new boolean[n + 1];
+            for (int node = 2; node <= n; node++) {
+                heads[node] = 1 + random.nextInt(node - 1);
+                punct[node] = random.nextInt(8) == 0;
+            }
+            CompactDependencyTree tree = CompactDependencyTree.fromHeads(heads, punct);
+
+            int[] expected = pairwiseCrossings(heads, punct);
+            Assertions.assertArrayEquals(expected, CrossingCounter.countCrossingsPerEdge(tree), "crossings per edge");
+
+            int sum = 0;
+            for (int count : expected) {
+                sum += count;
+            }
+            Assertions.assertEquals(sum / 2, CrossingCounter.countCrossings(tree), "crossings");
+        }
+    }
+
+    private static int[] pairwiseCrossings(int[] heads, boolean[] punct) {
+        int[] crossings = new int[heads.length];
+        for (int u = 1; u < heads.length; u++) {
+            if (heads[u] <= 0 || punct[u]) continue;
+            int uMin = Math.min(heads[u], u);
+            int uMax = Math.max(heads[u], u);
+            for (int v = 1; v < heads.length; v++) {
+                if (heads[v] <= 0 || punct[v]) continue;
+                if (heads[u] == heads[v] || heads[u] == v || u == v || u == heads[v]) continue;
+                if ((uMin < heads[v] && heads[v] < uMax) != (uMin < v && v < uMax)) crossings[u]++;
+            }
+        }
+        return crossings;
+    }
+}
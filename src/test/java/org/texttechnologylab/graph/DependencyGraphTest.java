@@ -3,10 +3,17 @@ package org.texttechnologylab.graph;
 import com.google.common.graph.ImmutableGraph;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.texttechnologylab.dependency.graph.CompactDependencyTree;
 import org.texttechnologylab.dependency.graph.DependencyGraph;
+import org.texttechnologylab.dependency.graph.InvalidDependencyGraphException;
+import org.texttechnologylab.dependency.graph.RandomTreeDistance;
 import org.texttechnologylab.dependency.graph.random.RandomTree;
+import org.texttechnologylab.dependency.graph.random.RandomTreeSampler;
+import org.texttechnologylab.dependency.graph.ted.PostorderTree;
 
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.Random;
 
 public class DependencyGraphTest {
 
@@ -20,4 +27,40 @@ public class DependencyGraphTest {
         Assertions.assertEquals(nodes, new HashSet<>(DependencyGraph.getTraversalOrder(randomGraph)));
     }
 
+    @Test
+    public void testRandomTreeDistanceSamples() throws InvalidDependencyGraphException {
+        CompactDependencyTree tree = CompactDependencyTree.fromEdges(
+            new Integer[][] { { 0, 6 }, { 6, 1 }, { 6, 2 }, { 6, 5 }, { 5, 4 }, { 1, 3 } },
+            new Integer[][] { { 6, 7 } }
+        );
+        DependencyGraph dg = new DependencyGraph(tree);
+        int samples = 50;
+        RandomTreeDistance distance = dg.randomTreeDistance(
+            samples,
+            new RandomTreeSampler(new Random(42)),
+            DependencyGraph.DEFAULT_TREE_EDIT_DISTANCE
+        );
+
+        // Recompute the statistics from the same sequence of random trees
+        RandomTreeSampler sampler = new RandomTreeSampler(new Random(42));
+        PostorderTree zsTree = PostorderTree.fromDependencyTree(tree);
+        int[] distances = new int[samples];
+        double sum = 0.;
+        for (int i = 0; i < samples; i++) {
+            distances[i] = DependencyGraph.DEFAULT_TREE_EDIT_DISTANCE.distance(zsTree, sampler.sample(6));
+            sum += distances[i];
+        }
+        double mean = sum / samples;
+        double squares = 0.;
+        for (int d : distances) {
+            squares += (d - mean) * (d - mean);
+        }
+
+        Assertions.assertEquals(samples, distance.samples);
+        Assertions.assertEquals(distances[0], distance.first);
+        Assertions.assertEquals(Arrays.stream(distances).min().getAsInt(), distance.min);
+        Assertions.assertEquals(Arrays.stream(distances).max().getAsInt(), distance.max);
+        Assertions.assertEquals(mean, distance.mean, 1e-9);
+        Assertions.assertEquals(squares / samples, distance.variance, 1e-9);
+    }
 }
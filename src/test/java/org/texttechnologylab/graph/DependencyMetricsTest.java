@@ -0,0 +1,73 @@
+package org.texttechnologylab.graph;
+
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.texttechnologylab.dependency.graph.CompactDependencyTree;
+import org.texttechnologylab.dependency.graph.DependencyGraph;
+import org.texttechnologylab.dependency.graph.DependencyMetrics;
+import org.texttechnologylab.dependency.graph.InvalidDependencyGraphException;
+import org.texttechnologylab.dependency.graph.random.RandomTree;
+
+import com.google.common.graph.ImmutableGraph;
+
+public class DependencyMetricsTest {
+
+    @Test
+    public void testGeklappt() throws InvalidDependencyGraphException {
+        CompactDependencyTree tree = CompactDependencyTree.fromEdges(
+            new Integer[][] { { 0, 6 }, { 6, 1 }, { 6, 2 }, { 6, 5 }, { 5, 4 }, { 1, 3 } },
+            new Integer[][] { { 6, 7 } }
+        );
+        DependencyMetrics metrics = new DependencyGraph(tree).computeMetrics();
+
+        Assertions.assertArrayEquals(new int[] { 5, 4, 2, 1, 1 }, metrics.dependencyDistances, "dependencyDistances");
+        Assertions.assertEquals(6, metrics.sentenceLength, "sentenceLength");
+        Assertions.assertEquals(6, metrics.rootDistance, "rootDistance");
+        Assertions.assertEquals(2.6, metrics.mdd, 0.00001, "mdd");
+        Assertions.assertEquals(0.8362480242, metrics.ndd, 0.00001, "ndd");
+        Assertions.assertEquals(3, metrics.treeHeight, "treeHeight");
+        Assertions.assertEquals(13, metrics.dependencyHeight, "dependencyHeight");
+        Assertions.assertEquals(1.17, metrics.depthMean, 0.01, "depthMean");
+        Assertions.assertEquals(0.47, metrics.depthVariance, 0.01, "depthVariance");
+        Assertions.assertEquals(3, metrics.leaves, "leaves");
+        Assertions.assertEquals(3, metrics.treeDegree, "treeDegree");
+        Assertions.assertEquals(0.83, metrics.treeDegreeMean, 0.01, "treeDegreeMean");
+        Assertions.assertEquals(1.139, metrics.treeDegreeVariance, 0.01, "treeDegreeVariance");
+        Assertions.assertEquals(0.67, metrics.headFinalRatio, 0.01, "headFinalRatio");
+    }
+
+    @Test
+    public void testRandomTreesMatchIndividualMetrics() throws InvalidDependencyGraphException {
+        for (int j = 0; j < 10; j++) {
+            for (int i = 2; i < 100; i++) {
+                ImmutableGraph<Integer> graph = RandomTree.getRandomGraph(i);
+                CompactDependencyTree tree = CompactDependencyTree.fromGraphs(graph, graph);
+                DependencyGraph dg = new DependencyGraph(tree);
+                DependencyMetrics metrics = dg.computeMetrics();
+
+                ArrayList<Integer> distances = new ArrayList<>();
+                for (int distance : metrics.dependencyDistances) {
+                    distances.add(distance);
+                }
+                Assertions.assertEquals(dg.getDependencyDistances(), distances, "dependencyDistances");
+                Assertions.assertEquals(dg.getDependencyDistanceSum(), metrics.dependencyDistanceSum, "dependencyDistanceSum");
+                Assertions.assertEquals(dg.getSentenceLength(), metrics.sentenceLength, "sentenceLength");
+                Assertions.assertEquals(dg.getNumberOfSyntacticLinks(), metrics.numberOfSyntacticLinks, "numberOfSyntacticLinks");
+                Assertions.assertEquals(dg.rootDistance(), metrics.rootDistance, "rootDistance");
+                Assertions.assertEquals(dg.dependencyHeight(), metrics.dependencyHeight, "dependencyHeight");
+                Assertions.assertEquals(dg.mdd(), metrics.mdd, 1e-9, "mdd");
+                Assertions.assertEquals(dg.ndd(), metrics.ndd, 1e-9, "ndd");
+                Assertions.assertEquals(dg.treeHeight(), metrics.treeHeight, "treeHeight");
+                Assertions.assertEquals(dg.depthMean(), metrics.depthMean, 1e-9, "depthMean");
+                Assertions.assertEquals(dg.depthVariance(), metrics.depthVariance, 1e-9, "depthVariance");
+                Assertions.assertEquals(dg.leaves(), metrics.leaves, "leaves");
+                Assertions.assertEquals(dg.treeDegree(), metrics.treeDegree, "treeDegree");
+                Assertions.assertEquals(dg.treeDegreeMean(), metrics.treeDegreeMean, 1e-9, "treeDegreeMean");
+                Assertions.assertEquals(dg.treeDegreeVariance(), metrics.treeDegreeVariance, 1e-9, "treeDegreeVariance");
+                Assertions.assertEquals(dg.headFinalRatio(), metrics.headFinalRatio, 1e-9, "headFinalRatio");
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package org.texttechnologylab.graph.random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.texttechnologylab.dependency.graph.random.RandomTreePool;
+import org.texttechnologylab.dependency.graph.random.RandomTreeSampler;
+import org.texttechnologylab.dependency.graph.ted.PostorderTree;
+
+public class RandomTreePoolTest {
+
+    @Test
+    public void testHitsAndMisses() {
+        RandomTreePool pool = new RandomTreePool(4, 1_000_000L, 42L);
+        for (int round = 0; round < 3; round++) {
+            for (int i = 1; i < 50; i++) {
+                for (int slot = 0; slot < 4; slot++) {
+                    PostorderTree tree = pool.get(i, slot);
+                    Assertions.assertEquals(i, tree.size());
+                }
+            }
+        }
+        Assertions.assertEquals(49 * 4, pool.size());
+        Assertions.assertEquals(49 * 4, pool.stats().missCount());
+        Assertions.assertEquals(2 * 49 * 4, pool.stats().hitCount());
+    }
+
+    @Test
+    public void testEvictedTreesAreRegeneratedIdentically() {
+        RandomTreePool pool = new RandomTreePool(8, 200L, 42L);
+        PostorderTree[][] first = new PostorderTree[50][8];
+        for (int i = 1; i < 50; i++) {
+            for (int slot = 0; slot < 8; slot++) {
+                first[i][slot] = pool.get(i, slot);
+            }
+        }
+        Assertions.assertTrue(pool.stats().evictionCount() > 0);
+
+        RandomTreePool other = new RandomTreePool(8, 1_000_000L, 42L);
+        for (int i = 1; i < 50; i++) {
+            for (int slot = 0; slot < 8; slot++) {
+                assertSameTree(first[i][slot], pool.get(i, slot));
+                assertSameTree(first[i][slot], other.get(i, slot));
+            }
+        }
+    }
+
+    @Test
+    public void testSeededSamplerWithPool() {
+        RandomTreePool pool = new RandomTreePool(16, 1_000_000L, 42L);
+        RandomTreeSampler sampler1 = RandomTreeSampler.seeded(42L, "document", "text").withPool(pool);
+        RandomTreeSampler sampler2 = RandomTreeSampler.seeded(42L, "document", "text").withPool(pool);
+        for (int i = 1; i < 50; i++) {
+            PostorderTree tree = sampler1.sample(i);
+            Assertions.assertSame(tree, sampler2.sample(i));
+        }
+        Assertions.assertTrue(pool.stats().hitCount() >= 49);
+    }
+
+    private static void assertSameTree(PostorderTree expected, PostorderTree actual) {
+        Assertions.assertEquals(expected.size(), actual.size());
+        for (int node = 0; node < expected.size(); node++) {
+            Assertions.assertEquals(expected.getLabel(node), actual.getLabel(node));
+            Assertions.assertEquals(expected.getLeftmost(node), actual.getLeftmost(node));
+        }
+    }
+}
@@ -2,14 +2,25 @@ package org.texttechnologylab.graph.random;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.texttechnologylab.dependency.graph.CompactDependencyTree;
+import org.texttechnologylab.dependency.graph.DependencyGraph;
 import org.texttechnologylab.dependency.graph.DependencyGraphStringifier;
+import org.texttechnologylab.dependency.graph.InvalidDependencyGraphException;
 import org.texttechnologylab.dependency.graph.random.RandomTree;
+import org.texttechnologylab.dependency.graph.random.RandomTreeSampler;
+import org.texttechnologylab.dependency.graph.ted.PostorderTree;
 import org.texttechnologylab.dependency.graph.zs.Tree;
 
+import com.google.common.graph.ImmutableGraph;
+
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 public class RandomTreeTest {
@@ -61,4 +72,96 @@ public class RandomTreeTest {
             }
         }).toList();
     }
+
+    @Test
+    public void testRandomTreeSampler() {
+        RandomTreeSampler sampler = new RandomTreeSampler(new Random(42));
+        for (int j = 0; j < 10; j++) {
+            for (int i = 1; i < 100; i++) {
+                PostorderTree tree = sampler.sample(i);
+                Assertions.assertEquals(i, tree.size());
+
+                HashSet<Integer> labels = new HashSet<>();
+                for (int node = 0; node < tree.size(); node++) {
+                    labels.add(tree.getLabel(node));
+                    Assertions.assertTrue(tree.getLeftmost(node) <= node);
+                }
+                Assertions.assertEquals(i, labels.size());
+                for (int label : labels) {
+                    Assertions.assertTrue(1 <= label && label <= i);
+                }
+                // The root is the last node in postorder and spans the whole tree
+                Assertions.assertEquals(0, tree.getLeftmost(i - 1));
+            }
+        }
+    }
+
+    @Test
+    public void testRandomTreeSamplerMatchesRandomGraph() throws InvalidDependencyGraphException {
+        for (int i = 1; i < 100; i++) {
+            PostorderTree expected = PostorderTree.fromGraph(RandomTree.getRandomGraph(i, new SplittableRandom(i)));
+            PostorderTree actual = new RandomTreeSampler(new SplittableRandom(i)).sample(i);
+            assertSameTree(expected, actual);
+        }
+    }
+
+    @Test
+    public void testSeededRandomTreeSampler() {
+        RandomTreeSampler sampler1 = RandomTreeSampler.seeded(42L, "corpus", "document", "text1");
+        RandomTreeSampler sampler2 = RandomTreeSampler.seeded(42L, "corpus", "document", "text1");
+        RandomTreeSampler other = RandomTreeSampler.seeded(42L, "corpus", "document", "text2");
+        boolean anyDifferent = false;
+        for (int i = 1; i < 100; i++) {
+            PostorderTree tree = sampler1.sample(i);
+            assertSameTree(tree, sampler2.sample(i));
+            anyDifferent |= !isSameTree(tree, other.sample(i));
+        }
+        Assertions.assertTrue(anyDifferent);
+    }
+
+    @Test
+    public void testSeededRandomTreeDistanceIsIndependentOfThreads() throws InvalidDependencyGraphException {
+        ArrayList<DependencyGraph> graphs = new ArrayList<>();
+        for (int i = 2; i < 100; i++) {
+            ImmutableGraph<Integer> graph = RandomTree.getRandomGraph(i, new SplittableRandom(i));
+            graphs.add(new DependencyGraph(CompactDependencyTree.fromGraphs(graph, graph)));
+        }
+
+        List<Double> sequential = new ArrayList<>();
+        for (int i = 0; i < graphs.size(); i++) {
+            sequential.add(seededMeanDistance(graphs.get(i), i));
+        }
+        for (int j = 0; j < 3; j++) {
+            List<Double> parallel = IntStream.range(0, graphs.size())
+                .parallel()
+                .mapToObj(i -> seededMeanDistance(graphs.get(i), i))
+                .toList();
+            Assertions.assertEquals(sequential, parallel);
+        }
+    }
+
+    private static double seededMeanDistance(DependencyGraph graph, int textId) {
+        try {
+            return graph.randomTreeDistance(
+                5,
+                RandomTreeSampler.seeded(42L, "corpus", "document", String.valueOf(textId)),
+                DependencyGraph.DEFAULT_TREE_EDIT_DISTANCE
+            ).mean;
+        } catch (InvalidDependencyGraphException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static boolean isSameTree(PostorderTree expected, PostorderTree actual) {
+        if (expected.size() != actual.size()) return false;
+        for (int node = 0; node < expected.size(); node++) {
+            if (expected.getLabel(node) != actual.getLabel(node)) return false;
+            if (expected.getLeftmost(node) != actual.getLeftmost(node)) return false;
+        }
+        return true;
+    }
+
+    private static void assertSameTree(PostorderTree expected, PostorderTree actual) {
+        Assertions.assertTrue(isSameTree(expected, actual));
+    }
 }
@@ -0,0 +1,76 @@
+package org.texttechnologylab.graph.ted;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.texttechnologylab.dependency.graph.CompactDependencyTree;
+import org.texttechnologylab.dependency.graph.DependencyGraphStringifier;
+import org.texttechnologylab.dependency.graph.InvalidDependencyGraphException;
+import org.texttechnologylab.dependency.graph.random.RandomTree;
+import org.texttechnologylab.dependency.graph.ted.PostorderTree;
+
+import com.google.common.graph.ImmutableGraph;
+
+public class PostorderTreeTest {
+
+    @Test
+    public void testFromDependencyTreeMatchesNotation() throws InvalidDependencyGraphException, IOException {
+        Random random = new Random(42);
+        for (int j = 0; j < 500; j++) {
+            int n = 1 + random.nextInt(150);
+            int[] heads = new int[n + 1];
+            boolean[] punct = new boolean[n + 1];
+            heads[1] = 0;
+            for (int node = 2; node <= n; node++) {
+                heads[node] = 1 + random.nextInt(node - 1);
+                punct[node] = random.nextInt(8) == 0;
+            }
+            CompactDependencyTree tree = CompactDependencyTree.fromHeads(heads, punct);
+
+            assertSameTree(
+                PostorderTree.parse(DependencyGraphStringifier.treeToZsStringRepresentation(tree), positionLabels(n)),
+                PostorderTree.fromDependencyTree(tree)
+            );
+        }
+    }
+
+    @Test
+    public void testFromGraphMatchesNotation() throws InvalidDependencyGraphException, IOException {
+        for (int i = 1; i < 150; i++) {
+            ImmutableGraph<Integer> graph = RandomTree.getRandomGraph(i);
+            assertSameTree(
+                PostorderTree.parse(DependencyGraphStringifier.graphToZsStringRepresentation(graph), positionLabels(i)),
+                PostorderTree.fromGraph(graph)
+            );
+        }
+    }
+
+    @Test
+    public void testMultipleRoots() throws InvalidDependencyGraphException {
+        CompactDependencyTree tree = CompactDependencyTree.fromHeads(new int[] { -1, 0, 0 }, null);
+        Assertions.assertThrows(InvalidDependencyGraphException.class, () -> PostorderTree.fromDependencyTree(tree));
+    }
+
+    /**
+     * @return A label dictionary that maps {@code node<position>} to the position itself.
+     */
+    private static HashMap<String, Integer> positionLabels(int n) {
+        HashMap<String, Integer> labelIds = new HashMap<>();
+        for (int position = 0; position <= n; position++) {
+            labelIds.put("node" + position, position);
+        }
+        return labelIds;
+    }
+
+    private static void assertSameTree(PostorderTree expected, PostorderTree actual) {
+        Assertions.assertEquals(expected.size(), actual.size(), "size");
+        for (int node = 0; node < expected.size(); node++) {
+            Assertions.assertEquals(expected.getLabel(node), actual.getLabel(node), "label");
+            Assertions.assertEquals(expected.getLeftmost(node), actual.getLeftmost(node), "leftmost");
+        }
+        Assertions.assertEquals(expected.getNumberOfKeyroots(), actual.getNumberOfKeyroots(), "keyroots");
+    }
+}
@@ -0,0 +1,58 @@
+package org.texttechnologylab.graph.ted;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.texttechnologylab.dependency.graph.InvalidDependencyGraphException;
+import org.texttechnologylab.dependency.graph.random.RandomTree;
+import org.texttechnologylab.dependency.graph.ted.PostorderTree;
+import org.texttechnologylab.dependency.graph.ted.TreeEditDistanceWorkspace;
+import org.texttechnologylab.dependency.graph.ted.ZhangShashaTreeEditDistance;
+
+public class TreeEditDistanceAllocationTest {
+
+    @Test
+    public void testSteadyStateDoesNotAllocate() throws InvalidDependencyGraphException {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(bean instanceof com.sun.management.ThreadMXBean, "Allocation counters not available");
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        Assumptions.assumeTrue(threadBean.isThreadAllocatedMemorySupported(), "Allocation counters not supported");
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        PostorderTree[] trees = new PostorderTree[64];
+        for (int i = 0; i < trees.length; i++) {
+            trees[i] = PostorderTree.fromGraph(RandomTree.getRandomGraph(10 + i));
+        }
+        ZhangShashaTreeEditDistance treeEditDistance = new ZhangShashaTreeEditDistance();
+
+        // Warm up, so the workspace has grown to its final size and the loop is compiled
+        int checksum = 0;
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < trees.length; i++) {
+                checksum += treeEditDistance.distance(trees[i], trees[trees.length - 1 - i]);
+            }
+        }
+        long capacity = TreeEditDistanceWorkspace.get().capacity();
+
+        long threadId = Thread.currentThread().getId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        int comparisons = 0;
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < trees.length; i++) {
+                checksum += treeEditDistance.distance(trees[i], trees[trees.length - 1 - i]);
+                comparisons++;
+            }
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+        Assertions.assertTrue(checksum > 0);
+        Assertions.assertEquals(capacity, TreeEditDistanceWorkspace.get().capacity(), "workspace grew in steady state");
+        // Allow for a few incidental allocations of the runtime, but far less than one buffer per comparison
+        Assertions.assertTrue(
+            allocated < 64L * comparisons,
+            String.format("%d bytes allocated in %d comparisons", allocated, comparisons)
+        );
+    }
+}
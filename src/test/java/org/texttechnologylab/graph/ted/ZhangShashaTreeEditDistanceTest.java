@@ -0,0 +1,74 @@
+package org.texttechnologylab.graph.ted;
+
+import java.io.IOException;
+import java.util.HashMap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.texttechnologylab.dependency.graph.DependencyGraphStringifier;
+import org.texttechnologylab.dependency.graph.random.RandomTree;
+import org.texttechnologylab.dependency.graph.ted.PostorderTree;
+import org.texttechnologylab.dependency.graph.ted.TreeEditDistance;
+import org.texttechnologylab.dependency.graph.ted.ZhangShashaTreeEditDistance;
+import org.texttechnologylab.dependency.graph.zs.Tree;
+
+public class ZhangShashaTreeEditDistanceTest {
+
+    private static final TreeEditDistance TREE_EDIT_DISTANCE = new ZhangShashaTreeEditDistance();
+
+    @Test
+    public void testExamples() throws IOException {
+        testTreeDistance("f(d(a c(b)) e)", "f(c(d(a b)) e)", 2);
+        testTreeDistance("a(b(c d) e(f g(i)))", "a(b(c d) e(f g(h)))", 1);
+        testTreeDistance("d", "g(h)", 2);
+        testTreeDistance("node0", "node1(node2)", 2);
+        testTreeDistance("node11", "node1(node2)", 2);
+        testTreeDistance("ä(D(A C(B)) E)", "ä(C(D(A B)) E)", 2);
+    }
+
+    private static void testTreeDistance(String s1, String s2, int expected) throws IOException {
+        HashMap<String, Integer> labelIds = new HashMap<>();
+        PostorderTree tree1 = PostorderTree.parse(s1, labelIds);
+        PostorderTree tree2 = PostorderTree.parse(s2, labelIds);
+        Assertions.assertEquals(expected, TREE_EDIT_DISTANCE.distance(tree1, tree2));
+        Assertions.assertEquals(expected, TREE_EDIT_DISTANCE.distance(tree2, tree1));
+    }
+
+    @Test
+    public void testPostorder() throws IOException {
+        PostorderTree tree = PostorderTree.parse("f(d(a c(b)) e)", new HashMap<>());
+        // Postorder: a b c d e f
+        int[] leftmost = { 0, 1, 1, 0, 4, 0 };
+        Assertions.assertEquals(leftmost.length, tree.size());
+        for (int node = 0; node < leftmost.length; node++) {
+            Assertions.assertEquals(leftmost[node], tree.getLeftmost(node));
+        }
+        int[] keyroots = { 2, 4, 5 };
+        Assertions.assertEquals(keyroots.length, tree.getNumberOfKeyroots());
+        for (int i = 0; i < keyroots.length; i++) {
+            Assertions.assertEquals(keyroots[i], tree.getKeyroot(i));
+        }
+    }
+
+    @Test
+    public void testLeftoverToken() {
+        Assertions.assertThrows(RuntimeException.class, () -> PostorderTree.parse("a(b) c", new HashMap<>()));
+    }
+
+    @Test
+    public void testRandomTreesMatchZhangShasha() throws IOException {
+        for (int j = 0; j < 5; j++) {
+            for (int i = 1; i < 200; i += 7) {
+                String s1 = DependencyGraphStringifier.graphToZsStringRepresentation(RandomTree.getRandomGraph(i));
+                String s2 = DependencyGraphStringifier.graphToZsStringRepresentation(RandomTree.getRandomGraph(i));
+
+                HashMap<String, Integer> labelIds = new HashMap<>();
+                int distance = TREE_EDIT_DISTANCE.distance(
+                    PostorderTree.parse(s1, labelIds),
+                    PostorderTree.parse(s2, labelIds)
+                );
+                Assertions.assertEquals(Tree.ZhangShasha(new Tree(s1), new Tree(s2)), distance);
+            }
+        }
+    }
+}
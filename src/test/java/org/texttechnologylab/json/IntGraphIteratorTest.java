@@ -0,0 +1,108 @@
+package org.texttechnologylab.json;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.texttechnologylab.dependency.graph.CompactDependencyTree;
+import org.texttechnologylab.dependency.graph.InvalidDependencyGraphException;
+import org.texttechnologylab.dependency.json.GraphIterator;
+import org.texttechnologylab.dependency.json.GraphIterator.GraphIteratorException;
+import org.texttechnologylab.dependency.json.GraphIteratorItem;
+import org.texttechnologylab.dependency.json.IntGraphIterator;
+import org.texttechnologylab.dependency.json.IntGraphIteratorItem;
+
+public class IntGraphIteratorTest {
+
+    final String EXPECTED_ID = "1234";
+    final int[] EXPECTED_DEP_EDGES = new int[] { 0, 1, 0, 2, 2, 3 };
+    final int[] EXPECTED_PUNCT_EDGES = new int[] { 3, 4 };
+
+    @Test
+    public void testExample() throws IOException {
+        IntGraphIterator graphIterator = new IntGraphIterator(
+            new InputStreamReader(IntGraphIteratorTest.class.getClassLoader().getResourceAsStream("json/test-example.json"))
+        );
+        Assertions.assertTrue(graphIterator.hasNext(), "IntGraphIterator should have next element");
+        IntGraphIteratorItem item = graphIterator.next();
+        Assertions.assertEquals(EXPECTED_ID, item.textId, "item.textId");
+        Assertions.assertArrayEquals(EXPECTED_DEP_EDGES, item.dependencyEdges, "item.dependencyEdges");
+        Assertions.assertArrayEquals(EXPECTED_PUNCT_EDGES, item.punctEdges, "item.punctEdges");
+        Assertions.assertEquals(3, item.getNumberOfDependencyEdges());
+        Assertions.assertEquals(1, item.getNumberOfPunctEdges());
+
+        Assertions.assertFalse(graphIterator.hasNext(), "IntGraphIterator should not have next element");
+        Assertions.assertThrows(NoSuchElementException.class, () -> graphIterator.next());
+        Assertions.assertEquals(1, graphIterator.count());
+    }
+
+    @Test
+    public void testEmptyEdgeArrays() throws IOException {
+        IntGraphIterator graphIterator = new IntGraphIterator(new StringReader("{\"a\": [[], []], \"b\": [[[0, 1]], []]}"));
+        IntGraphIteratorItem a = graphIterator.next();
+        Assertions.assertEquals(0, a.dependencyEdges.length);
+        Assertions.assertEquals(0, a.punctEdges.length);
+        IntGraphIteratorItem b = graphIterator.next();
+        Assertions.assertArrayEquals(new int[] { 0, 1 }, b.dependencyEdges);
+        Assertions.assertFalse(graphIterator.hasNext());
+    }
+
+    @Test
+    public void testInvalidMissingSecondEdges() throws IOException {
+        Reader reader = new InputStreamReader(
+            IntGraphIteratorTest.class.getClassLoader().getResourceAsStream("json/test-invalid-missing_punct.json")
+        );
+        IntGraphIterator graphIterator = new IntGraphIterator(reader);
+        Assertions.assertThrows(GraphIteratorException.class, () -> graphIterator.next());
+    }
+
+    @Test
+    public void testInvalidEdgeTriple() throws IOException {
+        IntGraphIterator graphIterator = new IntGraphIterator(new StringReader("{\"a\": [[[0, 1, 2]], []]}"));
+        Assertions.assertThrows(GraphIteratorException.class, () -> graphIterator.next());
+    }
+
+    @Test
+    public void testMatchesBoxedIterator() throws IOException, InvalidDependencyGraphException {
+        // Long enough sentences to grow the reusable buffer
+        Random random = new Random(13);
+        StringBuilder json = new StringBuilder("{");
+        for (int sentence = 0; sentence < 100; sentence++) {
+            if (sentence > 0) json.append(',');
+            json.append('"').append(sentence).append("\": [[");
+            int n = 1 + random.nextInt(sentence < 90 ? 40 : 400);
+            StringBuilder punct = new StringBuilder();
+            for (int node = 1; node <= n; node++) {
+                int head = node == 1 ? 0 : 1 + random.nextInt(node - 1);
+                StringBuilder target = random.nextInt(6) == 0 && node > 1 ? punct : json;
+                if (target.length() > 0 && target.charAt(target.length() - 1) == ']') target.append(',');
+                target.append('[').append(head).append(", ").append(node).append(']');
+            }
+            json.append("], [").append(punct).append("]]");
+        }
+        json.append('}');
+
+        GraphIterator boxed = new GraphIterator(new StringReader(json.toString()));
+        IntGraphIterator primitive = new IntGraphIterator(new StringReader(json.toString()));
+        while (boxed.hasNext()) {
+            Assertions.assertTrue(primitive.hasNext());
+            GraphIteratorItem expected = boxed.next();
+            IntGraphIteratorItem actual = primitive.next();
+            Assertions.assertEquals(expected.textId, actual.textId);
+            Assertions.assertArrayEquals(expected.dependencyEdges, actual.toGraphIteratorItem().dependencyEdges);
+            Assertions.assertArrayEquals(expected.punctEdges, actual.toGraphIteratorItem().punctEdges);
+
+            CompactDependencyTree expectedTree = CompactDependencyTree.fromEdges(expected.dependencyEdges, expected.punctEdges);
+            CompactDependencyTree actualTree = actual.toTree();
+            Assertions.assertArrayEquals(expectedTree.getHeads(), actualTree.getHeads());
+            Assertions.assertArrayEquals(expectedTree.getPunctMask(), actualTree.getPunctMask());
+        }
+        Assertions.assertFalse(primitive.hasNext());
+        Assertions.assertEquals(boxed.count(), primitive.count());
+    }
+}
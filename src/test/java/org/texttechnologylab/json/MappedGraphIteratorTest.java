@@ -0,0 +1,138 @@
+package org.texttechnologylab.json;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.texttechnologylab.dependency.json.GraphIterator.GraphIteratorException;
+import org.texttechnologylab.dependency.json.IntGraphIterator;
+import org.texttechnologylab.dependency.json.IntGraphIteratorItem;
+import org.texttechnologylab.dependency.json.MappedGraphIterator;
+
+public class MappedGraphIteratorTest {
+
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+        4,
+        runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        }
+    );
+
+    @Test
+    public void testExample() throws Exception {
+        Path path = Paths.get(MappedGraphIteratorTest.class.getClassLoader().getResource("json/test-example.json").toURI());
+        try (MappedGraphIterator graphIterator = new MappedGraphIterator(path, EXECUTOR)) {
+            Assertions.assertTrue(graphIterator.hasNext(), "MappedGraphIterator should have next element");
+            IntGraphIteratorItem item = graphIterator.next();
+            Assertions.assertEquals("1234", item.textId);
+            Assertions.assertArrayEquals(new int[] { 0, 1, 0, 2, 2, 3 }, item.dependencyEdges);
+            Assertions.assertArrayEquals(new int[] { 3, 4 }, item.punctEdges);
+
+            Assertions.assertFalse(graphIterator.hasNext(), "MappedGraphIterator should not have next element");
+            Assertions.assertThrows(NoSuchElementException.class, () -> graphIterator.next());
+            Assertions.assertEquals(1, graphIterator.count());
+        }
+    }
+
+    @Test
+    public void testMatchesReaderForAllChunkSizes(@TempDir Path tempDir) throws IOException {
+        Path path = tempDir.resolve("graphs.json");
+        String json = randomJson(new Random(7), 200);
+        Files.writeString(path, json, StandardCharsets.UTF_8);
+
+        for (int chunkSize : new int[] { 1, 7, 64, 1000, 1 << 20 }) {
+            IntGraphIterator expected = new IntGraphIterator(new StringReader(json));
+            try (MappedGraphIterator actual = new MappedGraphIterator(path, EXECUTOR, chunkSize, 3)) {
+                while (expected.hasNext()) {
+                    Assertions.assertTrue(actual.hasNext(), "chunk size " + chunkSize);
+                    IntGraphIteratorItem expectedItem = expected.next();
+                    IntGraphIteratorItem actualItem = actual.next();
+                    Assertions.assertEquals(expectedItem.textId, actualItem.textId, "chunk size " + chunkSize);
+                    Assertions.assertArrayEquals(expectedItem.dependencyEdges, actualItem.dependencyEdges);
+                    Assertions.assertArrayEquals(expectedItem.punctEdges, actualItem.punctEdges);
+                }
+                Assertions.assertFalse(actual.hasNext(), "chunk size " + chunkSize);
+                Assertions.assertEquals(expected.count(), actual.count());
+            }
+        }
+    }
+
+    @Test
+    public void testEmptyObject(@TempDir Path tempDir) throws IOException {
+        Path path = tempDir.resolve("empty.json");
+        Files.writeString(path, " {\n}\n");
+        try (MappedGraphIterator graphIterator = new MappedGraphIterator(path, EXECUTOR)) {
+            Assertions.assertFalse(graphIterator.hasNext());
+        }
+    }
+
+    @Test
+    public void testEmptyFile(@TempDir Path tempDir) throws IOException {
+        Path path = tempDir.resolve("empty.json");
+        Files.writeString(path, "");
+        Assertions.assertThrows(EOFException.class, () -> new MappedGraphIterator(path, EXECUTOR));
+    }
+
+    @Test
+    public void testOldFormat() throws Exception {
+        Path path = Paths.get(
+            MappedGraphIteratorTest.class.getClassLoader().getResource("json/test-invalid-old_format.json").toURI()
+        );
+        Assertions.assertThrows(IllegalStateException.class, () -> new MappedGraphIterator(path, EXECUTOR));
+    }
+
+    @Test
+    public void testInvalidMissingSecondEdges() throws Exception {
+        Path path = Paths.get(
+            MappedGraphIteratorTest.class.getClassLoader().getResource("json/test-invalid-missing_punct.json").toURI()
+        );
+        try (MappedGraphIterator graphIterator = new MappedGraphIterator(path, EXECUTOR)) {
+            Assertions.assertThrows(GraphIteratorException.class, () -> graphIterator.next());
+        }
+    }
+
+    /**
+     * @return A graph file with varying whitespace and text ids that contain escapes, commas and brackets.
+     */
+    private static String randomJson(Random random, int sentences) {
+        String[] whitespace = new String[] { "", " ", "\n  ", "\r\n\t" };
+        StringBuilder json = new StringBuilder("{");
+        for (int sentence = 0; sentence < sentences; sentence++) {
+            if (sentence > 0) json.append(',');
+            json.append(whitespace[random.nextInt(whitespace.length)]);
+            json.append('"').append(sentence).append(switch (random.nextInt(4)) {
+                case 0 -> "";
+                case 1 -> "\\\"]],\\\"x";
+                case 2 -> "\\u00e4/ö";
+                default -> "file:/a,b[c]";
+            }).append("\":").append(whitespace[random.nextInt(whitespace.length)]).append('[');
+
+            int n = 1 + random.nextInt(30);
+            StringBuilder dependencies = new StringBuilder();
+            StringBuilder punct = new StringBuilder();
+            for (int node = 1; node <= n; node++) {
+                int head = node == 1 ? 0 : 1 + random.nextInt(node - 1);
+                StringBuilder target = node > 1 && random.nextInt(5) == 0 ? punct : dependencies;
+                if (target.length() > 0) target.append(',').append(whitespace[random.nextInt(whitespace.length)]);
+                target.append('[').append(head).append(", ").append(node).append(']');
+            }
+            json.append('[').append(dependencies).append("],").append(whitespace[random.nextInt(whitespace.length)]);
+            json.append('[').append(punct).append("]]");
+        }
+        json.append("\n}\n");
+        return json.toString();
+    }
+}
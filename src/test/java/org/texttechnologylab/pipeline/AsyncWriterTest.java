@@ -0,0 +1,130 @@
+package org.texttechnologylab.pipeline;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.texttechnologylab.dependency.pipeline.AsyncWriter;
+
+public class AsyncWriterTest {
+
+    @Test
+    public void testFlushWaitsForAllTasks() throws IOException, InterruptedException {
+        List<Integer> written = Collections.synchronizedList(new ArrayList<>());
+        try (AsyncWriter writer = new AsyncWriter(3, 5)) {
+            for (int i = 0; i < 100; i++) {
+                final int item = i;
+                writer.submit(() -> written.add(item));
+            }
+            writer.flush();
+            Assertions.assertEquals(100, written.size());
+        }
+    }
+
+    @Test
+    public void testBackpressure() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean submitted = new AtomicBoolean(false);
+        try (AsyncWriter writer = new AsyncWriter(1, 2)) {
+            for (int i = 0; i < 2; i++) {
+                writer.submit(() -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                });
+            }
+            Thread producer = new Thread(() -> {
+                try {
+                    writer.submit(() -> {
+                    });
+                    submitted.set(true);
+                } catch (IOException | InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            producer.start();
+            producer.join(200);
+            // The writer is full, so the third task waits
+            Assertions.assertFalse(submitted.get());
+
+            release.countDown();
+            producer.join(TimeUnit.SECONDS.toMillis(10));
+            Assertions.assertTrue(submitted.get());
+            writer.flush();
+        }
+    }
+
+    @Test
+    public void testSubmitReportsEarlierFailure() throws IOException, InterruptedException {
+        List<String> written = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch secondDone = new CountDownLatch(1);
+        try (AsyncWriter writer = new AsyncWriter(1, 2)) {
+            writer.submit(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                throw new IOException("first");
+            });
+            writer.submit(() -> {
+                written.add("second");
+                secondDone.countDown();
+            });
+            release.countDown();
+            secondDone.await();
+
+            // The failure of the first task is reported by the next submit, whose task is not run
+            IOException exception = Assertions.assertThrows(
+                IOException.class,
+                () -> writer.submit(() -> written.add("third"))
+            );
+            Assertions.assertEquals("first", exception.getMessage());
+
+            writer.flush();
+            Assertions.assertEquals(List.of("second"), written);
+        }
+    }
+
+    @Test
+    public void testFlushThrowsFirstFailure() throws IOException, InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        try (AsyncWriter writer = new AsyncWriter(1, 4)) {
+            // Neither task fails before both are submitted
+            writer.submit(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                throw new IOException("first");
+            });
+            writer.submit(() -> {
+                throw new IllegalStateException("second");
+            });
+            release.countDown();
+
+            IOException exception = Assertions.assertThrows(IOException.class, writer::flush);
+            Assertions.assertEquals("first", exception.getMessage());
+            Assertions.assertEquals(1, exception.getSuppressed().length);
+
+            // Failures are only reported once
+            writer.flush();
+        }
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new AsyncWriter(0, 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new AsyncWriter(2, 1));
+    }
+}
@@ -0,0 +1,89 @@
+package org.texttechnologylab.pipeline;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.texttechnologylab.dependency.pipeline.FileScheduler;
+import org.texttechnologylab.dependency.pipeline.OrderedPipeline;
+
+public class FileSchedulerTest {
+
+    @Test
+    public void testLargestFirst() {
+        List<Integer> started = Collections.synchronizedList(new ArrayList<>());
+        try (FileScheduler scheduler = new FileScheduler(2, 1)) {
+            scheduler.run(List.of(3, 10, 1, 7, 7, 5), size -> size, started::add);
+        }
+        Assertions.assertEquals(List.of(10, 7, 7, 5, 3, 1), started);
+    }
+
+    @Test
+    public void testFilesShareWorkers() throws IOException, InterruptedException {
+        Map<Integer, List<Integer>> results = new ConcurrentHashMap<>();
+        Map<String, Boolean> workerThreads = new ConcurrentHashMap<>();
+        try (FileScheduler scheduler = new FileScheduler(3, 4)) {
+            OrderedPipeline pipeline = new OrderedPipeline(scheduler.getWorkers(), scheduler.getThreads(), 5, 2);
+            scheduler.run(
+                List.of(100, 2000, 300, 50),
+                size -> size,
+                size -> {
+                    List<Integer> output = new ArrayList<>();
+                    try {
+                        pipeline.run(
+                            IntStream.range(0, size).iterator(),
+                            item -> {
+                                workerThreads.put(Thread.currentThread().getName(), true);
+                                return 2 * item;
+                            },
+                            output::add
+                        );
+                    } catch (IOException | InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                    results.put(size, output);
+                }
+            );
+        }
+        for (int size : List.of(100, 2000, 300, 50)) {
+            Assertions.assertEquals(IntStream.range(0, size).map(i -> 2 * i).boxed().toList(), results.get(size));
+        }
+        Assertions.assertTrue(workerThreads.keySet().stream().allMatch(name -> name.startsWith("metrics-worker-")));
+        Assertions.assertTrue(workerThreads.size() <= 3);
+    }
+
+    @Test
+    public void testPropagatesFailures() {
+        List<Integer> done = Collections.synchronizedList(new ArrayList<>());
+        RuntimeException exception;
+        try (FileScheduler scheduler = new FileScheduler(1, 2)) {
+            exception = Assertions.assertThrows(
+                RuntimeException.class,
+                () -> scheduler.run(
+                    List.of(1, 2, 3, 4),
+                    size -> size,
+                    size -> {
+                        if (size % 2 == 0) throw new IllegalStateException("file " + size);
+                        done.add(size);
+                    }
+                )
+            );
+        }
+        // All other files are still processed
+        Assertions.assertEquals(List.of(3, 1), done.stream().sorted(Collections.reverseOrder()).toList());
+        Assertions.assertEquals("file 4", exception.getMessage());
+        Assertions.assertEquals(1, exception.getSuppressed().length);
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new FileScheduler(0, 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new FileScheduler(1, 0));
+    }
+}
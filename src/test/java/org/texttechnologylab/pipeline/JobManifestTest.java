@@ -0,0 +1,122 @@
+package org.texttechnologylab.pipeline;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.texttechnologylab.dependency.pipeline.JobManifest;
+
+public class JobManifestTest {
+
+    private static Path complete(JobManifest manifest, Path input, Path output) throws IOException {
+        Files.writeString(JobManifest.getTemporaryFile(output), "output of " + input.getFileName());
+        manifest.commit(input, output);
+        return output;
+    }
+
+    @Test
+    public void testCommitAndResume() throws IOException {
+        Path directory = Files.createTempDirectory("manifest");
+        Path input = Files.writeString(directory.resolve("input.json"), "[1, 2, 3]");
+        Path output = directory.resolve("out").resolve("input.json.gz");
+        Files.createDirectories(output.getParent());
+
+        try (JobManifest manifest = JobManifest.open(directory.resolve("out"))) {
+            Assertions.assertFalse(manifest.isComplete(input, output));
+            complete(manifest, input, output);
+            Assertions.assertTrue(manifest.isComplete(input, output));
+            Assertions.assertFalse(Files.exists(JobManifest.getTemporaryFile(output)));
+            Assertions.assertEquals("output of input.json", Files.readString(output));
+        }
+
+        // A new run reads the entries of the previous one
+        try (JobManifest manifest = JobManifest.open(directory.resolve("out"))) {
+            Assertions.assertTrue(manifest.isComplete(input, output));
+            Assertions.assertFalse(manifest.isComplete(input, directory.resolve("out").resolve("other.json")));
+
+            // Touching the input keeps its content, so it is still complete
+            Files.setLastModifiedTime(input, FileTime.fromMillis(Files.getLastModifiedTime(input).toMillis() + 60_000));
+            Assertions.assertTrue(manifest.isComplete(input, output));
+
+            // Content of the same size is hashed and differs
+            Files.writeString(input, "[1, 2, 4]");
+            Files.setLastModifiedTime(input, FileTime.fromMillis(Files.getLastModifiedTime(input).toMillis() + 60_000));
+            Assertions.assertFalse(manifest.isComplete(input, output));
+        }
+    }
+
+    @Test
+    public void testChangedOrMissing() throws IOException {
+        Path directory = Files.createTempDirectory("manifest");
+        Path first = Files.writeString(directory.resolve("first.json"), "[1]");
+        Path second = Files.writeString(directory.resolve("second.json"), "[2]");
+        try (JobManifest manifest = JobManifest.open(directory)) {
+            Path firstOutput = complete(manifest, first, directory.resolve("first.out.json"));
+            Path secondOutput = complete(manifest, second, directory.resolve("second.out.json"));
+
+            Files.writeString(first, "[1, 2]");
+            Assertions.assertFalse(manifest.isComplete(first, firstOutput));
+
+            Files.delete(secondOutput);
+            Assertions.assertFalse(manifest.isComplete(second, secondOutput));
+        }
+    }
+
+    @Test
+    public void testWithoutHashes() throws IOException {
+        Path directory = Files.createTempDirectory("manifest");
+        Path input = Files.writeString(directory.resolve("input.json"), "[1]");
+        Path output = directory.resolve("input.out.json");
+        try (JobManifest manifest = JobManifest.open(directory, false)) {
+            complete(manifest, input, output);
+            Assertions.assertTrue(manifest.isComplete(input, output));
+
+            // Without a hash, a touched input is processed again
+            Files.setLastModifiedTime(input, FileTime.fromMillis(Files.getLastModifiedTime(input).toMillis() + 60_000));
+            Assertions.assertFalse(manifest.isComplete(input, output));
+        }
+    }
+
+    @Test
+    public void testTruncatedManifest() throws IOException {
+        Path directory = Files.createTempDirectory("manifest");
+        Path input = Files.writeString(directory.resolve("input.json"), "[1]");
+        Path output = directory.resolve("input.out.json");
+        try (JobManifest manifest = JobManifest.open(directory)) {
+            complete(manifest, input, output);
+        }
+        // The job was killed while appending the next entry
+        Files.writeString(
+            directory.resolve(JobManifest.FILE_NAME),
+            "{\"input\":\"/some/other",
+            StandardCharsets.UTF_8,
+            StandardOpenOption.APPEND
+        );
+        Path next = Files.writeString(directory.resolve("next.json"), "[2]");
+        Path nextOutput = directory.resolve("next.out.json");
+        try (JobManifest manifest = JobManifest.open(directory)) {
+            Assertions.assertTrue(manifest.isComplete(input, output));
+            // The next entry is appended after the truncated line
+            complete(manifest, next, nextOutput);
+        }
+        try (JobManifest manifest = JobManifest.open(directory)) {
+            Assertions.assertTrue(manifest.isComplete(input, output));
+            Assertions.assertTrue(manifest.isComplete(next, nextOutput));
+        }
+        Assertions.assertEquals(2, Files.readAllLines(directory.resolve(JobManifest.FILE_NAME)).size());
+    }
+
+    @Test
+    public void testTemporaryFile() {
+        Path output = Path.of("out", "1990-news-spacy.json.gz");
+        Path temporary = JobManifest.getTemporaryFile(output);
+        Assertions.assertEquals(output.getParent(), temporary.getParent());
+        Assertions.assertTrue(temporary.getFileName().toString().startsWith(JobManifest.TEMPORARY_PREFIX));
+        Assertions.assertTrue(temporary.getFileName().toString().endsWith(".json.gz"));
+    }
+}
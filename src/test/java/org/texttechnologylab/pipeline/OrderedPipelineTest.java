@@ -0,0 +1,128 @@
+package org.texttechnologylab.pipeline;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.texttechnologylab.dependency.pipeline.OrderedPipeline;
+
+public class OrderedPipelineTest {
+
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+        4,
+        runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        }
+    );
+
+    @Test
+    public void testPreservesOrder() throws Exception {
+        List<Integer> input = IntStream.range(0, 500).boxed().toList();
+        List<Integer> output = new ArrayList<>();
+        OrderedPipeline.Statistics statistics = new OrderedPipeline(EXECUTOR, 4, 7, 3).run(
+            input.iterator(),
+            item -> {
+                sleep(ThreadLocalRandom.current().nextInt(3));
+                return 2 * item;
+            },
+            output::add
+        );
+        Assertions.assertEquals(500, statistics.items);
+        Assertions.assertEquals(72, statistics.batches);
+        Assertions.assertEquals(input.stream().map(item -> 2 * item).toList(), output);
+    }
+
+    @Test
+    public void testBoundsItemsInFlight() throws Exception {
+        final int batchSize = 5;
+        final int queueDepth = 2;
+        AtomicInteger submitted = new AtomicInteger();
+        AtomicInteger maxPending = new AtomicInteger();
+        List<Integer> output = new ArrayList<>();
+        new OrderedPipeline(EXECUTOR, 4, batchSize, queueDepth).run(
+            new Iterator<Integer>() {
+                @Override
+                public boolean hasNext() {
+                    return submitted.get() < 100;
+                }
+
+                @Override
+                public Integer next() {
+                    return submitted.getAndIncrement();
+                }
+            },
+            item -> item,
+            item -> {
+                maxPending.accumulateAndGet(submitted.get() - output.size(), Math::max);
+                sleep(1);
+                output.add(item);
+            }
+        );
+        Assertions.assertEquals(100, output.size());
+        // One batch being read, the queued batches and one batch being written
+        final int maxInFlight = (queueDepth + 2) * batchSize;
+        Assertions.assertTrue(maxPending.get() <= maxInFlight, "at most " + maxInFlight + " items in flight");
+    }
+
+    @Test
+    public void testPropagatesWorkerException() {
+        List<Integer> output = new ArrayList<>();
+        IllegalStateException exception = Assertions.assertThrows(
+            IllegalStateException.class,
+            () -> new OrderedPipeline(EXECUTOR, 4, 3, 2).run(
+                IntStream.range(0, 100).iterator(),
+                item -> {
+                    if (item == 42) throw new IllegalStateException("item 42");
+                    return item;
+                },
+                output::add
+            )
+        );
+        Assertions.assertEquals("item 42", exception.getMessage());
+        Assertions.assertEquals(IntStream.range(0, 42).boxed().toList(), output);
+    }
+
+    @Test
+    public void testPropagatesParserException() {
+        List<Integer> output = new ArrayList<>();
+        IllegalStateException exception = Assertions.assertThrows(
+            IllegalStateException.class,
+            () -> new OrderedPipeline(EXECUTOR, 4, 3, 2).run(
+                IntStream.range(0, 100).peek(item -> {
+                    if (item == 42) throw new IllegalStateException("item 42");
+                }).iterator(),
+                item -> item,
+                output::add
+            )
+        );
+        Assertions.assertEquals("item 42", exception.getMessage());
+        // The batch containing the failing item is never submitted
+        Assertions.assertEquals(IntStream.range(0, 42 / 3 * 3).boxed().toList(), output);
+    }
+
+    @Test
+    public void testStatistics() {
+        OrderedPipeline.Statistics statistics = new OrderedPipeline.Statistics(10, 2, 4, 1000, 100, 2000, 900);
+        Assertions.assertEquals(0.1, statistics.getParserUtilization(), 1e-9);
+        Assertions.assertEquals(0.5, statistics.getWorkerUtilization(), 1e-9);
+        Assertions.assertEquals(0.9, statistics.getWriterUtilization(), 1e-9);
+        Assertions.assertEquals("writer", statistics.getBottleneck());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
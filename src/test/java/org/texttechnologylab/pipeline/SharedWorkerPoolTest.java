@@ -0,0 +1,37 @@
+package org.texttechnologylab.pipeline;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.texttechnologylab.dependency.pipeline.SharedWorkerPool;
+
+public class SharedWorkerPoolTest {
+
+    @Test
+    public void testSharedUntilLastRelease() throws InterruptedException, ExecutionException {
+        ExecutorService first = SharedWorkerPool.acquire(3);
+        ExecutorService second = SharedWorkerPool.acquire(8);
+        Assertions.assertSame(first, second);
+        Assertions.assertEquals(3, SharedWorkerPool.getThreads());
+        Assertions.assertTrue(first.submit(() -> Thread.currentThread().getName()).get().startsWith("shared-worker-"));
+
+        SharedWorkerPool.release();
+        Assertions.assertFalse(first.isShutdown());
+        SharedWorkerPool.release();
+        Assertions.assertTrue(first.isShutdown());
+        Assertions.assertEquals(0, SharedWorkerPool.getThreads());
+
+        // A new pool is created for the next user
+        ExecutorService third = SharedWorkerPool.acquire(2);
+        Assertions.assertNotSame(first, third);
+        Assertions.assertEquals(2, SharedWorkerPool.getThreads());
+        SharedWorkerPool.release();
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> SharedWorkerPool.acquire(0));
+    }
+}